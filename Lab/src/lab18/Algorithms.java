@@ -575,15 +575,17 @@ public final class Algorithms
 
         HashSet<Integer> visited = new HashSet<>();//vertices have all neighbors explored
 
-        java.util.PriorityQueue<Integer> Q = new java.util.PriorityQueue<Integer>((e1,e2) -> cmp.compare(D.Get(e1).Item1,D.Get(e2).Item1));
-        Q.add(start);
-        //Q.Enqueue(start);
+        //Q holds (distance, vertex) snapshots rather than vertices whose distances can change underneath it
+        //A vertex may be queued more than once, but only its cheapest entry is ever expanded; the rest are skipped when polled
+        //This replaces an O(n) remove and re-add per relaxation with a single O(log n) add
+        java.util.PriorityQueue<LINQ.Pair<E,Integer>> Q = new java.util.PriorityQueue<LINQ.Pair<E,Integer>>((p1,p2) -> cmp.compare(p1.Item1,p2.Item1));
+        Q.add(new LINQ.Pair<>(null, start));
 
         while(!Q.isEmpty())
         {
-            int currentID = Q.poll();
-            //Q.Dequeue();
-            visited.add(currentID);
+            int currentID = Q.poll().Item2;
+            if(!visited.add(currentID))//a shorter path to this vertex was already expanded
+                continue;
 
             for(Edge<V, E> e: G.OutboundEdges(currentID))//for each neighbor of current
             {
@@ -595,8 +597,7 @@ public final class Algorithms
                 if(!D.Contains(nextID) || cmp.compare(newWeight, D.Get(nextID).Item1) < 0)//if we found a shorter path to next
                 {
                     D.Put(nextID, new LINQ.Pair<>(newWeight, currentID));
-                    Q.remove(nextID);
-                    Q.add(nextID);
+                    Q.add(new LINQ.Pair<>(newWeight, nextID));
                 }
             }
         }
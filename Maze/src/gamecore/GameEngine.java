@@ -6,14 +6,23 @@ import java.awt.Image;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.LockSupport;
 
 import gamecore.LINQ.LINQ;
 import gamecore.datastructures.Dictionary;
 import gamecore.datastructures.LinkedList;
 import gamecore.datastructures.vectors.Vector2i;
 import gamecore.gui.AbsoluteFrame;
+import gamecore.gui.ActiveRenderer;
+import gamecore.gui.RenderSnapshot;
+import gamecore.gui.RenderSnapshot.RenderCommand;
 import gamecore.gui.gamecomponents.DummyComponent;
+import gamecore.time.FrameProfiler;
+import gamecore.time.FrameProfiler.Phase;
 
 /**
  * The game engine that runs the game's main loop logic.  
@@ -72,9 +81,85 @@ public abstract class GameEngine implements Runnable
 	 * @param bgc The background color of the window.
 	 */
 	protected GameEngine(String title, Image icon, int width, int height, int fps, Color bgc)
+	{
+		this(title,icon,width,height,fps,bgc,false);
+		return;
+	}
+	
+	/**
+	 * Constructs a new game engine.
+	 * @param title The title of the window.
+	 * @param icon The icon of the window.
+	 * @param width The width of the window.
+	 * @param height The height of the window.
+	 * @param fps The target (update) frames per second.
+	 * @param fixed_timestep If true, the engine updates in fixed time steps of {@code 1000 / fps} milliseconds and passes an interpolation factor to its drawables. If false, each update receives the variable time elapsed since the last one.
+	 */
+	protected GameEngine(String title, Image icon, int width, int height, int fps, boolean fixed_timestep)
+	{
+		this(title,icon,width,height,fps,null,fixed_timestep);
+		return;
+	}
+	
+	/**
+	 * Constructs a new game engine.
+	 * @param title The title of the window.
+	 * @param icon The icon of the window.
+	 * @param width The width of the window.
+	 * @param height The height of the window.
+	 * @param fps The target (update) frames per second.
+	 * @param bgc The background color of the window.
+	 * @param fixed_timestep If true, the engine updates in fixed time steps of {@code 1000 / fps} milliseconds and passes an interpolation factor to its drawables. If false, each update receives the variable time elapsed since the last one.
+	 */
+	protected GameEngine(String title, Image icon, int width, int height, int fps, Color bgc, boolean fixed_timestep)
+	{
+		this(title,icon,width,height,fps,bgc,fixed_timestep,false);
+		return;
+	}
+	
+	/**
+	 * Constructs a new game engine.
+	 * @param title The title of the window.
+	 * @param icon The icon of the window.
+	 * @param width The width of the window.
+	 * @param height The height of the window.
+	 * @param fps The target (update) frames per second.
+	 * @param bgc The background color of the window.
+	 * @param fixed_timestep If true, the engine updates in fixed time steps of {@code 1000 / fps} milliseconds and passes an interpolation factor to its drawables. If false, each update receives the variable time elapsed since the last one.
+	 * @param pipelined If true, the engine publishes an immutable render snapshot of its drawables each frame and a separate render thread draws it. If false, drawing and repainting happen on the update thread through Swing.
+	 */
+	protected GameEngine(String title, Image icon, int width, int height, int fps, Color bgc, boolean fixed_timestep, boolean pipelined)
+	{
+		this(new AbsoluteFrame(title,icon,width,height,bgc),fps,fixed_timestep,pipelined,0L);
+		return;
+	}
+	
+	/**
+	 * Constructs a new headless game engine.
+	 * A headless game engine has no window and never draws anything.
+	 * It updates in fixed time steps of {@code 1000 / fps} milliseconds of simulated time as fast as it can without ever sleeping.
+	 * @param fps The number of simulated (update) frames per second. This determines the time delta given to each update.
+	 * @param ticks The number of update frames to run before quitting on our own. If this value is nonpositive, the game engine runs until {@code Quit} is called.
+	 */
+	protected GameEngine(int fps, long ticks)
+	{
+		this(null,fps,true,false,ticks);
+		return;
+	}
+	
+	/**
+	 * Constructs a new game engine.
+	 * @param window The game window. If this is null, the game engine is headless.
+	 * @param fps The target (update) frames per second.
+	 * @param fixed_timestep If true, the engine updates in fixed time steps.
+	 * @param pipelined If true, drawing is done on a separate render thread. This is ignored when headless.
+	 * @param ticks The number of update frames a headless engine runs before quitting on its own or a nonpositive value to run until {@code Quit} is called. This is ignored when not headless.
+	 */
+	private GameEngine(AbsoluteFrame window, int fps, boolean fixed_timestep, boolean pipelined, long ticks)
 	{
 		Game = this;
-		Window = new AbsoluteFrame(title,icon,width,height,bgc);
+		Window = window;
+		Renderer = pipelined && Window != null ? new ActiveRenderer(Window) : null;
 		
 		Initialized = false;
 		Initializing = false;
@@ -88,6 +173,21 @@ public abstract class GameEngine implements Runnable
 		Finishing = false;
 		
 		GameComponents = new LinkedList<IUpdatable>();
+		Updatables = new IUpdatable[16];
+		Drawables = new IDrawable[16];
+		UpdatableCount = 0;
+		DrawableCount = 0;
+		RegistriesDirty = false;
+		Iterating = false;
+		
+		ParallelUpdates = false;
+		SerialUpdatables = new IUpdatable[16];
+		ParallelUpdatables = new IUpdatable[16];
+		WaveEnds = new int[1];
+		SerialCount = 0;
+		ParallelCount = 0;
+		WaveCount = 0;
+		
 		Services = new Dictionary<Class,Object>();
 		
 		FPS = fps;
@@ -96,6 +196,13 @@ public abstract class GameEngine implements Runnable
 		TimeStamp = -1L;
 		ElapsedTime = 0L;
 		
+		FixedTimestep = fixed_timestep;
+		FixedStepNanos = AllottedATPF * 1000000L; // We use the same (integral) millisecond step for both simulation and pacing so that they never drift apart
+		Accumulator = 0L;
+		
+		TickLimit = ticks;
+		RunTime = 0L;
+		
 		return;
 	}
 	
@@ -114,27 +221,75 @@ public abstract class GameEngine implements Runnable
 		LateInitialize();
 		
 		// Add a listener to pick up window closes so we can handle them ourselves
-		Window.setDefaultCloseOperation(Window.DO_NOTHING_ON_CLOSE);
-		Window.addWindowListener(new WindowAdapter()
-							{
-								@Override public void windowClosing(WindowEvent e)
+		if(Window != null)
+		{
+			Window.setDefaultCloseOperation(Window.DO_NOTHING_ON_CLOSE);
+			Window.addWindowListener(new WindowAdapter()
 								{
-									Quit();
-									
-									super.windowClosing(e);
-									return;
-								}
-							});
+									@Override public void windowClosing(WindowEvent e)
+									{
+										Quit();
+										
+										super.windowClosing(e);
+										return;
+									}
+								});
+		}
 		
 		Initializing = false;
 		Initialized = true;
 		
-		// Force the first paint
-		for(IDrawable d : LINQ.Select(LINQ.Where(GameComponents,c -> c instanceof IDrawable),c -> (IDrawable)c))
-			d.Draw();
+		// Start up the render thread if we have one
+		if(Renderer != null)
+			Renderer.Start();
 		
-		Window.Repaint();
+		// Perform the main game loop
+		long start = System.nanoTime();
 		
+		if(Headless())
+			RunHeadless();
+		else
+		{
+			// Force the first paint
+			Render(0.0);
+			
+			if(FixedTimestep)
+				RunFixedTimestep();
+			else
+				RunVariableTimestep();
+		}
+		
+		RunTime = System.nanoTime() - start;
+		
+		// When the main game loop exists, we need to clean up
+		Finishing = true;
+		Dispose();
+		
+		for(IUpdatable component : GameComponents)
+			if(!component.Disposed())
+				component.Dispose();
+		
+		LateDispose();
+		
+		// Dispose of our window (and stop drawing to it first if we're doing so from elsewhere)
+		if(Renderer != null)
+			Renderer.Stop();
+		
+		if(Window != null)
+			Window.dispose();
+		
+		Finishing = false;
+		Finished = true;
+		
+		return;
+	}
+	
+	/**
+	 * Runs the main game loop with a variable time step.
+	 * Each update is given the time elapsed since the previous one, and we sleep off whatever time is left in the frame.
+	 */
+	private void RunVariableTimestep()
+	{
 		// Now sleep off the first frame
 		TimeStamp = System.currentTimeMillis();
 		try
@@ -142,7 +297,6 @@ public abstract class GameEngine implements Runnable
 		catch(Exception e)
 		{} 
 		
-		// Perform the main game loop
 		while(Continue)
 		{
 			// If we're paused, we shouldn't do anything
@@ -165,6 +319,8 @@ public abstract class GameEngine implements Runnable
 					Play();
 			}
 			
+			long frame_start = Profiler == null ? 0L : System.nanoTime();
+			
 			// First obtain the time delta
 			long delta = System.currentTimeMillis() - TimeStamp;
 			
@@ -175,19 +331,11 @@ public abstract class GameEngine implements Runnable
 				TickDeficit += delta - AllottedATPF;
 			
 			// Now perform the game logic updates
-			Frame++;
-			Update(delta);
-			
-			for(IUpdatable component : GameComponents)
-				component.Update(delta);
-			
-			LateUpdate(delta);
+			Tick(delta);
 			
 			// Now force the system to redraw now that everything has updated
-			for(IDrawable d : LINQ.Select(LINQ.Where(GameComponents,c -> c instanceof IDrawable),c -> (IDrawable)c))
-				d.Draw();
-			
-			Window.Repaint();
+			Render(0.0);
+			RecordFrame(frame_start);
 			
 			// Lastly, sleep if we need to in order to sync with our desired FPS
 			// Alternatively, don't sleep if we need to catch up to our desired FPS
@@ -217,21 +365,463 @@ public abstract class GameEngine implements Runnable
 					{}
 		}
 		
-		// When the main game loop exists, we need to clean up
-		Finishing = true;
-		Dispose();
+		return;
+	}
+	
+	/**
+	 * Runs the main game loop with a fixed time step.
+	 * Real time is measured in nanoseconds and banked in an accumulator, which is then spent in whole update steps of exactly {@code AllottedATPF} milliseconds.
+	 * If we fall too far behind, we perform at most {@code GlobalConstants.MAX_FIXED_STEP_CATCH_UP} updates in one frame and forfeit the rest so that a slow frame cannot snowball into a spiral of ever slower frames.
+	 * Drawables are then given how far we are into the next step so that they may interpolate between simulation states.
+	 */
+	private void RunFixedTimestep()
+	{
+		TimeStamp = System.nanoTime();
+		
+		while(Continue)
+		{
+			// If we're paused, we shouldn't do anything
+			while(Paused)
+			{
+				long temp = System.nanoTime();
+				LockSupport.parkNanos(FixedStepNanos);
+				
+				// Paused time doesn't count as ellapsed time, so we push our time stamp forward and leave the accumulator alone
+				temp = System.nanoTime() - temp;
+				TimeStamp += temp;
+				
+				if(PauseExitCondition.ExitCondition(temp / 1000000000.0)) // We give elapsed time in terms of seconds, not nanoseconds
+					Play();
+			}
+			
+			// Bank the real time that has passed since the last frame
+			long now = System.nanoTime();
+			long frame_start = Profiler == null ? 0L : now;
+
+			Accumulator += now - TimeStamp;
+			TimeStamp = now;
+			
+			// Spend the banked time in fixed steps
+			int steps = 0;
+			
+			while(Accumulator >= FixedStepNanos && steps < GlobalConstants.MAX_FIXED_STEP_CATCH_UP)
+			{
+				ElapsedTime += AllottedATPF;
+				Tick(AllottedATPF);
+				
+				Accumulator -= FixedStepNanos;
+				steps++;
+			}
+			
+			// If we're still behind after catching up as much as we're willing to, drop the whole steps we could not afford
+			if(Accumulator >= FixedStepNanos)
+			{
+				TickDeficit += Accumulator / FixedStepNanos * AllottedATPF;
+				Accumulator %= FixedStepNanos;
+			}
+			
+			// Draw the state we have, telling everyone how far we are into the next step
+			Render(Accumulator / (double)FixedStepNanos);
+			RecordFrame(frame_start);
+			
+			// Sleep until the next step is due
+			long RemainingTime = FixedStepNanos - Accumulator - (System.nanoTime() - TimeStamp);
+			
+			if(RemainingTime > 0L)
+				LockSupport.parkNanos(RemainingTime);
+		}
+		
+		return;
+	}
+	
+	/**
+	 * Runs the main game loop without a window.
+	 * Each update advances the game by exactly {@code AllottedATPF} milliseconds of simulated time, and we never sleep or draw.
+	 * While paused, each skipped step counts toward the tick limit, and pausing without an exit condition ends the loop since nothing could ever unpause it.
+	 */
+	private void RunHeadless()
+	{
+		long skipped = 0L;
+		
+		while(Continue && (TickLimit <= 0L || Frame + skipped < TickLimit))
+		{
+			if(Paused)
+			{
+				// Nothing else runs on this thread, so without an exit condition we would wait forever
+				if(PauseExitCondition == null)
+					break;
+				
+				// Paused time is simulated one skipped step at a time, but as in the other loops, it doesn't count as elapsed time
+				skipped++;
+				
+				if(PauseExitCondition.ExitCondition(AllottedATPF / 1000.0))
+					Play();
+				
+				continue;
+			}
+			
+			long frame_start = Profiler == null ? 0L : System.nanoTime();
+			
+			ElapsedTime += AllottedATPF;
+			Tick(AllottedATPF);
+			
+			RecordFrame(frame_start);
+		}
+		
+		return;
+	}
+	
+	/**
+	 * Performs a single update cycle of the engine and all of its components.
+	 * @param delta The amount of time in milliseconds to advance the game by.
+	 */
+	private void Tick(long delta)
+	{
+		// We only bother to look at the clock if someone is going to look at the times
+		FrameProfiler profiler = Profiler;
+		long t0 = profiler == null ? 0L : System.nanoTime();
+		
+		Frame++;
+		Update(delta);
+		
+		long t1 = profiler == null ? 0L : System.nanoTime();
+		
+		// Components added during this loop are deferred until the next pass, and removed components leave a null behind
+		RefreshRegistries();
+		Iterating = true;
+		
+		if(ParallelUpdates)
+		{
+			// Everything that isn't parallel safe goes first and in order on this thread
+			for(int i = 0;i < SerialCount;i++)
+				if(SerialUpdatables[i] != null)
+					UpdateComponent(SerialUpdatables[i],delta);
+			
+			// Then each wave of parallel safe components is updated all at once, and we wait for it to finish before starting the next
+			for(int w = 0,start = 0;w < WaveCount;start = WaveEnds[w++])
+				if(WaveEnds[w] - start > PARALLEL_UPDATE_GRAIN)
+					ForkJoinPool.commonPool().invoke(new ParallelUpdate(ParallelUpdatables,start,WaveEnds[w],delta));
+				else
+					for(int i = start;i < WaveEnds[w];i++)
+						if(ParallelUpdatables[i] != null)
+							ParallelUpdatables[i].Update(delta);
+		}
+		else
+			for(int i = 0;i < UpdatableCount;i++)
+				if(Updatables[i] != null)
+					UpdateComponent(Updatables[i],delta);
+		
+		Iterating = false;
+		
+		long t2 = profiler == null ? 0L : System.nanoTime();
+		LateUpdate(delta);
+		
+		if(profiler != null)
+		{
+			long t3 = System.nanoTime();
+			
+			profiler.Record(Phase.UPDATE,t1 - t0);
+			profiler.Record(Phase.COMPONENTS,t2 - t1);
+			profiler.Record(Phase.LATE_UPDATE,t3 - t2);
+		}
+		
+		return;
+	}
+	
+	/**
+	 * Updates a single component on the update thread, timing it if we are profiling components.
+	 * @param component The component to update.
+	 * @param delta The amount of time in milliseconds to advance the component by.
+	 */
+	private void UpdateComponent(IUpdatable component, long delta)
+	{
+		FrameProfiler profiler = Profiler;
+		
+		if(profiler == null || !profiler.PerComponent())
+		{
+			component.Update(delta);
+			return;
+		}
+		
+		long start = System.nanoTime();
+		component.Update(delta);
+		profiler.RecordComponent(component,System.nanoTime() - start);
+		
+		return;
+	}
+	
+	/**
+	 * Records the time taken by a pass of the main game loop if we are profiling.
+	 * @param start The time stamp in nanoseconds at which the pass began or 0 if we were not profiling when it began.
+	 */
+	private void RecordFrame(long start)
+	{
+		if(Profiler != null && start != 0L)
+			Profiler.RecordFrame(System.nanoTime() - start);
+		
+		return;
+	}
+	
+	/**
+	 * Draws every drawable component and then repaints the window.
+	 * @param alpha The interpolation factor in [0,1) between the last simulated state and the next one. This is always 0 with a variable time step.
+	 */
+	private void Render(double alpha)
+	{
+		FrameProfiler profiler = Profiler;
+		long t0 = profiler == null ? 0L : System.nanoTime();
+		
+		// If we're pipelined, we only take a snapshot and leave the actual drawing to the render thread
+		if(Renderer != null)
+		{
+			RenderSnapshot snapshot = TakeSnapshot(alpha);
+			long t1 = profiler == null ? 0L : System.nanoTime();
+			
+			Renderer.Publish(snapshot);
+			
+			if(profiler != null)
+			{
+				profiler.Record(Phase.DRAW,t1 - t0);
+				profiler.Record(Phase.REPAINT,System.nanoTime() - t1);
+			}
+			
+			return;
+		}
+		
+		RefreshRegistries();
+		Iterating = true;
+		
+		for(int i = 0;i < DrawableCount;i++)
+			if(Drawables[i] != null)
+				Drawables[i].Draw(alpha);
+		
+		Iterating = false;
+		
+		long t1 = profiler == null ? 0L : System.nanoTime();
+		Window.Repaint();
+		
+		if(profiler != null)
+		{
+			profiler.Record(Phase.DRAW,t1 - t0);
+			profiler.Record(Phase.REPAINT,System.nanoTime() - t1);
+		}
+		
+		return;
+	}
+	
+	/**
+	 * Takes an immutable snapshot of every drawable component.
+	 * @param alpha The interpolation factor in [0,1) between the last simulated state and the next one. This is always 0 with a variable time step.
+	 * @return Returns the snapshot of the current frame.
+	 */
+	private RenderSnapshot TakeSnapshot(double alpha)
+	{
+		RefreshRegistries();
+		Iterating = true;
+		
+		RenderCommand[] commands = new RenderCommand[DrawableCount];
+		
+		for(int i = 0;i < DrawableCount;i++)
+			if(Drawables[i] != null)
+				commands[i] = Drawables[i].Snapshot(alpha);
+		
+		Iterating = false;
+		
+		return new RenderSnapshot(Frame,commands);
+	}
+	
+	/**
+	 * Rebuilds the updatable and drawable registries from the component list if it has changed since they were last built.
+	 * This must never be called while the registries are being iterated over.
+	 */
+	private void RefreshRegistries()
+	{
+		if(!RegistriesDirty)
+			return;
+		
+		int n = GameComponents.size();
+		
+		// We only ever grow the registries so that a steady state never allocates
+		if(Updatables.length < n)
+		{
+			int len = Math.max(n,Updatables.length << 1);
+			
+			Updatables = new IUpdatable[len];
+			Drawables = new IDrawable[len];
+		}
+		
+		int old_updatables = UpdatableCount;
+		int old_drawables = DrawableCount;
+		
+		UpdatableCount = 0;
+		DrawableCount = 0;
 		
 		for(IUpdatable component : GameComponents)
-			if(!component.Disposed())
-				component.Dispose();
+		{
+			Updatables[UpdatableCount++] = component;
+			
+			if(component instanceof IDrawable)
+				Drawables[DrawableCount++] = (IDrawable)component;
+		}
 		
-		LateDispose();
+		// Clear out any stale references left over from a larger registry so that we don't keep removed components alive
+		for(int i = UpdatableCount;i < old_updatables;i++)
+			Updatables[i] = null;
 		
-		// Dispose of our window
-		Window.dispose();
+		for(int i = DrawableCount;i < old_drawables;i++)
+			Drawables[i] = null;
 		
-		Finishing = false;
-		Finished = true;
+		if(ParallelUpdates)
+			Schedule();
+		
+		RegistriesDirty = false;
+		return;
+	}
+	
+	/**
+	 * Splits the updatables into those which must be updated serially and waves of parallel safe components.
+	 * Each parallel safe component is placed in the wave after the latest wave of any of its dependencies.
+	 * @throws IllegalStateException Thrown if the dependencies of the parallel safe components contain a cycle.
+	 */
+	private void Schedule()
+	{
+		if(SerialUpdatables.length < Updatables.length)
+		{
+			SerialUpdatables = new IUpdatable[Updatables.length];
+			ParallelUpdatables = new IUpdatable[Updatables.length];
+		}
+		
+		// Mark every parallel safe component as unvisited
+		Dictionary<IUpdatable,Integer> waves = new Dictionary<IUpdatable,Integer>();
+		
+		for(int i = 0;i < UpdatableCount;i++)
+			if(Updatables[i].ParallelSafe())
+				waves.Put(Updatables[i],UNSCHEDULED);
+		
+		// Now figure out which wave everyone belongs to and how many are in each
+		int old_serial = SerialCount;
+		int old_parallel = ParallelCount;
+		int[] counts = new int[UpdatableCount + 1];
+		
+		SerialCount = 0;
+		ParallelCount = 0;
+		WaveCount = 0;
+		
+		for(int i = 0;i < UpdatableCount;i++)
+			if(waves.ContainsKey(Updatables[i]))
+			{
+				int w = WaveOf(Updatables[i],waves);
+				
+				counts[w]++;
+				WaveCount = Math.max(WaveCount,w + 1);
+			}
+			else
+				SerialUpdatables[SerialCount++] = Updatables[i];
+		
+		// Lay the waves out back to back, keeping component order within each wave
+		if(WaveEnds.length < WaveCount)
+			WaveEnds = new int[WaveCount];
+		
+		for(int w = 0,end = 0;w < WaveCount;w++)
+			WaveEnds[w] = end += counts[w];
+		
+		int[] next = new int[WaveCount];
+		
+		for(int w = 1;w < WaveCount;w++)
+			next[w] = WaveEnds[w - 1];
+		
+		for(int i = 0;i < UpdatableCount;i++)
+			if(waves.ContainsKey(Updatables[i]))
+				ParallelUpdatables[next[waves.Get(Updatables[i])]++] = Updatables[i];
+		
+		ParallelCount = WaveCount == 0 ? 0 : WaveEnds[WaveCount - 1];
+		
+		for(int i = SerialCount;i < old_serial;i++)
+			SerialUpdatables[i] = null;
+		
+		for(int i = ParallelCount;i < old_parallel;i++)
+			ParallelUpdatables[i] = null;
+		
+		return;
+	}
+	
+	/**
+	 * Determines the update wave of a parallel safe component.
+	 * @param component The component to schedule.
+	 * @param waves The waves determined so far. Every parallel safe component must be present as a key.
+	 * @return Returns the wave {@code component} belongs to or -1 if it is not a parallel safe component of this game engine.
+	 * @throws IllegalStateException Thrown if {@code component} depends upon itself, directly or otherwise.
+	 */
+	private int WaveOf(IUpdatable component, Dictionary<IUpdatable,Integer> waves)
+	{
+		// Dependencies that aren't parallel safe (or aren't here at all) are finished before any wave begins
+		if(component == null || !waves.ContainsKey(component))
+			return -1;
+		
+		int ret = waves.Get(component);
+		
+		if(ret == SCHEDULING)
+			throw new IllegalStateException();
+		
+		if(ret != UNSCHEDULED)
+			return ret;
+		
+		waves.Put(component,SCHEDULING);
+		ret = 0;
+		
+		Iterable<? extends IUpdatable> dependencies = component.UpdateDependencies();
+		
+		if(dependencies != null)
+			for(IUpdatable d : dependencies)
+				ret = Math.max(ret,WaveOf(d,waves) + 1);
+		
+		waves.Put(component,ret);
+		return ret;
+	}
+	
+	/**
+	 * Notes that {@code component} has been removed from the component list.
+	 * If we are in the middle of iterating over the registries, its entries are blanked out immediately so that it receives no further calls this pass.
+	 * Either way, the registries are rebuilt before their next use.
+	 * @param component The removed component.
+	 */
+	private void Unregister(IUpdatable component)
+	{
+		RegistriesDirty = true;
+		
+		if(!Iterating)
+			return;
+		
+		for(int i = 0;i < UpdatableCount;i++)
+			if(Updatables[i] == component)
+			{
+				Updatables[i] = null;
+				break;
+			}
+		
+		for(int i = 0;i < DrawableCount;i++)
+			if(Drawables[i] == component)
+			{
+				Drawables[i] = null;
+				break;
+			}
+		
+		if(ParallelUpdates)
+		{
+			for(int i = 0;i < SerialCount;i++)
+				if(SerialUpdatables[i] == component)
+				{
+					SerialUpdatables[i] = null;
+					break;
+				}
+			
+			for(int i = 0;i < ParallelCount;i++)
+				if(ParallelUpdatables[i] == component)
+				{
+					ParallelUpdatables[i] = null;
+					break;
+				}
+		}
 		
 		return;
 	}
@@ -269,6 +859,7 @@ public abstract class GameEngine implements Runnable
 	/**
 	 * Adds a new game component to this engine.
 	 * Items added earlier are drawn on top of items added later.
+	 * If this is called while the engine is updating its components, the new component will not be updated until the next frame.
 	 * @param component The component to add.
 	 * @return Returns true if the component was added and false otherwise.
 	 * @throws IllegalArgumentException Thrown if {@code component} is already part of this game engine.
@@ -289,10 +880,13 @@ public abstract class GameEngine implements Runnable
 		if(!GameComponents.AddLast(component))
 			return false;
 		
-		if(component instanceof Component)
-			Window.AddComponentFrameBounded((Component)component);
-		else
-			Window.AddComponentFrameBounded(new DummyComponent());
+		RegistriesDirty = true;
+		
+		if(Window != null)
+			if(component instanceof Component)
+				Window.AddComponentFrameBounded((Component)component);
+			else
+				Window.AddComponentFrameBounded(new DummyComponent());
 		
 		component.OnAdd();
 		
@@ -305,6 +899,7 @@ public abstract class GameEngine implements Runnable
 	/**
 	 * Adds a new game component to this engine.
 	 * Items with a smaller index are drawn on top of items with a larger index.
+	 * If this is called while the engine is updating its components, the new component will not be updated until the next frame.
 	 * @param component The component to add.
 	 * @param where The index to insert the component at.
 	 * @return Returns true if the component was added and false otherwise.
@@ -327,10 +922,13 @@ public abstract class GameEngine implements Runnable
 		if(!GameComponents.Insert(component,where))
 			return false;
 		
-		if(component instanceof Component)
-			Window.AddComponentFrameBounded((Component)component,where);
-		else
-			Window.AddComponentFrameBounded(new DummyComponent(),where);
+		RegistriesDirty = true;
+		
+		if(Window != null)
+			if(component instanceof Component)
+				Window.AddComponentFrameBounded((Component)component,where);
+			else
+				Window.AddComponentFrameBounded(new DummyComponent(),where);
 		
 		component.OnAdd();
 		
@@ -399,7 +997,11 @@ public abstract class GameEngine implements Runnable
 			throw new IllegalStateException();
 		
 		IUpdatable ret = GameComponents.remove(where);
-		Window.RemoveComponent(where);
+		
+		if(Window != null)
+			Window.RemoveComponent(where);
+		
+		Unregister(ret);
 		
 		ret.OnRemove();
 		return ret;
@@ -419,7 +1021,11 @@ public abstract class GameEngine implements Runnable
 			throw new IllegalStateException();
 		
 		IUpdatable ret = GameComponents.remove(where);
-		Window.RemoveComponent(where);
+		
+		if(Window != null)
+			Window.RemoveComponent(where);
+		
+		Unregister(ret);
 		
 		ret.OnRemove();
 		
@@ -479,7 +1085,20 @@ public abstract class GameEngine implements Runnable
 		}
 		
 		GameComponents.clear();
-		Window.ClearComponents();
+		
+		if(Window != null)
+			Window.ClearComponents();
+		
+		// If we're in the middle of iterating, nothing else in the registries should receive any more calls this pass
+		if(Iterating)
+		{
+			Arrays.fill(Updatables,0,UpdatableCount,null);
+			Arrays.fill(Drawables,0,DrawableCount,null);
+			Arrays.fill(SerialUpdatables,0,SerialCount,null);
+			Arrays.fill(ParallelUpdatables,0,ParallelCount,null);
+		}
+		
+		RegistriesDirty = true;
 		
 		return;
 	}
@@ -595,6 +1214,7 @@ public abstract class GameEngine implements Runnable
 	 * Sets the game window size to have the specified dimensions.
 	 * @param dim The dimensions of the game window. Width is the first component and height is the second.
 	 * @throws IllegalArgumentException Thrown if either component of {@code dim} is nonpositive.
+	 * @throws IllegalStateException Thrown if this game engine is headless.
 	 */
 	public void SetWindowSize(Vector2i dim)
 	{
@@ -607,26 +1227,34 @@ public abstract class GameEngine implements Runnable
 	 * @param width The width of the game window.
 	 * @param height The height of the game window.
 	 * @throws IllegalArgumentException Thrown if {@code width} or {@code height} is nonpositive.
+	 * @throws IllegalStateException Thrown if this game engine is headless.
 	 */
 	public void SetWindowSize(int width, int height)
 	{
 		if(width <= 0 || height <= 0)
 			throw new IllegalArgumentException();
 		
+		if(Window == null)
+			throw new IllegalStateException();
+		
 		Window.setSize(width,height);
 		
 		for(Component comp : LINQ.Select(LINQ.Where(GameComponents,c -> c instanceof Component),c -> (Component)c))
 			comp.setSize(width,height);
 		
+		// The render thread's canvas and buffers were sized for the old window
+		if(Renderer != null)
+			Renderer.Resize();
+		
 		return;
 	}
 	
 	/**
 	 * Determines the game window size.
-	 * @return Returns the game window size. Width is the first component and height is the second.
+	 * @return Returns the game window size. Width is the first component and height is the second. If this game engine is headless, this is always the zero vector.
 	 */
 	public Vector2i GetWindowSize()
-	{return new Vector2i(Window.getWidth(),Window.getHeight());}
+	{return Window == null ? Vector2i.ZERO : new Vector2i(Window.getWidth(),Window.getHeight());}
 	
 	/**
 	 * Determines if the game engine is currently initializing.
@@ -699,6 +1327,131 @@ public abstract class GameEngine implements Runnable
 	public long ElapsedTime()
 	{return ElapsedTime;}
 	
+	/**
+	 * Begins profiling this game engine's frames.
+	 * The profiler is registered as a service and can also be obtained via {@code GetService(FrameProfiler.class)}.
+	 * Frames which take longer than the target time per frame are counted as slow.
+	 * If this game engine is already profiling, this does nothing.
+	 * @param per_component If true, the update time of each component is recorded as well. Parallel safe components updated in parallel are only timed as part of the whole component update phase.
+	 * @return Returns the profiler.
+	 */
+	public FrameProfiler EnableProfiling(boolean per_component)
+	{
+		if(Profiler != null)
+			return Profiler;
+		
+		FrameProfiler profiler = new FrameProfiler(PROFILER_WINDOW,AllottedATPF * 1000000L,per_component);
+		AddService(profiler);
+		
+		Profiler = profiler;
+		return profiler;
+	}
+	
+	/**
+	 * Stops profiling this game engine's frames and removes the profiler service.
+	 * When not profiling, the game engine does not read the clock any more than it otherwise would.
+	 */
+	public void DisableProfiling()
+	{
+		if(Profiler == null)
+			return;
+		
+		RemoveService(FrameProfiler.class);
+		Profiler = null;
+		
+		return;
+	}
+	
+	/**
+	 * Obtains the frame profiler.
+	 * @return Returns the frame profiler or null if this game engine is not profiling.
+	 */
+	public FrameProfiler Profiler()
+	{return Profiler;}
+	
+	/**
+	 * Determines if this game engine is headless.
+	 * @return Returns true if this game engine has no window and false otherwise.
+	 */
+	public boolean Headless()
+	{return Window == null;}
+	
+	/**
+	 * Determines how long the main game loop ran for in real time.
+	 * This value is only available after the main game loop finishes and includes paused time.
+	 * @return Returns the real time in nanoseconds the main game loop ran for or 0 if it has not yet finished.
+	 */
+	public long RunTime()
+	{return RunTime;}
+	
+	/**
+	 * Determines the average number of update frames performed per second of real time.
+	 * This is most meaningful for headless game engines, which update as fast as they can.
+	 * @return Returns the average number of update frames per second of real time or 0 if the main game loop has not yet finished.
+	 */
+	public double TicksPerSecond()
+	{return RunTime == 0L ? 0.0 : Frame / (RunTime / 1000000000.0);}
+	
+	/**
+	 * Sets whether this game engine updates parallel safe components in parallel.
+	 * When enabled, components which are not parallel safe are updated first and in order on the update thread.
+	 * Parallel safe components are then updated over the common fork join pool in waves determined by their dependencies, with each wave finishing before the next begins.
+	 * Every component finishes updating before {@code LateUpdate} is called.
+	 * Note that this changes the order in which components update relative to one another, since every parallel safe component now updates after every component that is not.
+	 * @param enabled If true, parallel updates are enabled. They are disabled by default.
+	 * @throws IllegalStateException Thrown if this is called while the game engine is updating its components.
+	 */
+	public void SetParallelUpdates(boolean enabled)
+	{
+		if(Iterating)
+			throw new IllegalStateException();
+		
+		if(ParallelUpdates == enabled)
+			return;
+		
+		ParallelUpdates = enabled;
+		RegistriesDirty = true;
+		
+		return;
+	}
+	
+	/**
+	 * Determines if this game engine updates parallel safe components in parallel.
+	 * @return Returns true if parallel updates are enabled and false otherwise.
+	 */
+	public boolean ParallelUpdates()
+	{return ParallelUpdates;}
+	
+	/**
+	 * Determines if this game engine updates with a fixed time step.
+	 * @return Returns true if every update is given the same time delta and false if updates are given the variable time elapsed between them.
+	 */
+	public boolean FixedTimestep()
+	{return FixedTimestep;}
+	
+	/**
+	 * Determines if this game engine draws on a separate render thread.
+	 * @return Returns true if drawing is pipelined onto a render thread and false if it happens on the update thread.
+	 */
+	public boolean Pipelined()
+	{return Renderer != null;}
+	
+	/**
+	 * Determines the number of frames the render thread has drawn.
+	 * When pipelined, this can fall behind {@code Frame()} since the render thread drops stale snapshots.
+	 * @return Returns the number of frames drawn by the render thread or {@code Frame()} if this engine is not pipelined.
+	 */
+	public int RenderedFrames()
+	{return Renderer == null ? Frame : Renderer.RenderedFrames();}
+	
+	/**
+	 * Determines the interpolation factor between the last simulated state and the next one.
+	 * This is the same value passed to {@code IDrawable.Draw(double)} and is always 0 with a variable time step.
+	 * @return Returns how far into the next fixed update step the game engine currently is as a value in [0,1).
+	 */
+	public double Interpolation()
+	{return FixedTimestep ? Accumulator / (double)FixedStepNanos : 0.0;}
+	
 	/**
 	 * Obtains the game engine.
 	 * There should only ever be one game engine running, and this is it.
@@ -710,14 +1463,98 @@ public abstract class GameEngine implements Runnable
 	
 	/**
 	 * The game window.
+	 * This is null when the game engine is headless.
 	 */
 	private final AbsoluteFrame Window;
 	
+	/**
+	 * The render thread driver.
+	 * This is null when drawing is not pipelined.
+	 */
+	private final ActiveRenderer Renderer;
+	
 	/**
 	 * The collection of game components in this engine.
 	 */
 	private final LinkedList<IUpdatable> GameComponents;
 	
+	/**
+	 * The updatable components in component order.
+	 * This is rebuilt from {@code GameComponents} whenever it changes so that the per frame loops need neither allocate nor type check.
+	 * Only the first {@code UpdatableCount} entries are meaningful, and of those, null entries were removed mid iteration.
+	 */
+	private IUpdatable[] Updatables;
+	
+	/**
+	 * The number of meaningful entries in {@code Updatables}.
+	 */
+	private int UpdatableCount;
+	
+	/**
+	 * The drawable components in component order.
+	 * This is rebuilt from {@code GameComponents} whenever it changes so that the per frame loops need neither allocate nor type check.
+	 * Only the first {@code DrawableCount} entries are meaningful, and of those, null entries were removed mid iteration.
+	 */
+	private IDrawable[] Drawables;
+	
+	/**
+	 * The number of meaningful entries in {@code Drawables}.
+	 */
+	private int DrawableCount;
+	
+	/**
+	 * If true, then {@code Updatables} and {@code Drawables} are out of date and must be rebuilt before their next use.
+	 */
+	private boolean RegistriesDirty;
+	
+	/**
+	 * If true, then we are in the middle of iterating over {@code Updatables} or {@code Drawables}.
+	 */
+	private boolean Iterating;
+	
+	/**
+	 * If true, then parallel safe components are updated in parallel.
+	 */
+	private boolean ParallelUpdates;
+	
+	/**
+	 * The updatable components that are not parallel safe in component order.
+	 * This is only maintained when {@code ParallelUpdates} is true.
+	 */
+	private IUpdatable[] SerialUpdatables;
+	
+	/**
+	 * The number of meaningful entries in {@code SerialUpdatables}.
+	 */
+	private int SerialCount;
+	
+	/**
+	 * The parallel safe components grouped by update wave and in component order within each wave.
+	 * This is only maintained when {@code ParallelUpdates} is true.
+	 */
+	private IUpdatable[] ParallelUpdatables;
+	
+	/**
+	 * The number of meaningful entries in {@code ParallelUpdatables}.
+	 */
+	private int ParallelCount;
+	
+	/**
+	 * The (exclusive) end index in {@code ParallelUpdatables} of each update wave.
+	 */
+	private int[] WaveEnds;
+	
+	/**
+	 * The number of update waves.
+	 */
+	private int WaveCount;
+	
+	/**
+	 * The frame profiler.
+	 * This is null when we are not profiling.
+	 */
+	private FrameProfiler Profiler;
+	
 	/**
 	 * The services available to the game engine.
 	 */
@@ -777,26 +1614,136 @@ public abstract class GameEngine implements Runnable
 	
 	/**
 	 * The number of millisecond ticks the game engine is behind where it should be on its update schedule.
+	 * With a fixed time step, this is instead the total simulation time forfeited by hitting the catch up limit.
 	 */
 	private long TickDeficit;
 	
 	/**
 	 * The time stamp for when the game engine last started updating.
+	 * This is measured in milliseconds with a variable time step and in nanoseconds with a fixed time step.
 	 */
 	private long TimeStamp;
 	
+	/**
+	 * If true, then this engine updates with a fixed time step.
+	 */
+	private final boolean FixedTimestep;
+	
+	/**
+	 * The length of a fixed update step in nanoseconds.
+	 */
+	private final long FixedStepNanos;
+	
+	/**
+	 * The real time in nanoseconds banked but not yet spent on fixed update steps.
+	 */
+	private long Accumulator;
+	
+	/**
+	 * The number of update frames a headless game engine performs before quitting on its own.
+	 * If this is nonpositive, there is no limit.
+	 */
+	private final long TickLimit;
+	
+	/**
+	 * The real time in nanoseconds the main game loop ran for.
+	 * This is 0 until the main game loop finishes.
+	 */
+	private long RunTime;
+	
 	/**
 	 * The total time this game engine has been running.
 	 * This value is the sum of the time each update cycle took to complete.
 	 */
 	private long ElapsedTime;
 	
+	/**
+	 * The number of recent frames the frame profiler keeps samples of.
+	 */
+	private static final int PROFILER_WINDOW = 240;
+	
+	/**
+	 * The largest number of parallel safe components we will update on a single thread before splitting the work further.
+	 */
+	private static final int PARALLEL_UPDATE_GRAIN = 64;
+	
+	/**
+	 * Marks a parallel safe component whose wave has not yet been determined.
+	 */
+	private static final int UNSCHEDULED = -2;
+	
+	/**
+	 * Marks a parallel safe component whose wave is in the middle of being determined.
+	 */
+	private static final int SCHEDULING = -3;
+	
 	/**
 	 * The one true game object.
 	 * There should only ever be one game engine running, so we keep it around as a singleton for anyone to reference.
 	 */
 	private static GameEngine Game;
 	
+	/**
+	 * Updates a range of parallel safe components by recursively splitting it over a fork join pool.
+	 * @author Dawn Nye
+	 */
+	private static class ParallelUpdate extends RecursiveAction
+	{
+		/**
+		 * Creates a new parallel update task.
+		 * @param components The components to update.
+		 * @param start The first index to update.
+		 * @param end The (exclusive) last index to update.
+		 * @param delta The amount of time in milliseconds to advance each component by.
+		 */
+		public ParallelUpdate(IUpdatable[] components, int start, int end, long delta)
+		{
+			Components = components;
+			Start = start;
+			End = end;
+			Delta = delta;
+			
+			return;
+		}
+		
+		@Override protected void compute()
+		{
+			if(End - Start <= PARALLEL_UPDATE_GRAIN)
+			{
+				for(int i = Start;i < End;i++)
+					if(Components[i] != null)
+						Components[i].Update(Delta);
+				
+				return;
+			}
+			
+			int mid = (Start + End) >>> 1;
+			invokeAll(new ParallelUpdate(Components,Start,mid,Delta),new ParallelUpdate(Components,mid,End,Delta));
+			
+			return;
+		}
+		
+		/**
+		 * The components to update.
+		 */
+		private final IUpdatable[] Components;
+		
+		/**
+		 * The first index to update.
+		 */
+		private final int Start;
+		
+		/**
+		 * The (exclusive) last index to update.
+		 */
+		private final int End;
+		
+		/**
+		 * The amount of time in milliseconds to advance each component by.
+		 */
+		private final long Delta;
+	}
+	
 	/**
 	 * Determines when an exit condition has been met.
 	 * @author Dawn Nye
@@ -27,6 +27,12 @@ public final class GlobalConstants
 	 */
 	public static final long INPUT_GRACE_TIME = 105;
 	
+	/**
+	 * The maximum number of fixed time step updates a game engine may perform in a single frame to catch up when it falls behind.
+	 * Any more time than this is forfeited.
+	 */
+	public static final int MAX_FIXED_STEP_CATCH_UP = 5;
+	
 	/**
 	 * The epsilon used to account for rounding errors in double calculations.
 	 */
@@ -1,5 +1,7 @@
 package gamecore;
 
+import gamecore.gui.RenderSnapshot.RenderCommand;
+
 /**
  * Represents a drawable component of a game.
  * @author Dawn Nye
@@ -10,4 +12,28 @@ public interface IDrawable extends IUpdatable
 	 * Initiates a draw call of this component in Java.
 	 */
 	public void Draw();
+	
+	/**
+	 * Initiates a draw call of this component in Java.
+	 * When the game engine runs with a fixed time step, rendering generally falls somewhere in between two simulation steps.
+	 * Components that wish to render smoothly may use {@code alpha} to blend their previous and current simulated states.
+	 * By default, this just calls {@code Draw()}.
+	 * @param alpha How far in time we are from the last simulated state to the next one as a value in [0,1). This is always 0 with a variable time step.
+	 */
+	public default void Draw(double alpha)
+	{
+		Draw();
+		return;
+	}
+	
+	/**
+	 * Captures how this component currently looks as an immutable draw command.
+	 * This is called on the update thread when the game engine is pipelined, and the command it returns is later executed on the render thread.
+	 * As such, the returned command must not refer to any state that may change after this call returns.
+	 * By default, this returns null, and the component is not drawn when the game engine is pipelined.
+	 * @param alpha How far in time we are from the last simulated state to the next one as a value in [0,1). This is always 0 with a variable time step.
+	 * @return Returns a command which draws this component as it is right now or null if there is nothing to draw.
+	 */
+	public default RenderCommand Snapshot(double alpha)
+	{return null;}
 }
@@ -34,6 +34,26 @@ public interface IUpdatable
 	 */
 	public boolean Disposed();
 	
+	/**
+	 * Determines if this game component may be updated concurrently with other game components.
+	 * When the game engine updates in parallel, parallel safe components are updated on worker threads after every other component has been updated.
+	 * A parallel safe component must not touch state shared with any component other than its declared dependencies during {@code Update}, and it must not add or remove game components.
+	 * This value is read whenever the game engine's components change.
+	 * @return Returns true if this component may be updated in parallel and false otherwise. By default, this is false.
+	 */
+	public default boolean ParallelSafe()
+	{return false;}
+	
+	/**
+	 * Obtains the game components that must finish updating before this one begins to update.
+	 * This only constrains the order of parallel safe components, since all other components are always updated before them.
+	 * Dependencies which are not part of the game engine are ignored.
+	 * This value is read whenever the game engine's components change.
+	 * @return Returns the dependencies of this component or null if there are none. By default, this is null.
+	 */
+	public default Iterable<? extends IUpdatable> UpdateDependencies()
+	{return null;}
+	
 	/**
 	 * Called when the component is added to the game engine.
 	 * This will occur before initialization when added for the first time.
@@ -0,0 +1,331 @@
+package gamecore.LINQ;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A fluent query over a sequence of {@code double} values which never boxes them.
+ * Each stage of the query pushes values straight into the next, so evaluating a query allocates nothing per element.
+ * <br><br>
+ * Queries are lazy and immutable, and they can be evaluated any number of times.
+ * Each evaluation reflects the source's contents at that time.
+ * @author Dawn Nye
+ */
+public class DoubleQuery extends PrimitiveQuery<DoubleQuery,DoubleQuery.DoubleSink,double[]>
+{
+	/**
+	 * Creates a new query whose output is the values of {@code source}.
+	 * @param source The source array. The query views the array rather than copying it.
+	 * @throws NullPointerException Thrown if {@code source} is null.
+	 */
+	public DoubleQuery(double[] source)
+	{
+		this(source,0,source.length);
+		return;
+	}
+	
+	/**
+	 * Creates a new query whose output is the values of {@code source} in the index range [{@code start},{@code end}).
+	 * @param source The source array. The query views the array rather than copying it.
+	 * @param start The first index to output.
+	 * @param end One past the last index to output.
+	 * @throws NullPointerException Thrown if {@code source} is null.
+	 * @throws IndexOutOfBoundsException Thrown if the range does not lie within {@code source}.
+	 */
+	public DoubleQuery(double[] source, int start, int end)
+	{
+		super(Span(source,start,end));
+		return;
+	}
+	
+	/**
+	 * Creates a new query whose output is the values selected from each element of {@code source}.
+	 * @param <T> The source type.
+	 * @param source The source sequence.
+	 * @param selector Selects a value from each element.
+	 * @throws NullPointerException Thrown if {@code source} or {@code selector} is null.
+	 */
+	public <T> DoubleQuery(Iterable<? extends T> source, DoubleSelector<? super T> selector)
+	{
+		super(Selection(source,selector));
+		return;
+	}
+	
+	/**
+	 * Creates a new query.
+	 * @param feed The source of the query's output.
+	 */
+	protected DoubleQuery(Feed<DoubleSink> feed)
+	{
+		super(feed);
+		return;
+	}
+	
+	/**
+	 * Creates a feed of the values of {@code source} in the index range [{@code start},{@code end}).
+	 * @throws NullPointerException Thrown if {@code source} is null.
+	 * @throws IndexOutOfBoundsException Thrown if the range does not lie within {@code source}.
+	 */
+	protected static Feed<DoubleSink> Span(double[] source, int start, int end)
+	{
+		if(start < 0 || end > source.length || start > end)
+			throw new IndexOutOfBoundsException();
+		
+		return new Feed<DoubleSink>()
+		{
+			public void Push(DoubleSink sink)
+			{
+				for(int i = start;i < end;i++)
+					sink.Accept(source[i]);
+				
+				return;
+			}
+			
+			public int Size()
+			{return end - start;}
+		};
+	}
+	
+	/**
+	 * Creates a feed of the values selected from each element of {@code source}.
+	 * @throws NullPointerException Thrown if {@code source} or {@code selector} is null.
+	 */
+	protected static <T> Feed<DoubleSink> Selection(Iterable<? extends T> source, DoubleSelector<? super T> selector)
+	{
+		if(source == null || selector == null)
+			throw new NullPointerException();
+		
+		return new Feed<DoubleSink>()
+		{
+			public void Push(DoubleSink sink)
+			{
+				for(T t : source)
+					sink.Accept(selector.Evaluate(t));
+				
+				return;
+			}
+			
+			public int Size()
+			{return KnownSize(source);}
+		};
+	}
+	
+	protected DoubleQuery Create(Feed<DoubleSink> feed)
+	{return new DoubleQuery(feed);}
+	
+	/**
+	 * Filters this query's output to only those values which satisfy {@code predicate}.
+	 * @param predicate The predicate which decides whether to include or exclude values.
+	 * @return Returns a new query which outputs only values which satisfy {@code predicate}.
+	 * @throws NullPointerException Thrown if {@code predicate} is null.
+	 */
+	public DoubleQuery Where(DoublePredicate predicate)
+	{
+		if(predicate == null)
+			throw new NullPointerException();
+		
+		return Append(sink -> v ->
+		{
+			if(predicate.Evaluate(v))
+				sink.Accept(v);
+		},false);
+	}
+	
+	/**
+	 * Transforms this query's output.
+	 * @param transformation The transformation to apply to each value.
+	 * @return Returns a new query which outputs the transformed values.
+	 * @throws NullPointerException Thrown if {@code transformation} is null.
+	 */
+	public DoubleQuery Select(DoubleTransformation transformation)
+	{
+		if(transformation == null)
+			throw new NullPointerException();
+		
+		return Append(sink -> v -> sink.Accept(transformation.Evaluate(v)),true);
+	}
+	
+	/**
+	 * Sums the values output by this query.
+	 * @return Returns the sum of the values or 0 if there are none.
+	 */
+	public double Sum()
+	{return Accumulate().Sum;}
+	
+	/**
+	 * Averages the values output by this query.
+	 * @return Returns the mean of the values.
+	 * @throws NoSuchElementException Thrown if there are no values.
+	 */
+	public double Average()
+	{
+		Accumulator acc = NonEmpty(Accumulate());
+		return acc.Sum / acc.Count;
+	}
+	
+	/**
+	 * Finds the smallest value output by this query.
+	 * @return Returns the smallest value.
+	 * @throws NoSuchElementException Thrown if there are no values.
+	 */
+	public double Min()
+	{return NonEmpty(Accumulate()).Min;}
+	
+	/**
+	 * Finds the largest value output by this query.
+	 * @return Returns the largest value.
+	 * @throws NoSuchElementException Thrown if there are no values.
+	 */
+	public double Max()
+	{return NonEmpty(Accumulate()).Max;}
+	
+	/**
+	 * Counts the values output by this query into equally wide buckets spanning [{@code min},{@code max}).
+	 * Values outside of that range are not counted.
+	 * @param min The (inclusive) lower bound of the first bucket.
+	 * @param max The (exclusive) upper bound of the last bucket.
+	 * @param buckets The number of buckets.
+	 * @return Returns the number of values in each bucket.
+	 * @throws IllegalArgumentException Thrown if {@code min} is not less than {@code max}, the width of [{@code min},{@code max}) is not finite, or {@code buckets} is nonpositive.
+	 */
+	public int[] Histogram(double min, double max, int buckets)
+	{
+		if(!(min < max) || !Double.isFinite(max - min) || buckets <= 0)
+			throw new IllegalArgumentException();
+		
+		int[] ret = new int[buckets];
+		double scale = buckets / (max - min);
+		
+		// Rounding can push values just below max into a nonexistent bucket, so we clamp
+		Feed.Push(v ->
+		{
+			if(v >= min && v < max)
+				ret[Math.min(buckets - 1,(int)((v - min) * scale))]++;
+		});
+		
+		return ret;
+	}
+	
+	protected Accumulator Accumulate()
+	{
+		Accumulator acc = new Accumulator();
+		Feed.Push(acc);
+		
+		return acc;
+	}
+	
+	protected Collector Collect(int capacity)
+	{
+		Collector c = new Collector(capacity);
+		Feed.Push(c);
+		
+		return c;
+	}
+	
+	/**
+	 * Tracks the count, sum, minimum, and maximum of the values it receives.
+	 * @author Dawn Nye
+	 */
+	protected static class Accumulator extends Tally implements DoubleSink
+	{
+		public void Accept(double v)
+		{
+			if(Count++ == 0)
+				Min = Max = v;
+			else if(v < Min)
+				Min = v;
+			else if(v > Max)
+				Max = v;
+			
+			Sum += v;
+			return;
+		}
+		
+		/**
+		 * The sum of the values received.
+		 */
+		public double Sum = 0.0;
+		
+		/**
+		 * The smallest value received.
+		 */
+		public double Min;
+		
+		/**
+		 * The largest value received.
+		 */
+		public double Max;
+	}
+	
+	/**
+	 * Collects the values it receives into an array.
+	 * @author Dawn Nye
+	 */
+	protected static class Collector extends Buffer<double[]> implements DoubleSink
+	{
+		/**
+		 * Creates a new collector.
+		 * @param capacity The initial capacity.
+		 */
+		public Collector(int capacity)
+		{
+			super(new double[capacity]);
+			return;
+		}
+		
+		public void Accept(double v)
+		{
+			Reserve();
+			Values[Count++] = v;
+			
+			return;
+		}
+	}
+	
+	/**
+	 * Receives the values of a query.
+	 * @author Dawn Nye
+	 */
+	@FunctionalInterface protected interface DoubleSink
+	{
+		/**
+		 * Receives a value.
+		 */
+		public abstract void Accept(double v);
+	}
+	
+	/**
+	 * Determines the value of a predicate on an {@code double}.
+	 * @author Dawn Nye
+	 */
+	@FunctionalInterface public interface DoublePredicate
+	{
+		/**
+		 * Determines the value of the predicate.
+		 */
+		public abstract boolean Evaluate(double input);
+	}
+	
+	/**
+	 * Transforms an {@code double} into another.
+	 * @author Dawn Nye
+	 */
+	@FunctionalInterface public interface DoubleTransformation
+	{
+		/**
+		 * Transforms {@code input}.
+		 */
+		public abstract double Evaluate(double input);
+	}
+	
+	/**
+	 * Selects an {@code double} from an object.
+	 * @author Dawn Nye
+	 */
+	@FunctionalInterface public interface DoubleSelector<T>
+	{
+		/**
+		 * Selects a value from {@code input}.
+		 */
+		public abstract double Evaluate(T input);
+	}
+}
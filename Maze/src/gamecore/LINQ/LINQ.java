@@ -1,10 +1,20 @@
 package gamecore.LINQ;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
 
+import gamecore.datastructures.ArrayList;
+import gamecore.datastructures.Dictionary;
+import gamecore.datastructures.ICollection;
+import gamecore.datastructures.OpenHashTable;
+import gamecore.datastructures.tuples.KeyValuePair;
 import gamecore.datastructures.tuples.Pair;
 
 /**
@@ -77,7 +87,7 @@ public final class LINQ
 				{
 					public boolean hasNext()
 					{return obj_unused;}
-
+					
 					public T next()
 					{
 						if(!hasNext())
@@ -120,7 +130,7 @@ public final class LINQ
 				{
 					public boolean hasNext()
 					{return IterA.hasNext() || IterB.hasNext();} // The B sequence could be empty, so we have to check both
-
+					
 					public T next()
 					{
 						if(!hasNext())
@@ -173,6 +183,13 @@ public final class LINQ
 		if(source == null)
 			throw new NullPointerException();
 		
+		// Sized sources can tell us their length without being iterated
+		if(source instanceof Collection)
+			return ((Collection<?>)source).size();
+		
+		if(source instanceof ICollection)
+			return ((ICollection<?>)source).Count();
+		
 		Iterator Iter = source.iterator();
 		int ret = 0;
 		
@@ -188,6 +205,7 @@ public final class LINQ
 	/**
 	 * Filters an iterable object so that each element iterated appears exactly once.
 	 * The order of the new sequence will be such that if a and b appear in the new sequence, then a first occurs in {@code source} before b first occurs.
+	 * Elements are compared with {@code equals} and hashed with {@code hashCode}, so this runs in linear time.
 	 * <br><br>
 	 * For example, given the sequence {1,2,3,4,3,3,1}, we produce the sequence {1,2,3,4}.
 	 * @param <T> The type of object to iterate.
@@ -196,6 +214,21 @@ public final class LINQ
 	 * @throws NullPointerException Thrown if {@code source} is null.
 	 */
 	public static <T> Iterable<T> Distinct(Iterable<? extends T> source)
+	{return Distinct(source,null,null);}
+	
+	/**
+	 * Filters an iterable object so that each element iterated appears exactly once.
+	 * The order of the new sequence will be such that if a and b appear in the new sequence, then a first occurs in {@code source} before b first occurs.
+	 * <br><br>
+	 * For example, given the sequence {1,2,3,4,3,3,1}, we produce the sequence {1,2,3,4}.
+	 * @param <T> The type of object to iterate.
+	 * @param source The iterable object to filter.
+	 * @param equality Determines if two elements are the same. If this is null, {@code equals} is used. It is never given null elements, which are only ever equal to each other.
+	 * @param hash Hashes elements consistently with {@code equality}. If this is null, {@code hashCode} is used. It is never given null elements.
+	 * @return Returns a new iterable object which iterates each value exactly once without duplicates.
+	 * @throws NullPointerException Thrown if {@code source} is null.
+	 */
+	public static <T> Iterable<T> Distinct(Iterable<? extends T> source, EqualityPredicate<? super T> equality, HashFunction<? super T> hash)
 	{
 		if(source == null)
 			throw new NullPointerException();
@@ -204,41 +237,12 @@ public final class LINQ
 		{
 			public Iterator<T> iterator()
 			{
-				return new Iterator<T>()
+				return new FilteredIterator<T>(source.iterator())
 				{
-					public boolean hasNext()
-					{
-						if(Next != null)
-							return true;
-						
-						while(Iter.hasNext())
-						{
-							T temp = Iter.next();
-							Index++;
-							
-							if(IndexOf(source,temp) == Index) // If the current index is the first index of the element, then it's distinct (but subsequent versions of it are not)
-							{
-								Next = temp;
-								return true;
-							}
-						}
-						
-						return false;
-					}
+					protected boolean Accept(T t)
+					{return Seen.Add(t);}
 					
-					public T next()
-					{
-						if(!hasNext())
-							throw new NoSuchElementException();
-						
-						T ret = Next;
-						Next = null;
-						return ret;
-					}
-					
-					protected int Index = -1;
-					protected T Next = null;
-					protected Iterator<? extends T> Iter = source.iterator();
+					protected HashedSet<T> Seen = new HashedSet<T>(equality,hash);
 				};
 			}
 		};
@@ -261,6 +265,9 @@ public final class LINQ
 		if(index < 0)
 			throw new IndexOutOfBoundsException();
 		
+		if(source instanceof List && source instanceof RandomAccess)
+			return ((List<T>)source).get(index);
+		
 		Iterator<? extends T> Iter = source.iterator();
 		int i = -1;
 		
@@ -326,11 +333,44 @@ public final class LINQ
 	 * @throws NullPointerException Thrown if {@code source} or {@code except} is null.
 	 */
 	public static <T> Iterable<T> Except(Iterable<? extends T> source, Iterable<? extends T> except)
+	{return Except(source,except,null,null);}
+	
+	/**
+	 * Computes the set difference of {@code source} minus {@code except}.
+	 * The order of the output elements is the same as the order they appear in {@code source} and are distinct.
+	 * {@code except} is read in its entirety into a hash set each time the result is iterated, after which {@code source} is streamed lazily.
+	 * <br><br>
+	 * For example, given the sequences {1,2,3,3} and {2,4}, we produce the sequence {1,3}.
+	 * @param <T> The iterable type.
+	 * @param source The source set.
+	 * @param except The set to exclude.
+	 * @param equality Determines if two elements are the same. If this is null, {@code equals} is used. It is never given null elements, which are only ever equal to each other.
+	 * @param hash Hashes elements consistently with {@code equality}. If this is null, {@code hashCode} is used. It is never given null elements.
+	 * @return Returns a new iterable object which contains all elements of {@code source} not in {@code except}.
+	 * @throws NullPointerException Thrown if {@code source} or {@code except} is null.
+	 */
+	public static <T> Iterable<T> Except(Iterable<? extends T> source, Iterable<? extends T> except, EqualityPredicate<? super T> equality, HashFunction<? super T> hash)
 	{
 		if(source == null || except == null)
 			throw new NullPointerException();
 		
-		return Distinct(Where(source,t -> !Contains(except,t)));
+		return new Iterable<T>()
+		{
+			public Iterator<T> iterator()
+			{
+				HashedSet<T> seen = new HashedSet<T>(equality,hash);
+				
+				for(T t : except)
+					seen.Add(t);
+				
+				// Adding each yielded element to the excluded set also rules out its duplicates
+				return new FilteredIterator<T>(source.iterator())
+				{
+					protected boolean Accept(T t)
+					{return seen.Add(t);}
+				};
+			}
+		};
 	}
 	
 	/**
@@ -371,6 +411,54 @@ public final class LINQ
 		};
 	}
 	
+	/**
+	 * Creates a fluent query over {@code source}.
+	 * Its {@code Where} and {@code Select} stages are fused into a single loop, and its {@code Count}, {@code ElementAt}, {@code Reverse}, and {@code ToArray} avoid iterating sized or random access sources where they can.
+	 * @param <T> The iterable type.
+	 * @param source The source sequence.
+	 * @return Returns a new query whose output is the elements of {@code source}.
+	 * @throws NullPointerException Thrown if {@code source} is null.
+	 */
+	public static <T> Query<T> From(Iterable<? extends T> source)
+	{return new Query<T>(source);}
+	
+	/**
+	 * Creates a fluent query over {@code source}.
+	 * @param <T> The array type.
+	 * @param source The source array. The query views the array rather than copying it.
+	 * @return Returns a new query whose output is the elements of {@code source}.
+	 * @throws NullPointerException Thrown if {@code source} is null.
+	 */
+	public static <T> Query<T> From(T[] source)
+	{return new Query<T>(source);}
+	
+	/**
+	 * Creates a fluent query over {@code source} which never boxes its values.
+	 * @param source The source array. The query views the array rather than copying it.
+	 * @return Returns a new query whose output is the values of {@code source}.
+	 * @throws NullPointerException Thrown if {@code source} is null.
+	 */
+	public static IntQuery From(int[] source)
+	{return new IntQuery(source);}
+	
+	/**
+	 * Creates a fluent query over {@code source} which never boxes its values.
+	 * @param source The source array. The query views the array rather than copying it.
+	 * @return Returns a new query whose output is the values of {@code source}.
+	 * @throws NullPointerException Thrown if {@code source} is null.
+	 */
+	public static LongQuery From(long[] source)
+	{return new LongQuery(source);}
+	
+	/**
+	 * Creates a fluent query over {@code source} which never boxes its values.
+	 * @param source The source array. The query views the array rather than copying it.
+	 * @return Returns a new query whose output is the values of {@code source}.
+	 * @throws NullPointerException Thrown if {@code source} is null.
+	 */
+	public static DoubleQuery From(double[] source)
+	{return new DoubleQuery(source);}
+	
 	/**
 	 * Finds the first index of {@code target} in {@code source}.
 	 * @param <T> The iterable type.
@@ -441,11 +529,45 @@ public final class LINQ
 	 * @throws NullPointerException Thrown if {@code source_a} or {@code source_b} is null.
 	 */
 	public static <T> Iterable<T> Intersect(Iterable<? extends T> source_a, Iterable<? extends T> source_b)
+	{return Intersect(source_a,source_b,null,null);}
+	
+	/**
+	 * Computes the intersection of {@code source_a} and {@code source_b}.
+	 * The order of the output sequence is the same order that the elements appear in {@code source_a}
+	 * {@code source_b} is read in its entirety into a hash set each time the result is iterated, after which {@code source_a} is streamed lazily.
+	 * <br><br>
+	 * For example, given the sequences {1,2,3,4} and {2,5,4}, we produce the sequence {2,4}.
+	 * @param <T> The iterable type.
+	 * @param source_a The first set.
+	 * @param source_b The second set.
+	 * @param equality Determines if two elements are the same. If this is null, {@code equals} is used. It is never given null elements, which are only ever equal to each other.
+	 * @param hash Hashes elements consistently with {@code equality}. If this is null, {@code hashCode} is used. It is never given null elements.
+	 * @return Returns a new iterable object which contains all elements in both {@code source_a} and {@code source_b}.
+	 * @throws NullPointerException Thrown if {@code source_a} or {@code source_b} is null.
+	 */
+	public static <T> Iterable<T> Intersect(Iterable<? extends T> source_a, Iterable<? extends T> source_b, EqualityPredicate<? super T> equality, HashFunction<? super T> hash)
 	{
 		if(source_a == null || source_b == null)
 			throw new NullPointerException();
 		
-		return Distinct(Where(source_a,t -> Contains(source_b,t)));
+		return new Iterable<T>()
+		{
+			public Iterator<T> iterator()
+			{
+				HashedSet<T> b = new HashedSet<T>(equality,hash);
+				
+				for(T t : source_b)
+					b.Add(t);
+				
+				return new FilteredIterator<T>(source_a.iterator())
+				{
+					protected boolean Accept(T t)
+					{return b.Contains(t) && Yielded.Add(t);}
+					
+					protected HashedSet<T> Yielded = new HashedSet<T>(equality,hash);
+				};
+			}
+		};
 	}
 	
 	/**
@@ -603,6 +725,17 @@ public final class LINQ
 		};
 	}
 	
+	/**
+	 * Creates an ordered query over {@code source} which is evaluated in parallel.
+	 * Queries over array backed sources, such as {@code ArrayList}, grid items, or arrays wrapped by {@code ToIterable}, split evenly across cores.
+	 * @param <T> The iterable type.
+	 * @param source The source sequence.
+	 * @return Returns a new parallel query whose output is the elements of {@code source}.
+	 * @throws NullPointerException Thrown if {@code source} is null.
+	 */
+	public static <T> ParallelQuery<T> Parallel(Iterable<? extends T> source)
+	{return new ParallelQuery<T>(source);}
+	
 	/**
 	 * Returns a new iterable object with {@code obj} prepended to the beginning of {@code source}.
 	 * <br><br>
@@ -626,7 +759,7 @@ public final class LINQ
 				{
 					public boolean hasNext()
 					{return obj_unused || iter.hasNext();} // The sequence could be empty, so we have to check both
-
+					
 					public T next()
 					{
 						if(!hasNext())
@@ -961,6 +1094,9 @@ public final class LINQ
 					protected int index = 0;
 				};
 			}
+			
+			public Spliterator<T> spliterator()
+			{return Spliterators.spliterator(src,Spliterator.ORDERED);}
 		};
 	}
 	
@@ -976,11 +1112,27 @@ public final class LINQ
 	 * @throws NullPointerException Thrown if {@code source_a} or {@code source_b} is null.
 	 */
 	public static <T> Iterable<T> Union(Iterable<? extends T> source_a, Iterable<? extends T> source_b)
+	{return Union(source_a,source_b,null,null);}
+	
+	/**
+	 * Computes the union of {@code source_a} and {@code source_b}.
+	 * The order of the output sequence is all distinct elements of {@code source_a} in the order they appear and then all distinct elements of {@code source_b} in the order they appear that are not in {@code source_a}.
+	 * <br><br>
+	 * For example, given the sequences {1,2,3,3} and {3,4,5}, we produce the sequence {1,2,3,4,5}.
+	 * @param <T> The iterable type.
+	 * @param source_a The first set.
+	 * @param source_b The second set.
+	 * @param equality Determines if two elements are the same. If this is null, {@code equals} is used. It is never given null elements, which are only ever equal to each other.
+	 * @param hash Hashes elements consistently with {@code equality}. If this is null, {@code hashCode} is used. It is never given null elements.
+	 * @return Returns a new iterable object which contains all elements in either {@code source_a} or {@code source_b}.
+	 * @throws NullPointerException Thrown if {@code source_a} or {@code source_b} is null.
+	 */
+	public static <T> Iterable<T> Union(Iterable<? extends T> source_a, Iterable<? extends T> source_b, EqualityPredicate<? super T> equality, HashFunction<? super T> hash)
 	{
 		if(source_a == null || source_b == null)
 			throw new NullPointerException();
 		
-		return Distinct(Concatenate(source_a,source_b));
+		return Distinct(Concatenate(source_a,source_b),equality,hash);
 	}
 	
 	/**
@@ -1086,6 +1238,349 @@ public final class LINQ
 		};
 	}
 	
+	/**
+	 * Groups the elements of a sequence by key.
+	 * The grouping is done in a single pass over {@code source} with a hash table, so it takes linear time.
+	 * This is evaluated lazily, so the grouping is redone each time the output is iterated over.
+	 * <br><br>
+	 * For example, given the Integer sequence {1,2,3,4,5} and the key x % 2, we produce the sequence {(1,{1,3,5}),(0,{2,4})}.
+	 * @param <T> The iterated type.
+	 * @param <K> The key type.
+	 * @param source The sequence to group.
+	 * @param key Obtains the key of each element. Keys must not be null.
+	 * @return Returns a sequence of key-group pairs in the order each key first appears in {@code source}. Each group lists its elements in the order they appear in {@code source}.
+	 * @throws NullPointerException Thrown if {@code source} or {@code key} is null or, when iterated over, if any key is null.
+	 */
+	public static <T,K> Iterable<KeyValuePair<K,ArrayList<T>>> GroupBy(Iterable<? extends T> source, SingleInputTransformation<T,K> key)
+	{
+		if(source == null || key == null)
+			throw new NullPointerException();
+		
+		return new Iterable<KeyValuePair<K,ArrayList<T>>>()
+		{
+			public Iterator<KeyValuePair<K,ArrayList<T>>> iterator()
+			{
+				Dictionary<K,ArrayList<T>> groups = new Dictionary<K,ArrayList<T>>();
+				ArrayList<KeyValuePair<K,ArrayList<T>>> ret = new ArrayList<KeyValuePair<K,ArrayList<T>>>();
+				
+				for(T t : source)
+					groups.ComputeIfAbsent(key.Evaluate(t),k ->
+					{
+						ArrayList<T> group = new ArrayList<T>();
+						ret.add(new KeyValuePair<K,ArrayList<T>>(k,group));
+						
+						return group;
+					}).add(t);
+				
+				return ret.iterator();
+			}
+		};
+	}
+	
+	/**
+	 * Collects the elements of a sequence into a dictionary by key.
+	 * @param <T> The iterated type.
+	 * @param <K> The key type.
+	 * @param source The sequence to collect.
+	 * @param key Obtains the key of each element. Keys must not be null.
+	 * @return Returns a new dictionary mapping each element's key to the element.
+	 * @throws NullPointerException Thrown if {@code source} or {@code key} is null or if any key is null.
+	 * @throws IllegalArgumentException Thrown if two elements have the same key.
+	 */
+	public static <T,K> Dictionary<K,T> ToDictionary(Iterable<? extends T> source, SingleInputTransformation<T,K> key)
+	{return ToDictionary(source,key,t -> t);}
+	
+	/**
+	 * Collects the elements of a sequence into a dictionary by key.
+	 * @param <T> The iterated type.
+	 * @param <K> The key type.
+	 * @param <V> The value type.
+	 * @param source The sequence to collect.
+	 * @param key Obtains the key of each element. Keys must not be null.
+	 * @param value Obtains the value of each element.
+	 * @return Returns a new dictionary mapping each element's key to its value.
+	 * @throws NullPointerException Thrown if {@code source}, {@code key}, or {@code value} is null or if any key is null.
+	 * @throws IllegalArgumentException Thrown if two elements have the same key.
+	 */
+	public static <T,K,V> Dictionary<K,V> ToDictionary(Iterable<? extends T> source, SingleInputTransformation<T,K> key, SingleInputTransformation<T,V> value)
+	{
+		if(source == null || key == null || value == null)
+			throw new NullPointerException();
+		
+		Dictionary<K,V> ret = new Dictionary<K,V>();
+		
+		for(T t : source)
+			if(!ret.Add(key.Evaluate(t),value.Evaluate(t)))
+				throw new IllegalArgumentException();
+		
+		return ret;
+	}
+	
+	/**
+	 * Joins two sequences together by matching keys.
+	 * Every element of {@code inner} is hashed by key once, and then each element of {@code outer} is matched against them in constant time, so the join takes time linear in the sizes of the sequences plus the number of matches.
+	 * Null keys match nothing, not even other null keys.
+	 * This is evaluated lazily, so {@code inner} is rehashed each time the output is iterated over.
+	 * <br><br>
+	 * For example, given the Integer sequences {1,2,3} and {3,4,5,6}, the keys x % 2 and y % 2, and the transformation a * b, we produce the sequence {3,5,8,12,9,15}.
+	 * @param <A> The outer sequence's iterated type.
+	 * @param <B> The inner sequence's iterated type.
+	 * @param <K> The key type.
+	 * @param <O> The output sequence's iterated type.
+	 * @param outer The outer sequence.
+	 * @param inner The inner sequence.
+	 * @param outer_key Obtains the key of each outer element.
+	 * @param inner_key Obtains the key of each inner element.
+	 * @param join Produces an output element from each matching pair of outer and inner elements.
+	 * @return Returns a new sequence containing the join of every matching pair. Pairs are ordered by their outer element first and their inner element second, each in the order of their source sequence.
+	 * @throws NullPointerException Thrown if any parameter is null.
+	 */
+	public static <A,B,K,O> Iterable<O> Join(Iterable<? extends A> outer, Iterable<? extends B> inner, SingleInputTransformation<A,K> outer_key, SingleInputTransformation<B,K> inner_key, SingleInputTransformation<Pair<A,B>,O> join)
+	{
+		if(outer == null || inner == null || outer_key == null || inner_key == null || join == null)
+			throw new NullPointerException();
+		
+		return new Iterable<O>()
+		{
+			public Iterator<O> iterator()
+			{
+				return new Iterator<O>()
+				{
+					public boolean hasNext()
+					{
+						while(Match == null || Index == Match.size())
+						{
+							if(!Iter.hasNext())
+								return false;
+							
+							Outer = Iter.next();
+							K k = outer_key.Evaluate(Outer);
+							
+							Match = k == null ? null : Lookup.GetOrDefault(k,null);
+							Index = 0;
+						}
+						
+						return true;
+					}
+					
+					public O next()
+					{
+						if(!hasNext())
+							throw new NoSuchElementException();
+						
+						return join.Evaluate(new Pair<A,B>(Outer,Match.get(Index++)));
+					}
+					
+					protected Dictionary<K,ArrayList<B>> Lookup = Lookup(inner,inner_key);
+					protected Iterator<? extends A> Iter = outer.iterator();
+					protected A Outer;
+					protected ArrayList<B> Match = null;
+					protected int Index = 0;
+				};
+			}
+		};
+	}
+	
+	/**
+	 * Joins each element of one sequence with every element of another that has a matching key.
+	 * Unlike {@code Join}, every element of {@code outer} produces exactly one output element, even if nothing matches it.
+	 * Every element of {@code inner} is hashed by key once, so the join takes linear time.
+	 * Null keys match nothing, not even other null keys.
+	 * This is evaluated lazily, so {@code inner} is rehashed each time the output is iterated over.
+	 * <br><br>
+	 * For example, given the Integer sequences {1,2,3} and {3,4,6}, the keys x % 2 and y % 2, and the transformation (a,{b...}) -> a + the number of bs, we produce the sequence {2,4,4}.
+	 * @param <A> The outer sequence's iterated type.
+	 * @param <B> The inner sequence's iterated type.
+	 * @param <K> The key type.
+	 * @param <O> The output sequence's iterated type.
+	 * @param outer The outer sequence.
+	 * @param inner The inner sequence.
+	 * @param outer_key Obtains the key of each outer element.
+	 * @param inner_key Obtains the key of each inner element.
+	 * @param join Produces an output element from each outer element and the (possibly empty) list of inner elements which match it, in the order they appear in {@code inner}.
+	 * @return Returns a new sequence containing one output element per element of {@code outer}.
+	 * @throws NullPointerException Thrown if any parameter is null.
+	 */
+	public static <A,B,K,O> Iterable<O> GroupJoin(Iterable<? extends A> outer, Iterable<? extends B> inner, SingleInputTransformation<A,K> outer_key, SingleInputTransformation<B,K> inner_key, SingleInputTransformation<Pair<A,ArrayList<B>>,O> join)
+	{
+		if(outer == null || inner == null || outer_key == null || inner_key == null || join == null)
+			throw new NullPointerException();
+		
+		return new Iterable<O>()
+		{
+			public Iterator<O> iterator()
+			{
+				return new Iterator<O>()
+				{
+					public boolean hasNext()
+					{return Iter.hasNext();}
+					
+					public O next()
+					{
+						if(!hasNext())
+							throw new NoSuchElementException();
+						
+						A a = Iter.next();
+						K k = outer_key.Evaluate(a);
+						ArrayList<B> match = k == null ? null : Lookup.GetOrDefault(k,null);
+						
+						// Each unmatched element gets its own empty list in case the join keeps it around and modifies it
+						return join.Evaluate(new Pair<A,ArrayList<B>>(a,match == null ? new ArrayList<B>() : match));
+					}
+					
+					protected Dictionary<K,ArrayList<B>> Lookup = Lookup(inner,inner_key);
+					protected Iterator<? extends A> Iter = outer.iterator();
+				};
+			}
+		};
+	}
+	
+	/**
+	 * Hashes the elements of a sequence into buckets by key in a single pass.
+	 * Elements with null keys are left out.
+	 * @param <T> The iterated type.
+	 * @param <K> The key type.
+	 * @param source The sequence to hash.
+	 * @param key Obtains the key of each element.
+	 * @return Returns a dictionary mapping each key to the elements with that key in the order they appear in {@code source}.
+	 */
+	protected static <T,K> Dictionary<K,ArrayList<T>> Lookup(Iterable<? extends T> source, SingleInputTransformation<T,K> key)
+	{
+		Dictionary<K,ArrayList<T>> ret = new Dictionary<K,ArrayList<T>>();
+		
+		for(T t : source)
+		{
+			K k = key.Evaluate(t);
+			
+			if(k != null)
+				ret.ComputeIfAbsent(k,x -> new ArrayList<T>()).add(t);
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * Iterates over the elements of another iterator which pass a filter.
+	 * Unlike {@code Where}, the filter may have state, since it is asked about each element exactly once and in order.
+	 * @author Dawn Nye
+	 */
+	private static abstract class FilteredIterator<T> implements Iterator<T>
+	{
+		/**
+		 * Creates a new filtered iterator.
+		 * @param iter The iterator to filter.
+		 */
+		public FilteredIterator(Iterator<? extends T> iter)
+		{
+			Iter = iter;
+			HasNext = false;
+			
+			return;
+		}
+		
+		/**
+		 * Determines if {@code t} should be iterated.
+		 */
+		protected abstract boolean Accept(T t);
+		
+		public boolean hasNext()
+		{
+			if(HasNext)
+				return true;
+			
+			while(Iter.hasNext())
+			{
+				T temp = Iter.next();
+				
+				if(Accept(temp))
+				{
+					Next = temp;
+					return HasNext = true;
+				}
+			}
+			
+			return false;
+		}
+		
+		public T next()
+		{
+			if(!hasNext())
+				throw new NoSuchElementException();
+			
+			T ret = Next;
+			
+			Next = null;
+			HasNext = false;
+			
+			return ret;
+		}
+		
+		/**
+		 * The iterator being filtered.
+		 */
+		protected Iterator<? extends T> Iter;
+		
+		/**
+		 * The next element to iterate if {@code HasNext} is true.
+		 */
+		protected T Next;
+		
+		/**
+		 * If true, {@code Next} holds an accepted element that has not yet been iterated.
+		 * We need this separately since null elements may be accepted.
+		 */
+		protected boolean HasNext;
+	}
+	
+	/**
+	 * The hash set used by the set operators.
+	 * It is an {@code OpenHashTable} that also admits a single null element, which its equality and hash functions are never given.
+	 * @author Dawn Nye
+	 */
+	private static final class HashedSet<T> extends OpenHashTable<T>
+	{
+		/**
+		 * Creates an empty hash set.
+		 * @param equality Determines if two elements are the same. If this is null, {@code equals} is used.
+		 * @param hash Hashes elements consistently with {@code equality}. If this is null, {@code hashCode} is used.
+		 */
+		public HashedSet(EqualityPredicate<? super T> equality, HashFunction<? super T> hash)
+		{
+			super(equality,hash);
+			ContainsNull = false;
+			
+			return;
+		}
+		
+		/**
+		 * Adds {@code t} to this set if it is not already present.
+		 * @return Returns true if {@code t} was added and false if it was already present.
+		 */
+		@Override public boolean Add(T t)
+		{
+			if(t == null)
+			{
+				if(ContainsNull)
+					return false;
+				
+				return ContainsNull = true;
+			}
+			
+			return AddIfAbsent(t);
+		}
+		
+		/**
+		 * Determines if {@code t} is in this set.
+		 */
+		@Override public boolean Contains(T t)
+		{return t == null ? ContainsNull : contains(t);}
+		
+		/**
+		 * If true, the set contains null.
+		 */
+		private boolean ContainsNull;
+	}
+	
 	/**
 	 * Determines the value of a single input predicate.
 	 * @author Dawn Nye
@@ -1138,4 +1633,29 @@ public final class LINQ
 		 */
 		public abstract O Evaluate(I LHS, I RHS);
 	}
+	
+	/**
+	 * Determines if two values are the same.
+	 * @author Dawn Nye
+	 */
+	@FunctionalInterface public interface EqualityPredicate<T>
+	{
+		/**
+		 * Determines if {@code a} and {@code b} are the same.
+		 */
+		public abstract boolean Evaluate(T a, T b);
+	}
+	
+	/**
+	 * Hashes a value.
+	 * Values which are the same according to an accompanying {@code EqualityPredicate} must have the same hash.
+	 * @author Dawn Nye
+	 */
+	@FunctionalInterface public interface HashFunction<T>
+	{
+		/**
+		 * Hashes {@code input}.
+		 */
+		public abstract int Evaluate(T input);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,338 @@
+package gamecore.LINQ;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A fluent query over a sequence of {@code long} values which never boxes them.
+ * Each stage of the query pushes values straight into the next, so evaluating a query allocates nothing per element.
+ * <br><br>
+ * Queries are lazy and immutable, and they can be evaluated any number of times.
+ * Each evaluation reflects the source's contents at that time.
+ * @author Dawn Nye
+ */
+public class LongQuery extends PrimitiveQuery<LongQuery,LongQuery.LongSink,long[]>
+{
+	/**
+	 * Creates a new query whose output is the values of {@code source}.
+	 * @param source The source array. The query views the array rather than copying it.
+	 * @throws NullPointerException Thrown if {@code source} is null.
+	 */
+	public LongQuery(long[] source)
+	{
+		this(source,0,source.length);
+		return;
+	}
+	
+	/**
+	 * Creates a new query whose output is the values of {@code source} in the index range [{@code start},{@code end}).
+	 * @param source The source array. The query views the array rather than copying it.
+	 * @param start The first index to output.
+	 * @param end One past the last index to output.
+	 * @throws NullPointerException Thrown if {@code source} is null.
+	 * @throws IndexOutOfBoundsException Thrown if the range does not lie within {@code source}.
+	 */
+	public LongQuery(long[] source, int start, int end)
+	{
+		super(Span(source,start,end));
+		return;
+	}
+	
+	/**
+	 * Creates a new query whose output is the values selected from each element of {@code source}.
+	 * @param <T> The source type.
+	 * @param source The source sequence.
+	 * @param selector Selects a value from each element.
+	 * @throws NullPointerException Thrown if {@code source} or {@code selector} is null.
+	 */
+	public <T> LongQuery(Iterable<? extends T> source, LongSelector<? super T> selector)
+	{
+		super(Selection(source,selector));
+		return;
+	}
+	
+	/**
+	 * Creates a new query.
+	 * @param feed The source of the query's output.
+	 */
+	protected LongQuery(Feed<LongSink> feed)
+	{
+		super(feed);
+		return;
+	}
+	
+	/**
+	 * Creates a feed of the values of {@code source} in the index range [{@code start},{@code end}).
+	 * @throws NullPointerException Thrown if {@code source} is null.
+	 * @throws IndexOutOfBoundsException Thrown if the range does not lie within {@code source}.
+	 */
+	protected static Feed<LongSink> Span(long[] source, int start, int end)
+	{
+		if(start < 0 || end > source.length || start > end)
+			throw new IndexOutOfBoundsException();
+		
+		return new Feed<LongSink>()
+		{
+			public void Push(LongSink sink)
+			{
+				for(int i = start;i < end;i++)
+					sink.Accept(source[i]);
+				
+				return;
+			}
+			
+			public int Size()
+			{return end - start;}
+		};
+	}
+	
+	/**
+	 * Creates a feed of the values selected from each element of {@code source}.
+	 * @throws NullPointerException Thrown if {@code source} or {@code selector} is null.
+	 */
+	protected static <T> Feed<LongSink> Selection(Iterable<? extends T> source, LongSelector<? super T> selector)
+	{
+		if(source == null || selector == null)
+			throw new NullPointerException();
+		
+		return new Feed<LongSink>()
+		{
+			public void Push(LongSink sink)
+			{
+				for(T t : source)
+					sink.Accept(selector.Evaluate(t));
+				
+				return;
+			}
+			
+			public int Size()
+			{return KnownSize(source);}
+		};
+	}
+	
+	protected LongQuery Create(Feed<LongSink> feed)
+	{return new LongQuery(feed);}
+	
+	/**
+	 * Filters this query's output to only those values which satisfy {@code predicate}.
+	 * @param predicate The predicate which decides whether to include or exclude values.
+	 * @return Returns a new query which outputs only values which satisfy {@code predicate}.
+	 * @throws NullPointerException Thrown if {@code predicate} is null.
+	 */
+	public LongQuery Where(LongPredicate predicate)
+	{
+		if(predicate == null)
+			throw new NullPointerException();
+		
+		return Append(sink -> v ->
+		{
+			if(predicate.Evaluate(v))
+				sink.Accept(v);
+		},false);
+	}
+	
+	/**
+	 * Transforms this query's output.
+	 * @param transformation The transformation to apply to each value.
+	 * @return Returns a new query which outputs the transformed values.
+	 * @throws NullPointerException Thrown if {@code transformation} is null.
+	 */
+	public LongQuery Select(LongTransformation transformation)
+	{
+		if(transformation == null)
+			throw new NullPointerException();
+		
+		return Append(sink -> v -> sink.Accept(transformation.Evaluate(v)),true);
+	}
+	
+	/**
+	 * Widens this query's output to {@code double} values.
+	 * @return Returns a new query which outputs the same values as {@code double}s.
+	 */
+	public DoubleQuery AsDoubles()
+	{return new DoubleQuery(Then((DoubleQuery.DoubleSink sink) -> v -> sink.Accept(v),true));}
+	
+	/**
+	 * Sums the values output by this query.
+	 * @return Returns the sum of the values or 0 if there are none.
+	 */
+	public long Sum()
+	{return Accumulate().Sum;}
+	
+	/**
+	 * Averages the values output by this query.
+	 * @return Returns the mean of the values.
+	 * @throws NoSuchElementException Thrown if there are no values.
+	 */
+	public double Average()
+	{
+		Accumulator acc = NonEmpty(Accumulate());
+		return acc.Sum / (double)acc.Count;
+	}
+	
+	/**
+	 * Finds the smallest value output by this query.
+	 * @return Returns the smallest value.
+	 * @throws NoSuchElementException Thrown if there are no values.
+	 */
+	public long Min()
+	{return NonEmpty(Accumulate()).Min;}
+	
+	/**
+	 * Finds the largest value output by this query.
+	 * @return Returns the largest value.
+	 * @throws NoSuchElementException Thrown if there are no values.
+	 */
+	public long Max()
+	{return NonEmpty(Accumulate()).Max;}
+	
+	/**
+	 * Counts the values output by this query into equally wide buckets spanning [{@code min},{@code max}).
+	 * Values outside of that range are not counted.
+	 * @param min The (inclusive) lower bound of the first bucket.
+	 * @param max The (exclusive) upper bound of the last bucket.
+	 * @param buckets The number of buckets.
+	 * @return Returns the number of values in each bucket.
+	 * @throws IllegalArgumentException Thrown if {@code min} is not less than {@code max} or {@code buckets} is nonpositive.
+	 */
+	public int[] Histogram(long min, long max, int buckets)
+	{
+		if(min >= max || buckets <= 0)
+			throw new IllegalArgumentException();
+		
+		int[] ret = new int[buckets];
+		double scale = buckets / ((double)max - (double)min);
+		
+		// Rounding can push values just below max into a nonexistent bucket, so we clamp
+		Feed.Push(v ->
+		{
+			if(v >= min && v < max)
+				ret[Math.min(buckets - 1,(int)(((double)v - (double)min) * scale))]++;
+		});
+		
+		return ret;
+	}
+	
+	protected Accumulator Accumulate()
+	{
+		Accumulator acc = new Accumulator();
+		Feed.Push(acc);
+		
+		return acc;
+	}
+	
+	protected Collector Collect(int capacity)
+	{
+		Collector c = new Collector(capacity);
+		Feed.Push(c);
+		
+		return c;
+	}
+	
+	/**
+	 * Tracks the count, sum, minimum, and maximum of the values it receives.
+	 * @author Dawn Nye
+	 */
+	protected static class Accumulator extends Tally implements LongSink
+	{
+		public void Accept(long v)
+		{
+			if(Count++ == 0)
+				Min = Max = v;
+			else if(v < Min)
+				Min = v;
+			else if(v > Max)
+				Max = v;
+			
+			Sum += v;
+			return;
+		}
+		
+		/**
+		 * The sum of the values received.
+		 */
+		public long Sum = 0L;
+		
+		/**
+		 * The smallest value received.
+		 */
+		public long Min;
+		
+		/**
+		 * The largest value received.
+		 */
+		public long Max;
+	}
+	
+	/**
+	 * Collects the values it receives into an array.
+	 * @author Dawn Nye
+	 */
+	protected static class Collector extends Buffer<long[]> implements LongSink
+	{
+		/**
+		 * Creates a new collector.
+		 * @param capacity The initial capacity.
+		 */
+		public Collector(int capacity)
+		{
+			super(new long[capacity]);
+			return;
+		}
+		
+		public void Accept(long v)
+		{
+			Reserve();
+			Values[Count++] = v;
+			
+			return;
+		}
+	}
+	
+	/**
+	 * Receives the values of a query.
+	 * @author Dawn Nye
+	 */
+	@FunctionalInterface protected interface LongSink
+	{
+		/**
+		 * Receives a value.
+		 */
+		public abstract void Accept(long v);
+	}
+	
+	/**
+	 * Determines the value of a predicate on an {@code long}.
+	 * @author Dawn Nye
+	 */
+	@FunctionalInterface public interface LongPredicate
+	{
+		/**
+		 * Determines the value of the predicate.
+		 */
+		public abstract boolean Evaluate(long input);
+	}
+	
+	/**
+	 * Transforms an {@code long} into another.
+	 * @author Dawn Nye
+	 */
+	@FunctionalInterface public interface LongTransformation
+	{
+		/**
+		 * Transforms {@code input}.
+		 */
+		public abstract long Evaluate(long input);
+	}
+	
+	/**
+	 * Selects an {@code long} from an object.
+	 * @author Dawn Nye
+	 */
+	@FunctionalInterface public interface LongSelector<T>
+	{
+		/**
+		 * Selects a value from {@code input}.
+		 */
+		public abstract long Evaluate(T input);
+	}
+}
@@ -0,0 +1,408 @@
+package gamecore.LINQ;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import gamecore.LINQ.LINQ.SingleInputTransformation;
+
+/**
+ * A query whose output is sorted.
+ * Sorting is stable, so values which compare as equal are output in the same order they appear in the source.
+ * <br><br>
+ * Iterating an ordered query does not sort its entire output up front.
+ * Instead, the output is arranged into a heap in linear time and each value is removed from the heap only when it is asked for.
+ * Reading only the first {@code k} values of {@code n} thus takes O(n + k log n) time.
+ * {@code Take} does better still, keeping only the best {@code k} values in a bounded heap as it reads the source, which takes O(n log k) time and O(k) space.
+ * @author Dawn Nye
+ * @param <T> The type of the query's output.
+ */
+public class OrderedQuery<T> extends Query<T>
+{
+	/**
+	 * Creates a new ordered query.
+	 * @param source The query whose output is to be sorted.
+	 * @param order The order to sort by.
+	 */
+	protected OrderedQuery(Query<T> source, Comparator<? super T> order)
+	{
+		super(new SortedIterable<T>(source,order),null,null,new Object[0],false);
+		
+		Unsorted = source;
+		Order = order;
+		
+		return;
+	}
+	
+	/**
+	 * Breaks ties in this query's order by comparing {@code key}s.
+	 * @param <K> The key type.
+	 * @param key Obtains the key of each value.
+	 * @return Returns a new query which sorts by this query's order first and then by {@code key}.
+	 * @throws NullPointerException Thrown if {@code key} is null.
+	 */
+	public <K extends Comparable<? super K>> OrderedQuery<T> ThenBy(SingleInputTransformation<T,K> key)
+	{
+		if(key == null)
+			throw new NullPointerException();
+		
+		return ThenBy((a,b) -> key.Evaluate(a).compareTo(key.Evaluate(b)));
+	}
+	
+	/**
+	 * Breaks ties in this query's order by comparing {@code key}s in descending order.
+	 * @param <K> The key type.
+	 * @param key Obtains the key of each value.
+	 * @return Returns a new query which sorts by this query's order first and then by {@code key} from largest to smallest.
+	 * @throws NullPointerException Thrown if {@code key} is null.
+	 */
+	public <K extends Comparable<? super K>> OrderedQuery<T> ThenByDescending(SingleInputTransformation<T,K> key)
+	{
+		if(key == null)
+			throw new NullPointerException();
+		
+		return ThenBy((a,b) -> key.Evaluate(b).compareTo(key.Evaluate(a)));
+	}
+	
+	/**
+	 * Breaks ties in this query's order with {@code cmp}.
+	 * @param cmp The order to break ties with.
+	 * @return Returns a new query which sorts by this query's order first and then by {@code cmp}.
+	 * @throws NullPointerException Thrown if {@code cmp} is null.
+	 */
+	public OrderedQuery<T> ThenBy(Comparator<? super T> cmp)
+	{
+		if(cmp == null)
+			throw new NullPointerException();
+		
+		Comparator<? super T> first = Order;
+		
+		return new OrderedQuery<T>(Unsorted,(a,b) ->
+		{
+			int ret = first.compare(a,b);
+			return ret != 0 ? ret : cmp.compare(a,b);
+		});
+	}
+	
+	/**
+	 * Obtains the first {@code k} values of this query's sorted output.
+	 * Only {@code k} values are ever held at once, and the rest of the output is never sorted.
+	 * @param k The number of values to take.
+	 * @return Returns a new query which outputs the smallest {@code k} values in sorted order, or every value if there are fewer than {@code k}.
+	 */
+	public Query<T> Take(int k)
+	{
+		return new Query<T>(new Iterable<T>()
+		{
+			public Iterator<T> iterator()
+			{return LINQ.ToIterable(Smallest(k)).iterator();}
+		});
+	}
+	
+	/**
+	 * Finds the smallest {@code k} values of the unsorted output with a bounded heap.
+	 * The heap is a max heap so that its root is always the value to evict when a smaller one arrives.
+	 * @param k The number of values to find.
+	 * @return Returns the smallest values in sorted order.
+	 */
+	protected T[] Smallest(int k)
+	{
+		if(k <= 0)
+			return (T[])new Object[0];
+		
+		int known = Unsorted.KnownCount();
+		
+		// When we'd keep everything anyway, a heap only slows us down
+		if(known >= 0 && known <= k)
+			return LINQ.ToArray(this);
+		
+		Heap<T> heap = new Heap<T>(Order,new Object[Math.min(k,16)],new int[Math.min(k,16)],0,true);
+		int i = 0;
+		
+		for(T t : Unsorted)
+		{
+			if(heap.Count < k)
+				heap.Push(t,i);
+			else if(heap.Compare(t,i,0) < 0)
+				heap.ReplaceRoot(t,i);
+			
+			i++;
+		}
+		
+		// Popping the max heap yields the values from largest to smallest, so we fill the result from the back
+		T[] ret = (T[])new Object[heap.Count];
+		
+		for(int j = ret.length - 1;j >= 0;j--)
+			ret[j] = heap.Pop();
+		
+		return ret;
+	}
+	
+	public int Count()
+	{return Unsorted.Count();}
+	
+	public boolean Any()
+	{return Unsorted.Any();}
+	
+	/**
+	 * The unsorted query.
+	 */
+	protected final Query<T> Unsorted;
+	
+	/**
+	 * The order to sort by.
+	 */
+	protected final Comparator<? super T> Order;
+	
+	/**
+	 * Iterates over the output of a query in sorted order, sorting lazily as it goes.
+	 * @author Dawn Nye
+	 */
+	protected static class SortedIterable<T> implements Iterable<T>
+	{
+		/**
+		 * Creates a new sorted iterable.
+		 * @param source The values to sort.
+		 * @param order The order to sort by.
+		 */
+		public SortedIterable(Query<T> source, Comparator<? super T> order)
+		{
+			Source = source;
+			Order = order;
+			
+			return;
+		}
+		
+		public Iterator<T> iterator()
+		{
+			Object[] items = Source.ToArray();
+			int[] indices = new int[items.length];
+			
+			for(int i = 0;i < indices.length;i++)
+				indices[i] = i;
+			
+			Heap<T> heap = new Heap<T>(Order,items,indices,items.length,false);
+			heap.Heapify();
+			
+			return new Iterator<T>()
+			{
+				public boolean hasNext()
+				{return heap.Count > 0;}
+				
+				public T next()
+				{
+					if(!hasNext())
+						throw new NoSuchElementException();
+					
+					return heap.Pop();
+				}
+			};
+		}
+		
+		/**
+		 * The values to sort.
+		 */
+		protected final Query<T> Source;
+		
+		/**
+		 * The order to sort by.
+		 */
+		protected final Comparator<? super T> Order;
+	}
+	
+	/**
+	 * A binary heap of values tagged with their source indices.
+	 * Values which compare as equal are ordered by index, which is what keeps sorting stable.
+	 * @author Dawn Nye
+	 */
+	protected static class Heap<T>
+	{
+		/**
+		 * Creates a new heap.
+		 * @param order The order of the values.
+		 * @param items The initial backing array of values.
+		 * @param indices The initial backing array of source indices.
+		 * @param count The number of values already in the backing arrays.
+		 * @param max If true, this is a max heap. Otherwise, it is a min heap.
+		 */
+		public Heap(Comparator<? super T> order, Object[] items, int[] indices, int count, boolean max)
+		{
+			Order = order;
+			Items = items;
+			Indices = indices;
+			Count = count;
+			Max = max;
+			
+			return;
+		}
+		
+		/**
+		 * Arranges the backing arrays into a heap in linear time.
+		 */
+		public void Heapify()
+		{
+			for(int i = (Count >> 1) - 1;i >= 0;i--)
+				SiftDown(i);
+			
+			return;
+		}
+		
+		/**
+		 * Adds a value to the heap.
+		 * @param t The value.
+		 * @param index Its source index.
+		 */
+		public void Push(T t, int index)
+		{
+			if(Count == Items.length)
+			{
+				Items = Arrays.copyOf(Items,Count << 1);
+				Indices = Arrays.copyOf(Indices,Count << 1);
+			}
+			
+			Items[Count] = t;
+			Indices[Count] = index;
+			
+			SiftUp(Count++);
+			return;
+		}
+		
+		/**
+		 * Removes the root of the heap.
+		 * @return Returns the root.
+		 */
+		public T Pop()
+		{
+			T ret = (T)Items[0];
+			
+			Items[0] = Items[--Count];
+			Indices[0] = Indices[Count];
+			Items[Count] = null;
+			
+			SiftDown(0);
+			return ret;
+		}
+		
+		/**
+		 * Replaces the root of the heap with a new value.
+		 * @param t The value.
+		 * @param index Its source index.
+		 */
+		public void ReplaceRoot(T t, int index)
+		{
+			Items[0] = t;
+			Indices[0] = index;
+			
+			SiftDown(0);
+			return;
+		}
+		
+		/**
+		 * Compares a value against one in the heap in sorted order, breaking ties by source index.
+		 * @param t The value.
+		 * @param index Its source index.
+		 * @param i The heap position of the value to compare against.
+		 * @return Returns a negative number if {@code t} comes first, a positive number if it comes second, and 0 if they are the same value.
+		 */
+		public int Compare(T t, int index, int i)
+		{
+			int ret = Order.compare(t,(T)Items[i]);
+			return ret != 0 ? ret : Integer.compare(index,Indices[i]);
+		}
+		
+		/**
+		 * Determines if the value at heap position {@code i} belongs above the one at {@code j}.
+		 */
+		protected boolean Above(int i, int j)
+		{
+			int c = Compare((T)Items[i],Indices[i],j);
+			return Max ? c > 0 : c < 0;
+		}
+		
+		/**
+		 * Moves the value at heap position {@code i} up until the heap property holds.
+		 */
+		protected void SiftUp(int i)
+		{
+			while(i > 0)
+			{
+				int p = (i - 1) >> 1;
+				
+				if(!Above(i,p))
+					break;
+				
+				Swap(i,p);
+				i = p;
+			}
+			
+			return;
+		}
+		
+		/**
+		 * Moves the value at heap position {@code i} down until the heap property holds.
+		 */
+		protected void SiftDown(int i)
+		{
+			while(true)
+			{
+				int c = (i << 1) + 1;
+				
+				if(c >= Count)
+					break;
+				
+				if(c + 1 < Count && Above(c + 1,c))
+					c++;
+				
+				if(!Above(c,i))
+					break;
+				
+				Swap(i,c);
+				i = c;
+			}
+			
+			return;
+		}
+		
+		/**
+		 * Swaps the values at heap positions {@code i} and {@code j}.
+		 */
+		protected void Swap(int i, int j)
+		{
+			Object t = Items[i];
+			Items[i] = Items[j];
+			Items[j] = t;
+			
+			int n = Indices[i];
+			Indices[i] = Indices[j];
+			Indices[j] = n;
+			
+			return;
+		}
+		
+		/**
+		 * The order of the values.
+		 */
+		protected final Comparator<? super T> Order;
+		
+		/**
+		 * The values in the heap.
+		 */
+		protected Object[] Items;
+		
+		/**
+		 * The source index of each value in the heap.
+		 */
+		protected int[] Indices;
+		
+		/**
+		 * The number of values in the heap.
+		 */
+		public int Count;
+		
+		/**
+		 * If true, this is a max heap. Otherwise, it is a min heap.
+		 */
+		protected final boolean Max;
+	}
+}
@@ -0,0 +1,715 @@
+package gamecore.LINQ;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import gamecore.LINQ.LINQ.BinaryOperation;
+import gamecore.LINQ.LINQ.SingleInputPredicate;
+import gamecore.LINQ.LINQ.SingleInputTransformation;
+import gamecore.datastructures.ArrayList;
+import gamecore.datastructures.Dictionary;
+import gamecore.datastructures.tuples.KeyValuePair;
+import gamecore.datastructures.tuples.Pair;
+
+/**
+ * A query over a sequence which is evaluated in parallel.
+ * The source is divided into chunks with its {@code Spliterator}, and each chunk is pushed through the query's {@code Where}/{@code Select} pipeline on the common {@code ForkJoinPool}.
+ * The partial results of the chunks are then combined pairwise in the same order the chunks appear in the source.
+ * <br><br>
+ * Array backed sources (such as {@code ArrayList}, grid items, and arrays wrapped by {@code LINQ.ToIterable}) split evenly and cheaply.
+ * Other sources still work, but they are split by copying batches of elements out of their iterators, which only pays off when the pipeline is expensive.
+ * <br><br>
+ * Queries are ordered by default, meaning that results are exactly those the sequential LINQ equivalents would produce.
+ * An unordered query may instead return any element satisfying a search, which lets it stop as soon as one is found.
+ * In either case, every predicate, transformation, and operation given to a query may be invoked concurrently and must be safe to do so.
+ * @author Dawn Nye
+ * @param <T> The type of the query's output.
+ */
+public class ParallelQuery<T>
+{
+	/**
+	 * Creates a new ordered parallel query which outputs the elements of {@code source}.
+	 * @param source The source sequence.
+	 * @throws NullPointerException Thrown if {@code source} is null.
+	 */
+	public ParallelQuery(Iterable<? extends T> source)
+	{
+		this(source,down -> (Sink<Object>)down,true,0);
+		
+		if(source == null)
+			throw new NullPointerException();
+		
+		return;
+	}
+	
+	/**
+	 * Creates a new parallel query.
+	 * @param source The source sequence.
+	 * @param pipeline Transforms the sink of this query's output into a sink for elements of {@code source}.
+	 * @param ordered If true, this query is ordered.
+	 * @param grain The largest number of elements processed as a single chunk or 0 to choose a size automatically.
+	 */
+	protected ParallelQuery(Iterable<?> source, Stage<T> pipeline, boolean ordered, int grain)
+	{
+		Source = source;
+		Pipeline = pipeline;
+		
+		Ordered = ordered;
+		Grain = grain;
+		
+		return;
+	}
+	
+	/**
+	 * Filters this query's output to only those values which satisfy {@code predicate}.
+	 * @param predicate The predicate which decides whether to include or exclude values.
+	 * @return Returns a new query which outputs only values which satisfy {@code predicate}.
+	 * @throws NullPointerException Thrown if {@code predicate} is null.
+	 */
+	public ParallelQuery<T> Where(SingleInputPredicate<T> predicate)
+	{
+		if(predicate == null)
+			throw new NullPointerException();
+		
+		return new ParallelQuery<T>(Source,down -> Pipeline.Wrap(t -> !predicate.Evaluate(t) || down.Accept(t)),Ordered,Grain);
+	}
+	
+	/**
+	 * Transforms this query's output.
+	 * @param <O> The transformed type.
+	 * @param transformation The transformation to apply to each value.
+	 * @return Returns a new query which outputs the transformed values.
+	 * @throws NullPointerException Thrown if {@code transformation} is null.
+	 */
+	public <O> ParallelQuery<O> Select(SingleInputTransformation<T,O> transformation)
+	{
+		if(transformation == null)
+			throw new NullPointerException();
+		
+		return new ParallelQuery<O>(Source,down -> Pipeline.Wrap(t -> down.Accept(transformation.Evaluate(t))),Ordered,Grain);
+	}
+	
+	/**
+	 * Obtains an ordered version of this query.
+	 */
+	public ParallelQuery<T> AsOrdered()
+	{return Ordered ? this : new ParallelQuery<T>(Source,Pipeline,true,Grain);}
+	
+	/**
+	 * Obtains an unordered version of this query.
+	 */
+	public ParallelQuery<T> AsUnordered()
+	{return Ordered ? new ParallelQuery<T>(Source,Pipeline,false,Grain) : this;}
+	
+	/**
+	 * Determines if this query is ordered.
+	 */
+	public boolean IsOrdered()
+	{return Ordered;}
+	
+	/**
+	 * Obtains a version of this query which processes chunks of at most (roughly) {@code grain} source elements at a time.
+	 * @param grain The chunk size or 0 to choose a size automatically.
+	 * @throws IllegalArgumentException Thrown if {@code grain} is negative.
+	 */
+	public ParallelQuery<T> WithGrain(int grain)
+	{
+		if(grain < 0)
+			throw new IllegalArgumentException();
+		
+		return new ParallelQuery<T>(Source,Pipeline,Ordered,grain);
+	}
+	
+	/**
+	 * Counts the values output by this query.
+	 * @return Returns the number of values output.
+	 */
+	public int Count()
+	{
+		return Evaluate(() -> new Accumulator<T,Integer>()
+		{
+			public boolean Accept(T t)
+			{
+				Count++;
+				return true;
+			}
+			
+			public Integer Result()
+			{return Count;}
+			
+			protected int Count = 0;
+		},(a,b) -> a + b,false);
+	}
+	
+	/**
+	 * Determines if any value output by this query satisfies {@code predicate}.
+	 * The query stops as soon as one is found.
+	 * @param predicate The predicate to test.
+	 * @return Returns true if some value satisfies {@code predicate} and false otherwise.
+	 * @throws NullPointerException Thrown if {@code predicate} is null.
+	 */
+	public boolean Any(SingleInputPredicate<T> predicate)
+	{
+		if(predicate == null)
+			throw new NullPointerException();
+		
+		return Evaluate(() -> new Accumulator<T,Boolean>()
+		{
+			public boolean Accept(T t)
+			{return !(Found = predicate.Evaluate(t));}
+			
+			public boolean StopAll()
+			{return Found;}
+			
+			public Boolean Result()
+			{return Found;}
+			
+			protected boolean Found = false;
+		},(a,b) -> a || b,true);
+	}
+	
+	/**
+	 * Determines if every value output by this query satisfies {@code predicate}.
+	 * The query stops as soon as one does not.
+	 * @param predicate The predicate to test.
+	 * @return Returns true if every value satisfies {@code predicate} and false otherwise.
+	 * @throws NullPointerException Thrown if {@code predicate} is null.
+	 */
+	public boolean All(SingleInputPredicate<T> predicate)
+	{
+		if(predicate == null)
+			throw new NullPointerException();
+		
+		return !Any(t -> !predicate.Evaluate(t));
+	}
+	
+	/**
+	 * Finds a value output by this query which satisfies {@code predicate}.
+	 * If this query is ordered, the first such value is returned.
+	 * Otherwise, any such value may be returned, and the query stops as soon as one is found.
+	 * @param predicate The predicate to test.
+	 * @return Returns a value which satisfies {@code predicate}.
+	 * @throws NullPointerException Thrown if {@code predicate} is null.
+	 * @throws NoSuchElementException Thrown if no value satisfies {@code predicate}.
+	 */
+	public T Find(SingleInputPredicate<T> predicate)
+	{
+		if(predicate == null)
+			throw new NullPointerException();
+		
+		Partial<T> ret = Evaluate(() -> new Accumulator<T,Partial<T>>()
+		{
+			public boolean Accept(T t)
+			{
+				if(!predicate.Evaluate(t))
+					return true;
+				
+				Found.Set(t);
+				return false;
+			}
+			
+			public boolean StopAll()
+			{return Found.Present;}
+			
+			public Partial<T> Result()
+			{return Found;}
+			
+			protected Partial<T> Found = new Partial<T>();
+		},(a,b) -> a.Present ? a : b,!Ordered);
+		
+		if(!ret.Present)
+			throw new NoSuchElementException();
+		
+		return ret.Value;
+	}
+	
+	/**
+	 * Combines the values output by this query with {@code operation}.
+	 * This behaves as {@code LINQ.Sum}, except that values are combined within chunks and then the chunk totals are combined with each other.
+	 * As such, {@code operation} must be associative, and, if this query is unordered, commutative as well.
+	 * @param operation The operation to combine values with. Its left hand side is null when its right hand side is the first value of a chunk.
+	 * @return Returns the combined value or null if there are no values.
+	 * @throws NullPointerException Thrown if {@code operation} is null.
+	 */
+	public T Sum(BinaryOperation<T,T> operation)
+	{
+		if(operation == null)
+			throw new NullPointerException();
+		
+		Partial<T> ret = Evaluate(() -> new Accumulator<T,Partial<T>>()
+		{
+			public boolean Accept(T t)
+			{
+				Total.Set(operation.Evaluate(Total.Value,t));
+				return true;
+			}
+			
+			public Partial<T> Result()
+			{return Total;}
+			
+			protected Partial<T> Total = new Partial<T>();
+		},(a,b) -> a.Present ? (b.Present ? a.Set(operation.Evaluate(a.Value,b.Value)) : a) : b,false);
+		
+		return ret.Value;
+	}
+	
+	/**
+	 * Finds the maximum value output by this query.
+	 * If this query is ordered, the first maximum value is returned, just as with {@code LINQ.Max}.
+	 * @param cmp The means by which values are compared.
+	 * @return Returns the maximum value.
+	 * @throws NullPointerException Thrown if {@code cmp} is null.
+	 * @throws NoSuchElementException Thrown if there are no values.
+	 */
+	public T Max(Comparator<T> cmp)
+	{
+		if(cmp == null)
+			throw new NullPointerException();
+		
+		return Choose((a,b) -> cmp.compare(a,b) < 0 ? b : a);
+	}
+	
+	/**
+	 * Finds the minimum value output by this query.
+	 * If this query is ordered, the first minimum value is returned, just as with {@code LINQ.Min}.
+	 * @param cmp The means by which values are compared.
+	 * @return Returns the minimum value.
+	 * @throws NullPointerException Thrown if {@code cmp} is null.
+	 * @throws NoSuchElementException Thrown if there are no values.
+	 */
+	public T Min(Comparator<T> cmp)
+	{
+		if(cmp == null)
+			throw new NullPointerException();
+		
+		return Choose((a,b) -> cmp.compare(a,b) > 0 ? b : a);
+	}
+	
+	/**
+	 * Chooses one value out of every value output by this query.
+	 * @param choose Chooses between two values, the earlier of which is its left hand side.
+	 * @return Returns the chosen value.
+	 * @throws NoSuchElementException Thrown if there are no values.
+	 */
+	protected T Choose(BinaryOperation<T,T> choose)
+	{
+		Partial<T> ret = Evaluate(() -> new Accumulator<T,Partial<T>>()
+		{
+			public boolean Accept(T t)
+			{
+				Best.Set(Best.Present ? choose.Evaluate(Best.Value,t) : t);
+				return true;
+			}
+			
+			public Partial<T> Result()
+			{return Best;}
+			
+			protected Partial<T> Best = new Partial<T>();
+		},(a,b) -> a.Present ? (b.Present ? a.Set(choose.Evaluate(a.Value,b.Value)) : a) : b,false);
+		
+		if(!ret.Present)
+			throw new NoSuchElementException();
+		
+		return ret.Value;
+	}
+	
+	/**
+	 * Collects the values output by this query into a list.
+	 * The list is in the same order as the source regardless of whether this query is ordered.
+	 * @return Returns a new list containing the output values.
+	 */
+	public ArrayList<T> ToList()
+	{
+		return Evaluate(() -> new Accumulator<T,ArrayList<T>>()
+		{
+			public boolean Accept(T t)
+			{return Values.add(t);}
+			
+			public ArrayList<T> Result()
+			{return Values;}
+			
+			protected ArrayList<T> Values = new ArrayList<T>();
+		},(a,b) ->
+		{
+			a.addAll(b);
+			return a;
+		},false);
+	}
+	
+	/**
+	 * Collects the values output by this query into an array.
+	 * @return Returns a new array containing the output values in the same order as the source.
+	 */
+	public Object[] ToArray()
+	{return ToList().toArray();}
+	
+	/**
+	 * Groups the values output by this query by key.
+	 * Each chunk groups its values into its own dictionary, and adjacent chunks' dictionaries are merged, so no locking is required.
+	 * @param <K> The key type.
+	 * @param key Obtains the key of each value. Keys must not be null.
+	 * @return Returns a new dictionary mapping each key to the values with that key. Each group lists its values in the same order as the source regardless of whether this query is ordered.
+	 * @throws NullPointerException Thrown if {@code key} is null or if any key is null.
+	 */
+	public <K> Dictionary<K,ArrayList<T>> GroupBy(SingleInputTransformation<T,K> key)
+	{
+		if(key == null)
+			throw new NullPointerException();
+		
+		return Evaluate(() -> new Accumulator<T,Dictionary<K,ArrayList<T>>>()
+		{
+			public boolean Accept(T t)
+			{return Groups.ComputeIfAbsent(key.Evaluate(t),k -> new ArrayList<T>()).add(t);}
+			
+			public Dictionary<K,ArrayList<T>> Result()
+			{return Groups;}
+			
+			protected Dictionary<K,ArrayList<T>> Groups = new Dictionary<K,ArrayList<T>>();
+		},(a,b) ->
+		{
+			for(KeyValuePair<K,ArrayList<T>> p : b)
+				a.Merge(p.Item1,p.Item2,(l,r) ->
+				{
+					l.addAll(r);
+					return l;
+				});
+			
+			return a;
+		},false);
+	}
+	
+	/**
+	 * Collects the values output by this query into a dictionary by key.
+	 * @param <K> The key type.
+	 * @param <V> The value type.
+	 * @param key Obtains the key of each value. Keys must not be null.
+	 * @param value Obtains the dictionary value of each value.
+	 * @return Returns a new dictionary mapping each output value's key to its dictionary value.
+	 * @throws NullPointerException Thrown if {@code key} or {@code value} is null or if any key is null.
+	 * @throws IllegalArgumentException Thrown if two values have the same key.
+	 */
+	public <K,V> Dictionary<K,V> ToDictionary(SingleInputTransformation<T,K> key, SingleInputTransformation<T,V> value)
+	{
+		if(key == null || value == null)
+			throw new NullPointerException();
+		
+		return Evaluate(() -> new Accumulator<T,Dictionary<K,V>>()
+		{
+			public boolean Accept(T t)
+			{
+				if(!Values.Add(key.Evaluate(t),value.Evaluate(t)))
+					throw new IllegalArgumentException();
+				
+				return true;
+			}
+			
+			public Dictionary<K,V> Result()
+			{return Values;}
+			
+			protected Dictionary<K,V> Values = new Dictionary<K,V>();
+		},(a,b) ->
+		{
+			if(a.Count() < b.Count())
+			{
+				Dictionary<K,V> temp = a;
+				a = b;
+				b = temp;
+			}
+			
+			for(KeyValuePair<K,V> p : b)
+				if(!a.Add(p.Item1,p.Item2))
+					throw new IllegalArgumentException();
+			
+			return a;
+		},false);
+	}
+	
+	/**
+	 * Joins the values output by this query with the elements of {@code inner} by matching keys.
+	 * {@code inner} is hashed by key once, and then each chunk of this query's output is matched against it in parallel.
+	 * Null keys match nothing, not even other null keys.
+	 * @param <B> The inner sequence's iterated type.
+	 * @param <K> The key type.
+	 * @param <O> The output type.
+	 * @param inner The inner sequence.
+	 * @param outer_key Obtains the key of each value output by this query.
+	 * @param inner_key Obtains the key of each inner element.
+	 * @param join Produces an output value from each matching pair.
+	 * @return Returns a new list containing the join of every matching pair. As with {@code LINQ.Join}, pairs are ordered by this query's value first and the inner element second regardless of whether this query is ordered.
+	 * @throws NullPointerException Thrown if any parameter is null.
+	 */
+	public <B,K,O> ArrayList<O> Join(Iterable<? extends B> inner, SingleInputTransformation<T,K> outer_key, SingleInputTransformation<B,K> inner_key, SingleInputTransformation<Pair<T,B>,O> join)
+	{
+		if(inner == null || outer_key == null || inner_key == null || join == null)
+			throw new NullPointerException();
+		
+		// The lookup is only ever read once it's built, so every chunk can share it
+		Dictionary<K,ArrayList<B>> lookup = LINQ.Lookup(inner,inner_key);
+		
+		return Evaluate(() -> new Accumulator<T,ArrayList<O>>()
+		{
+			public boolean Accept(T t)
+			{
+				K k = outer_key.Evaluate(t);
+				ArrayList<B> match = k == null ? null : lookup.GetOrDefault(k,null);
+				
+				if(match != null)
+					for(B b : match)
+						Values.add(join.Evaluate(new Pair<T,B>(t,b)));
+				
+				return true;
+			}
+			
+			public ArrayList<O> Result()
+			{return Values;}
+			
+			protected ArrayList<O> Values = new ArrayList<O>();
+		},(a,b) ->
+		{
+			a.addAll(b);
+			return a;
+		},false);
+	}
+	
+	/**
+	 * Evaluates this query.
+	 * @param <R> The result type.
+	 * @param factory Creates a fresh accumulator for each chunk.
+	 * @param combine Combines the results of two adjacent chunks, the left one first.
+	 * @param stop_early If true, every chunk stops as soon as any finished accumulator's {@code StopAll} is true.
+	 * @return Returns the combined result of every chunk.
+	 */
+	protected <R> R Evaluate(AccumulatorFactory<T,R> factory, BinaryOperation<R,R> combine, boolean stop_early)
+	{
+		Spliterator<?> split = Source.spliterator();
+		long grain = Grain;
+		
+		// Aim for a few chunks per core so that uneven chunks can be balanced by work stealing
+		if(grain == 0)
+		{
+			long n = split.estimateSize();
+			grain = n == Long.MAX_VALUE ? MIN_GRAIN : Math.max(MIN_GRAIN,n / (4L * ForkJoinPool.getCommonPoolParallelism()));
+		}
+		
+		return ForkJoinPool.commonPool().invoke(new Chunk<R>(split,grain,factory,combine,stop_early ? new AtomicBoolean() : null));
+	}
+	
+	/**
+	 * The source sequence.
+	 */
+	protected final Iterable<?> Source;
+	
+	/**
+	 * Transforms the sink of this query's output into a sink for elements of {@code Source}.
+	 */
+	protected final Stage<T> Pipeline;
+	
+	/**
+	 * If true, this query is ordered.
+	 */
+	protected final boolean Ordered;
+	
+	/**
+	 * The largest number of elements processed as a single chunk or 0 to choose a size automatically.
+	 */
+	protected final int Grain;
+	
+	/**
+	 * The smallest chunk size chosen automatically.
+	 */
+	public static final int MIN_GRAIN = 128;
+	
+	/**
+	 * Processes a chunk of the source, splitting it further if it is too large.
+	 * @author Dawn Nye
+	 */
+	private final class Chunk<R> extends RecursiveTask<R> implements Consumer<Object>
+	{
+		/**
+		 * Creates a new chunk.
+		 * @param split The source elements of the chunk.
+		 * @param grain The largest number of elements processed without splitting.
+		 * @param factory Creates a fresh accumulator for the chunk.
+		 * @param combine Combines the results of two adjacent chunks.
+		 * @param stop If not null, every chunk stops once this is true.
+		 */
+		public Chunk(Spliterator<?> split, long grain, AccumulatorFactory<T,R> factory, BinaryOperation<R,R> combine, AtomicBoolean stop)
+		{
+			Split = split;
+			Grain = grain;
+			
+			Factory = factory;
+			Combine = combine;
+			Stop = stop;
+			
+			return;
+		}
+		
+		protected R compute()
+		{
+			Spliterator<?> left;
+			
+			// The prefix is split off to the left, so combining left then right preserves order
+			if(Split.estimateSize() > Grain && !Stopped() && (left = Split.trySplit()) != null)
+			{
+				Chunk<R> l = new Chunk<R>(left,Grain,Factory,Combine,Stop);
+				l.fork();
+				
+				R r = new Chunk<R>(Split,Grain,Factory,Combine,Stop).compute();
+				return Combine.Evaluate(l.join(),r);
+			}
+			
+			Accumulator<T,R> acc = Factory.Create();
+			Sink = Pipeline.Wrap(acc);
+			Continue = true;
+			
+			while(Continue && !Stopped() && Split.tryAdvance(this))
+				;
+			
+			if(Stop != null && acc.StopAll())
+				Stop.set(true);
+			
+			return acc.Result();
+		}
+		
+		public void accept(Object o)
+		{
+			Continue = Sink.Accept(o);
+			return;
+		}
+		
+		/**
+		 * Determines if some chunk has asked every chunk to stop.
+		 */
+		protected boolean Stopped()
+		{return Stop != null && Stop.get();}
+		
+		/**
+		 * The source elements of this chunk.
+		 */
+		protected final Spliterator<?> Split;
+		
+		/**
+		 * The largest number of elements processed without splitting.
+		 */
+		protected final long Grain;
+		
+		/**
+		 * Creates a fresh accumulator for the chunk.
+		 */
+		protected final AccumulatorFactory<T,R> Factory;
+		
+		/**
+		 * Combines the results of two adjacent chunks.
+		 */
+		protected final BinaryOperation<R,R> Combine;
+		
+		/**
+		 * If not null, every chunk stops once this is true.
+		 */
+		protected final AtomicBoolean Stop;
+		
+		/**
+		 * The pipeline feeding this chunk's accumulator.
+		 */
+		protected Sink<Object> Sink;
+		
+		/**
+		 * If false, the pipeline has asked us to stop.
+		 */
+		protected boolean Continue;
+	}
+	
+	/**
+	 * Receives values from a query pipeline.
+	 * @author Dawn Nye
+	 */
+	@FunctionalInterface protected interface Sink<T>
+	{
+		/**
+		 * Receives a value.
+		 * @param t The value.
+		 * @return Returns true if more values should be sent and false if processing should stop.
+		 */
+		public abstract boolean Accept(T t);
+	}
+	
+	/**
+	 * A stage of a query pipeline.
+	 * @author Dawn Nye
+	 */
+	@FunctionalInterface protected interface Stage<T>
+	{
+		/**
+		 * Wraps the sink of the stage's output into a sink for the query's source elements.
+		 * @param downstream The sink for the stage's output.
+		 * @return Returns a sink for the query's source elements.
+		 */
+		public abstract Sink<Object> Wrap(Sink<? super T> downstream);
+	}
+	
+	/**
+	 * Accumulates the values of a single chunk.
+	 * @author Dawn Nye
+	 */
+	protected static abstract class Accumulator<T,R> implements Sink<T>
+	{
+		/**
+		 * Obtains the result of the chunk.
+		 */
+		public abstract R Result();
+		
+		/**
+		 * Determines if every other chunk may stop because of what this one found.
+		 * This is only consulted by queries that can stop early.
+		 */
+		public boolean StopAll()
+		{return false;}
+	}
+	
+	/**
+	 * Creates accumulators.
+	 * @author Dawn Nye
+	 */
+	@FunctionalInterface protected interface AccumulatorFactory<T,R>
+	{
+		/**
+		 * Creates a fresh accumulator.
+		 */
+		public abstract Accumulator<T,R> Create();
+	}
+	
+	/**
+	 * A value which may be absent, distinguishing an absent value from a present null.
+	 * @author Dawn Nye
+	 */
+	protected static final class Partial<T>
+	{
+		/**
+		 * Makes {@code value} the present value.
+		 * @return Returns this.
+		 */
+		public Partial<T> Set(T value)
+		{
+			Value = value;
+			Present = true;
+			
+			return this;
+		}
+		
+		/**
+		 * The value if {@code Present} is true.
+		 */
+		public T Value;
+		
+		/**
+		 * If true, {@code Value} is present.
+		 */
+		public boolean Present;
+	}
+}
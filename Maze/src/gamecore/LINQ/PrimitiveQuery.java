@@ -0,0 +1,265 @@
+package gamecore.LINQ;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+
+import gamecore.datastructures.ICollection;
+
+/**
+ * The machinery shared by the fluent queries over primitive values.
+ * Each stage of a query pushes values straight into the next through a sink specialized to the primitive type, so evaluating a query allocates nothing per element.
+ * This class composes stages, tracks how many values they will produce, and collects values into arrays, leaving only the arithmetic to each primitive type.
+ * <br><br>
+ * Queries are lazy and immutable, and they can be evaluated any number of times.
+ * Each evaluation reflects the source's contents at that time.
+ * @author Dawn Nye
+ * @param <Q> The type of query.
+ * @param <S> The type of sink that receives the query's values.
+ * @param <A> The type of array holding the query's values.
+ */
+public abstract class PrimitiveQuery<Q extends PrimitiveQuery<Q,S,A>,S,A>
+{
+	/**
+	 * Creates a new query.
+	 * @param feed The source of the query's output.
+	 */
+	protected PrimitiveQuery(Feed<S> feed)
+	{
+		Feed = feed;
+		return;
+	}
+	
+	/**
+	 * Creates a new query of this type.
+	 * @param feed The source of the new query's output.
+	 * @return Returns the new query.
+	 */
+	protected abstract Q Create(Feed<S> feed);
+	
+	/**
+	 * Creates a feed which passes this query's output through {@code stage}.
+	 * @param <R> The type of sink receiving the new feed's output.
+	 * @param stage Creates the sink this query pushes into from the sink the new feed pushes into.
+	 * @param keeps_size If true, {@code stage} outputs exactly one value for each value it receives, so the new feed produces as many values as this query does.
+	 * @return Returns the new feed.
+	 */
+	protected <R> Feed<R> Then(Stage<R,S> stage, boolean keeps_size)
+	{
+		return new Feed<R>()
+		{
+			public void Push(R sink)
+			{
+				Feed.Push(stage.Wrap(sink));
+				return;
+			}
+			
+			public int Size()
+			{return keeps_size ? Feed.Size() : -1;}
+		};
+	}
+	
+	/**
+	 * Creates a query which passes this query's output through {@code stage}.
+	 * @param stage Creates the sink this query pushes into from the sink the new query pushes into.
+	 * @param keeps_size If true, {@code stage} outputs exactly one value for each value it receives.
+	 * @return Returns the new query.
+	 */
+	protected Q Append(Stage<S,S> stage, boolean keeps_size)
+	{return Create(Then(stage,keeps_size));}
+	
+	/**
+	 * Determines how many values iterating {@code source} will produce without iterating it, if possible.
+	 * @param source The sequence to measure.
+	 * @return Returns the number of values or -1 if it is not known in advance.
+	 */
+	protected static int KnownSize(Iterable<?> source)
+	{
+		if(source instanceof Query)
+			return ((Query<?>)source).KnownCount();
+		
+		if(source instanceof Collection)
+			return ((Collection<?>)source).size();
+		
+		if(source instanceof ICollection)
+			return ((ICollection<?>)source).Count();
+		
+		return -1;
+	}
+	
+	/**
+	 * Pushes this query's output into a new accumulator.
+	 * @return Returns the accumulator.
+	 */
+	protected abstract Tally Accumulate();
+	
+	/**
+	 * Ensures that an accumulator received at least one value.
+	 * @param <T> The type of accumulator.
+	 * @param tally The accumulator.
+	 * @return Returns {@code tally}.
+	 * @throws NoSuchElementException Thrown if {@code tally} received no values.
+	 */
+	protected static <T extends Tally> T NonEmpty(T tally)
+	{
+		if(tally.Count == 0)
+			throw new NoSuchElementException();
+		
+		return tally;
+	}
+	
+	/**
+	 * Counts the values output by this query.
+	 * @return Returns the number of values output.
+	 */
+	public int Count()
+	{
+		int n = Feed.Size();
+		return n >= 0 ? n : Accumulate().Count;
+	}
+	
+	/**
+	 * Pushes this query's output into a new buffer.
+	 * @param capacity The initial capacity of the buffer.
+	 * @return Returns the buffer.
+	 */
+	protected abstract Buffer<A> Collect(int capacity);
+	
+	/**
+	 * Collects the values output by this query into an array.
+	 * If the number of values is known in advance, the array is allocated once at exactly that length.
+	 * @return Returns a new array containing the output values.
+	 */
+	public A ToArray()
+	{
+		int n = Feed.Size();
+		return Collect(n >= 0 ? n : 16).ToArray();
+	}
+	
+	/**
+	 * The source of this query's output.
+	 */
+	protected final Feed<S> Feed;
+	
+	/**
+	 * Pushes a query's values into a sink.
+	 * @author Dawn Nye
+	 * @param <S> The type of sink.
+	 */
+	@FunctionalInterface protected interface Feed<S>
+	{
+		/**
+		 * Pushes every value into {@code sink} in order.
+		 */
+		public abstract void Push(S sink);
+		
+		/**
+		 * Determines the number of values {@code Push} will produce without producing them, if possible.
+		 * @return Returns the number of values or -1 if it is not known in advance.
+		 */
+		public default int Size()
+		{return -1;}
+	}
+	
+	/**
+	 * A stage of a query.
+	 * @author Dawn Nye
+	 * @param <D> The type of sink the stage pushes its output into.
+	 * @param <U> The type of sink the stage receives its input through.
+	 */
+	@FunctionalInterface protected interface Stage<D,U>
+	{
+		/**
+		 * Creates the sink which receives this stage's input and pushes its output into {@code downstream}.
+		 */
+		public abstract U Wrap(D downstream);
+	}
+	
+	/**
+	 * Counts the values it receives.
+	 * Each primitive type extends this to track whatever else it needs.
+	 * @author Dawn Nye
+	 */
+	protected static abstract class Tally
+	{
+		/**
+		 * The number of values received.
+		 */
+		public int Count = 0;
+	}
+	
+	/**
+	 * Collects values into an array, growing it as needed.
+	 * Each primitive type extends this with a sink that calls {@code Reserve} and then stores its value at {@code Values[Count++]}.
+	 * @author Dawn Nye
+	 * @param <A> The type of array.
+	 */
+	protected static abstract class Buffer<A>
+	{
+		/**
+		 * Creates a new buffer.
+		 * @param values The initial array.
+		 */
+		protected Buffer(A values)
+		{
+			Values = values;
+			Capacity = Array.getLength(values);
+			Count = 0;
+			
+			return;
+		}
+		
+		/**
+		 * Makes room for one more value.
+		 */
+		protected final void Reserve()
+		{
+			if(Count == Capacity)
+				Resize(Math.max(16,Capacity << 1));
+			
+			return;
+		}
+		
+		/**
+		 * Moves the values received so far into a new array.
+		 * @param capacity The length of the new array. This must be at least {@code Count}.
+		 */
+		protected void Resize(int capacity)
+		{
+			A ret = (A)Array.newInstance(Values.getClass().getComponentType(),capacity);
+			System.arraycopy(Values,0,ret,0,Count);
+			
+			Values = ret;
+			Capacity = capacity;
+			
+			return;
+		}
+		
+		/**
+		 * Obtains the values received.
+		 * @return Returns an array containing exactly the values received.
+		 */
+		public A ToArray()
+		{
+			if(Count != Capacity)
+				Resize(Count);
+			
+			return Values;
+		}
+		
+		/**
+		 * The values received so far followed by unused space.
+		 */
+		public A Values;
+		
+		/**
+		 * The length of {@code Values}.
+		 */
+		public int Capacity;
+		
+		/**
+		 * The number of values received.
+		 */
+		public int Count;
+	}
+}
@@ -0,0 +1,518 @@
+package gamecore.LINQ;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+import gamecore.LINQ.LINQ.SingleInputPredicate;
+import gamecore.LINQ.LINQ.SingleInputTransformation;
+import gamecore.datastructures.ICollection;
+
+/**
+ * A fluent query over a sequence.
+ * Unlike chaining the static LINQ methods, which wraps each stage in its own iterator, every {@code Where} and {@code Select} of a query is fused into a single loop over the source.
+ * <br><br>
+ * When a query has no {@code Where} stages, its output is the same length as its source and element {@code i} of the output depends only on element {@code i} of the source.
+ * In that case, {@code Count} asks a {@code Collection} or {@code ICollection} source for its size rather than iterating it, and {@code ElementAt} and {@code Reverse} index directly into random access sources such as arrays and {@code ArrayList}.
+ * {@code ToArray} likewise allocates its result once at the correct size whenever the size is known in advance.
+ * <br><br>
+ * Queries are lazy and immutable, and they can be iterated any number of times.
+ * Each iteration reflects the source's contents at that time.
+ * @author Dawn Nye
+ * @param <T> The type of the query's output.
+ */
+public class Query<T> implements Iterable<T>
+{
+	/**
+	 * Creates a new query whose output is the elements of {@code source}.
+	 * @param source The source sequence.
+	 * @throws NullPointerException Thrown if {@code source} is null.
+	 */
+	public Query(Iterable<? extends T> source)
+	{
+		this(source,source instanceof List && source instanceof RandomAccess ? (List<?>)source : null,null,new Object[0],false);
+		
+		if(source == null)
+			throw new NullPointerException();
+		
+		return;
+	}
+	
+	/**
+	 * Creates a new query whose output is the elements of {@code source}.
+	 * @param source The source array. The query views the array rather than copying it.
+	 * @throws NullPointerException Thrown if {@code source} is null.
+	 */
+	public Query(T[] source)
+	{
+		this(Arrays.asList(source));
+		return;
+	}
+	
+	/**
+	 * Creates a new query.
+	 * @param source The source sequence.
+	 * @param indexed {@code source} as a random access list or null if it is not one.
+	 * @param pipeline Every stage of the query composed into one, or null if there are no stages.
+	 * @param stages The stages of the query in the order they apply. Each is either a {@code SingleInputPredicate} or a {@code SingleInputTransformation}.
+	 * @param filtered If true, some stage is a {@code SingleInputPredicate}.
+	 */
+	protected Query(Iterable<?> source, List<?> indexed, Stage pipeline, Object[] stages, boolean filtered)
+	{
+		Source = source;
+		Indexed = indexed;
+		
+		Pipeline = pipeline;
+		Stages = stages;
+		Filtered = filtered;
+		
+		return;
+	}
+	
+	/**
+	 * Filters this query's output to only those values which satisfy {@code predicate}.
+	 * @param predicate The predicate which decides whether to include or exclude values.
+	 * @return Returns a new query which outputs only values which satisfy {@code predicate}.
+	 * @throws NullPointerException Thrown if {@code predicate} is null.
+	 */
+	public Query<T> Where(SingleInputPredicate<T> predicate)
+	{
+		if(predicate == null)
+			throw new NullPointerException();
+		
+		Stage prev = Pipeline;
+		Stage next;
+		
+		if(prev == null)
+			next = o -> ((SingleInputPredicate<Object>)predicate).Evaluate(o) ? o : SKIP;
+		else
+			next = o -> (o = prev.Apply(o)) != SKIP && ((SingleInputPredicate<Object>)predicate).Evaluate(o) ? o : SKIP;
+		
+		return new Query<T>(Source,Indexed,next,Append(predicate),true);
+	}
+	
+	/**
+	 * Transforms this query's output.
+	 * @param <O> The transformed type.
+	 * @param transformation The transformation to apply to each value.
+	 * @return Returns a new query which outputs the transformed values.
+	 * @throws NullPointerException Thrown if {@code transformation} is null.
+	 */
+	public <O> Query<O> Select(SingleInputTransformation<T,O> transformation)
+	{
+		if(transformation == null)
+			throw new NullPointerException();
+		
+		Stage prev = Pipeline;
+		Stage next;
+		
+		if(prev == null)
+			next = o -> ((SingleInputTransformation<Object,Object>)transformation).Evaluate(o);
+		else if(Filtered)
+			next = o -> (o = prev.Apply(o)) == SKIP ? SKIP : ((SingleInputTransformation<Object,Object>)transformation).Evaluate(o);
+		else
+			next = o -> ((SingleInputTransformation<Object,Object>)transformation).Evaluate(prev.Apply(o)); // Without filters, SKIP can never appear
+		
+		return new Query<O>(Source,Indexed,next,Append(transformation),Filtered);
+	}
+	
+	/**
+	 * Selects an {@code int} from each value this query outputs without boxing it.
+	 * @param selector Selects a value from each output value.
+	 * @return Returns a new primitive query which outputs the selected values.
+	 * @throws NullPointerException Thrown if {@code selector} is null.
+	 */
+	public IntQuery SelectInt(IntQuery.IntSelector<? super T> selector)
+	{return new IntQuery(this,selector);}
+	
+	/**
+	 * Selects a {@code long} from each value this query outputs without boxing it.
+	 * @param selector Selects a value from each output value.
+	 * @return Returns a new primitive query which outputs the selected values.
+	 * @throws NullPointerException Thrown if {@code selector} is null.
+	 */
+	public LongQuery SelectLong(LongQuery.LongSelector<? super T> selector)
+	{return new LongQuery(this,selector);}
+	
+	/**
+	 * Selects a {@code double} from each value this query outputs without boxing it.
+	 * @param selector Selects a value from each output value.
+	 * @return Returns a new primitive query which outputs the selected values.
+	 * @throws NullPointerException Thrown if {@code selector} is null.
+	 */
+	public DoubleQuery SelectDouble(DoubleQuery.DoubleSelector<? super T> selector)
+	{return new DoubleQuery(this,selector);}
+	
+	/**
+	 * Reverses this query's output.
+	 * If this query has no {@code Where} stages and a random access source, the result views the source backwards.
+	 * Otherwise, this query's output is computed once, immediately, and the result iterates over it backwards.
+	 * @return Returns a new query which outputs this query's output in reverse order.
+	 */
+	public Query<T> Reverse()
+	{
+		if(!Filtered && Indexed != null)
+		{
+			ReverseView view = new ReverseView(Indexed);
+			return new Query<T>(view,view,Pipeline,Stages,false);
+		}
+		
+		ReverseView view = new ReverseView(Arrays.asList(ToArray()));
+		return new Query<T>(view,view,null,new Object[0],false);
+	}
+	
+	/**
+	 * Sorts this query's output by {@code key}.
+	 * The sort is stable and lazy, so reading only the first few values of the result does not pay for sorting the rest.
+	 * @param <K> The key type.
+	 * @param key Obtains the key of each value.
+	 * @return Returns a new query which outputs this query's output from smallest to largest key.
+	 * @throws NullPointerException Thrown if {@code key} is null.
+	 */
+	public <K extends Comparable<? super K>> OrderedQuery<T> OrderBy(SingleInputTransformation<T,K> key)
+	{
+		if(key == null)
+			throw new NullPointerException();
+		
+		return new OrderedQuery<T>(this,(a,b) -> key.Evaluate(a).compareTo(key.Evaluate(b)));
+	}
+	
+	/**
+	 * Sorts this query's output by {@code key} in descending order.
+	 * The sort is stable and lazy, so reading only the first few values of the result does not pay for sorting the rest.
+	 * @param <K> The key type.
+	 * @param key Obtains the key of each value.
+	 * @return Returns a new query which outputs this query's output from largest to smallest key.
+	 * @throws NullPointerException Thrown if {@code key} is null.
+	 */
+	public <K extends Comparable<? super K>> OrderedQuery<T> OrderByDescending(SingleInputTransformation<T,K> key)
+	{
+		if(key == null)
+			throw new NullPointerException();
+		
+		return new OrderedQuery<T>(this,(a,b) -> key.Evaluate(b).compareTo(key.Evaluate(a)));
+	}
+	
+	/**
+	 * Sorts this query's output with {@code cmp}.
+	 * The sort is stable and lazy, so reading only the first few values of the result does not pay for sorting the rest.
+	 * @param cmp The order to sort by.
+	 * @return Returns a new query which outputs this query's output in the order given by {@code cmp}.
+	 * @throws NullPointerException Thrown if {@code cmp} is null.
+	 */
+	public OrderedQuery<T> OrderBy(Comparator<? super T> cmp)
+	{
+		if(cmp == null)
+			throw new NullPointerException();
+		
+		return new OrderedQuery<T>(this,cmp);
+	}
+	
+	/**
+	 * Counts the values output by this query.
+	 * @return Returns the number of values output.
+	 */
+	public int Count()
+	{
+		int ret = KnownCount();
+		
+		if(ret >= 0)
+			return ret;
+		
+		ret = 0;
+		
+		for(Object o : Source)
+			if(Apply(o) != SKIP)
+				ret++;
+		
+		return ret;
+	}
+	
+	/**
+	 * Obtains the value at index {@code index} of this query's output.
+	 * @param index The index of the value.
+	 * @return Returns the value at {@code index}.
+	 * @throws IndexOutOfBoundsException Thrown if {@code index} is negative or at least {@code Count()}.
+	 */
+	public T ElementAt(int index)
+	{
+		if(index < 0)
+			throw new IndexOutOfBoundsException();
+		
+		if(!Filtered && Indexed != null)
+		{
+			if(index >= Indexed.size())
+				throw new IndexOutOfBoundsException();
+			
+			return (T)Apply(Indexed.get(index));
+		}
+		
+		for(Object o : Source)
+			if((o = Apply(o)) != SKIP && index-- == 0)
+				return (T)o;
+		
+		throw new IndexOutOfBoundsException();
+	}
+	
+	/**
+	 * Obtains the first value output by this query.
+	 * @return Returns the first value.
+	 * @throws NoSuchElementException Thrown if this query has no output.
+	 */
+	public T First()
+	{
+		for(Object o : Source)
+			if((o = Apply(o)) != SKIP)
+				return (T)o;
+		
+		throw new NoSuchElementException();
+	}
+	
+	/**
+	 * Determines if this query has any output.
+	 */
+	public boolean Any()
+	{
+		int n = KnownCount();
+		
+		if(n >= 0)
+			return n > 0;
+		
+		for(Object o : Source)
+			if(Apply(o) != SKIP)
+				return true;
+		
+		return false;
+	}
+	
+	/**
+	 * Determines if any value output by this query satisfies {@code predicate}.
+	 * @param predicate The predicate to test.
+	 * @return Returns true if some value satisfies {@code predicate} and false otherwise.
+	 * @throws NullPointerException Thrown if {@code predicate} is null.
+	 */
+	public boolean Any(SingleInputPredicate<T> predicate)
+	{return Where(predicate).Any();}
+	
+	/**
+	 * Collects the values output by this query into an array.
+	 * If the length of the output is known in advance, the array is allocated once at exactly that length.
+	 * @return Returns a new array containing the output values. As with {@code LINQ.ToArray}, its runtime type is {@code Object[]}.
+	 */
+	public T[] ToArray()
+	{
+		int n = KnownCount();
+		
+		if(n >= 0)
+		{
+			T[] ret = (T[])new Object[n];
+			
+			if(Indexed != null)
+				for(int i = 0;i < n;i++)
+					ret[i] = (T)Apply(Indexed.get(i));
+			else
+			{
+				int i = 0;
+				
+				for(Object o : Source)
+					ret[i++] = (T)Apply(o);
+			}
+			
+			return ret;
+		}
+		
+		T[] ret = (T[])new Object[16];
+		int i = 0;
+		
+		for(Object o : Source)
+			if((o = Apply(o)) != SKIP)
+			{
+				if(i == ret.length)
+					ret = Arrays.copyOf(ret,ret.length << 1);
+				
+				ret[i++] = (T)o;
+			}
+		
+		return i == ret.length ? ret : Arrays.copyOf(ret,i);
+	}
+	
+	/**
+	 * Creates a parallel query with the same source and stages as this query.
+	 * @return Returns a new ordered parallel query.
+	 */
+	@SuppressWarnings("unchecked") public ParallelQuery<T> AsParallel()
+	{
+		ParallelQuery<Object> ret = new ParallelQuery<Object>(Source);
+		
+		for(Object stage : Stages)
+			if(stage instanceof SingleInputPredicate)
+				ret = ret.Where((SingleInputPredicate<Object>)stage);
+			else
+				ret = ret.Select((SingleInputTransformation<Object,Object>)stage);
+		
+		return (ParallelQuery<T>)ret;
+	}
+	
+	public Iterator<T> iterator()
+	{
+		// The unfiltered case needs no lookahead, so it gets a simpler iterator
+		if(!Filtered)
+		{
+			return new Iterator<T>()
+			{
+				public boolean hasNext()
+				{return Iter.hasNext();}
+				
+				public T next()
+				{return (T)Apply(Iter.next());}
+				
+				protected Iterator<?> Iter = Source.iterator();
+			};
+		}
+		
+		return new Iterator<T>()
+		{
+			public boolean hasNext()
+			{
+				while(Next == SKIP && Iter.hasNext())
+					Next = Apply(Iter.next());
+				
+				return Next != SKIP;
+			}
+			
+			public T next()
+			{
+				if(!hasNext())
+					throw new NoSuchElementException();
+				
+				T ret = (T)Next;
+				Next = SKIP;
+				
+				return ret;
+			}
+			
+			protected Iterator<?> Iter = Source.iterator();
+			protected Object Next = SKIP;
+		};
+	}
+	
+	/**
+	 * Determines the length of this query's output without iterating its source if possible.
+	 * @return Returns the length of the output or -1 if it cannot be determined without iterating.
+	 */
+	protected int KnownCount()
+	{
+		if(Filtered)
+			return -1;
+		
+		if(Source instanceof Collection)
+			return ((Collection<?>)Source).size();
+		
+		if(Source instanceof ICollection)
+			return ((ICollection<?>)Source).Count();
+		
+		return -1;
+	}
+	
+	/**
+	 * Pushes a source element through every stage of this query.
+	 * @param o The source element.
+	 * @return Returns the output value or {@code SKIP} if some {@code Where} stage rejected it.
+	 */
+	protected Object Apply(Object o)
+	{return Pipeline == null ? o : Pipeline.Apply(o);}
+	
+	/**
+	 * Creates a copy of this query's stages with {@code stage} appended.
+	 */
+	protected Object[] Append(Object stage)
+	{
+		Object[] ret = Arrays.copyOf(Stages,Stages.length + 1);
+		ret[Stages.length] = stage;
+		
+		return ret;
+	}
+	
+	/**
+	 * The source sequence.
+	 */
+	protected final Iterable<?> Source;
+	
+	/**
+	 * The source sequence as a random access list or null if it is not one.
+	 */
+	protected final List<?> Indexed;
+	
+	/**
+	 * Every stage of the query composed into one, or null if there are no stages.
+	 */
+	protected final Stage Pipeline;
+	
+	/**
+	 * The stages of the query in the order they apply.
+	 * Each is either a {@code SingleInputPredicate} or a {@code SingleInputTransformation}.
+	 * We keep these separately from {@code Pipeline} so that they can be replayed onto a {@code ParallelQuery}.
+	 */
+	protected final Object[] Stages;
+	
+	/**
+	 * If true, some stage is a {@code SingleInputPredicate}.
+	 */
+	protected final boolean Filtered;
+	
+	/**
+	 * Marks a source element rejected by a {@code Where} stage.
+	 */
+	protected static final Object SKIP = new Object();
+	
+	/**
+	 * Pushes a source element through one or more stages of a query.
+	 * @author Dawn Nye
+	 */
+	@FunctionalInterface protected interface Stage
+	{
+		/**
+		 * Pushes {@code o} through the stages.
+		 * @return Returns the output value or {@code SKIP} if some {@code Where} stage rejected it.
+		 */
+		public abstract Object Apply(Object o);
+	}
+	
+	/**
+	 * Views a random access list backwards.
+	 * @author Dawn Nye
+	 */
+	protected static class ReverseView extends AbstractList<Object> implements RandomAccess
+	{
+		/**
+		 * Creates a new reverse view.
+		 * @param list The list to view backwards.
+		 */
+		public ReverseView(List<?> list)
+		{
+			List = list;
+			return;
+		}
+		
+		public Object get(int index)
+		{
+			if(index < 0 || index >= List.size())
+				throw new IndexOutOfBoundsException();
+			
+			return List.get(List.size() - 1 - index);
+		}
+		
+		public int size()
+		{return List.size();}
+		
+		/**
+		 * The list being viewed.
+		 */
+		protected List<?> List;
+	}
+}
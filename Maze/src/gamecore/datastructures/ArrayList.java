@@ -6,13 +6,14 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
+import java.util.RandomAccess;
 
 /**
  * A dynamically expanding/contracting list of items backed by an array.
  * @author Dawn Nye
  * @param <T> The type of data stored in the list.
  */
-public class ArrayList<T> implements List<T>, ICollection<T>
+public class ArrayList<T> implements List<T>, ICollection<T>, RandomAccess
 {
 	/**
 	 * Creates an empty array list.
@@ -1,5 +1,6 @@
 package gamecore.datastructures;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -9,6 +10,7 @@ import gamecore.datastructures.tuples.KeyValuePair;
  * A dictionary class.
  * Maps keys to values.
  * Neither duplicate nor null keys are allowed, but null and duplicate values are acceptable.
+ * Keys are stored in an {@code OpenHashTable} with their values in a parallel array, so every operation on a single key probes the table exactly once and allocates nothing beyond what it returns.
  * @author Dawn Nye
  * @param <K> The key type.
  * @param <V> The value type.
@@ -20,7 +22,19 @@ public class Dictionary<K,V> implements ICollection<KeyValuePair<K,V>>
 	 */
 	public Dictionary()
 	{
-		Entries = new HashTable<KeyValuePair<K,V>>();
+		this(16);
+		return;
+	}
+	
+	/**
+	 * Creates an empty dictionary.
+	 * @param c The initial capacity. This is rounded up to a power of two.
+	 */
+	public Dictionary(int c)
+	{
+		KeyTable = new KeySet(c);
+		ValueTable = new Object[KeyTable.Capacity()];
+		
 		return;
 	}
 	
@@ -31,12 +45,36 @@ public class Dictionary<K,V> implements ICollection<KeyValuePair<K,V>>
 	 */
 	public Dictionary(Iterable<? extends KeyValuePair<K,V>> seed)
 	{
-		Entries = new HashTable<KeyValuePair<K,V>>();
+		this(16);
 		AddAll(seed);
 		
 		return;
 	}
 	
+	/**
+	 * Finds the slot containing {@code key} or, failing that, the empty slot where it would be placed.
+	 * @param key The key to look for.
+	 * @return Returns the index of the slot containing {@code key} if it exists. Otherwise, returns {@code -(i + 1)} where {@code i} is the empty slot ending its probe.
+	 * @throws NullPointerException Thrown if {@code key} is null.
+	 */
+	protected int Find(Object key)
+	{return KeyTable.Find(key);}
+	
+	/**
+	 * Places a new key-value pair into the empty slot {@code i} found by {@code Find} and grows the tables if necessary.
+	 * @param i The empty slot.
+	 * @param key The key to place.
+	 * @param value The value to place.
+	 */
+	protected void Insert(int i, K key, V value)
+	{
+		// The value has to be in place before the key table decides to grow and carries it along
+		ValueTable[i] = value;
+		KeyTable.Insert(i,key);
+		
+		return;
+	}
+	
 	/**
 	 * Puts a key-value pair into the dictionary.
 	 * If {@code key} is already in the dictionary, then its mapping is overwritten with this new mapping.
@@ -47,18 +85,18 @@ public class Dictionary<K,V> implements ICollection<KeyValuePair<K,V>>
 	 */
 	public V Put(K key, V value)
 	{
-		if(key == null)
-			throw new NullPointerException();
+		int i = Find(key);
 		
-		KeyValuePair<K,V> ret = TryGet(key);
+		if(i < 0)
+		{
+			Insert(-i - 1,key,value);
+			return value;
+		}
 		
-		if(ret == null)
-			ret = new KeyValuePair<K,V>(key,value);
-		else
-			RemoveByKey(key);
+		V ret = (V)ValueTable[i];
+		ValueTable[i] = value;
 		
-		Entries.add(new KeyValuePair<K,V>(key,value));
-		return ret.Item2;
+		return ret;
 	}
 	
 	/**
@@ -70,31 +108,31 @@ public class Dictionary<K,V> implements ICollection<KeyValuePair<K,V>>
 	 */
 	public boolean Add(K key, V value)
 	{
-		if(key == null)
-			throw new NullPointerException();
+		int i = Find(key);
 		
-		if(ContainsKey(key))
+		if(i >= 0)
 			return false;
 		
-		return Entries.add(new KeyValuePair<K,V>(key,value));
+		Insert(-i - 1,key,value);
+		return true;
 	}
 	
 	/**
 	 * Adds a group of keys and values to the dictionary.
 	 * @param c The key-value pairs to put into the dictionary. Null entries, null keys, and duplicate keys will be excised from it before populating the dictionary.
 	 * @return Returns true if at least one item was added to the dictionary.
-	 * @throws NullPointerException Thrown if {@code c} is null or any key in {@code c} is null.
+	 * @throws NullPointerException Thrown if {@code c} is null.
 	 */
 	public boolean AddAll(Iterable<? extends KeyValuePair<K,V>> c)
 	{
-		LinkedList<KeyValuePair<K,V>> l = new LinkedList<KeyValuePair<K,V>>();
+		boolean ret = false;
 		
-		// It's slightly more efficient to work with three smaller data sets to rip out the problem keys first, so we do so
+		// Keys already present (including duplicates earlier in c) are rejected by Add, so the first occurrence of each key wins
 		for(KeyValuePair<K,V> p : c)
-			if(p != null && p.Item1 != null && !l.contains(p) && !ContainsKey(p.Item1))
-				l.add(p);
+			if(p != null && p.Item1 != null && Add(p.Item1,p.Item2))
+				ret = true;
 		
-		return Entries.addAll(l);
+		return ret;
 	}
 	
 	/**
@@ -105,12 +143,30 @@ public class Dictionary<K,V> implements ICollection<KeyValuePair<K,V>>
 	 */
 	public V Get(K key)
 	{
-		KeyValuePair<K,V> ret = Entries.get(new KeyValuePair<K,V>(key,null));
+		if(key == null)
+			throw new NoSuchElementException();
+		
+		int i = Find(key);
 		
-		if(ret == null)
+		if(i < 0)
 			throw new NoSuchElementException();
 		
-		return ret.Item2;
+		return (V)ValueTable[i];
+	}
+	
+	/**
+	 * Gets the value associated with {@code key} if there is one.
+	 * @param key The key to search for.
+	 * @param def The value to return if {@code key} is not in the dictionary.
+	 * @return Returns the value associated with {@code key} or {@code def} if it does not exist.
+	 */
+	public V GetOrDefault(K key, V def)
+	{
+		if(key == null)
+			return def;
+		
+		int i = Find(key);
+		return i < 0 ? def : (V)ValueTable[i];
 	}
 	
 	/**
@@ -119,7 +175,71 @@ public class Dictionary<K,V> implements ICollection<KeyValuePair<K,V>>
 	 * @return Returns the key-value pair associated with {@code key} or null if it does not exist.
 	 */
 	public KeyValuePair<K,V> TryGet(K key)
-	{return Entries.get(new KeyValuePair<K,V>(key,null));}
+	{
+		if(key == null)
+			return null;
+		
+		int i = Find(key);
+		return i < 0 ? null : new KeyValuePair<K,V>((K)KeyTable.Table[i],(V)ValueTable[i]);
+	}
+	
+	/**
+	 * Gets the value associated with {@code key}, first creating and adding it if it does not exist.
+	 * @param key The key to search for.
+	 * @param factory Creates the value for {@code key} if it is not in the dictionary. This is not called if {@code key} is already present, even if its value is null.
+	 * @return Returns the value associated with {@code key}.
+	 * @throws NullPointerException Thrown if {@code key} or {@code factory} is null.
+	 */
+	public V ComputeIfAbsent(K key, ValueFactory<? super K,? extends V> factory)
+	{
+		int i = Find(key);
+		
+		if(i >= 0)
+			return (V)ValueTable[i];
+		
+		// The factory may modify the dictionary, in which case our empty slot may no longer be valid
+		int mods = KeyTable.Modifications;
+		V ret = factory.Create(key);
+		
+		if(mods == KeyTable.Modifications)
+			Insert(-i - 1,key,ret);
+		else
+			Put(key,ret);
+		
+		return ret;
+	}
+	
+	/**
+	 * Merges {@code value} into the value associated with {@code key}.
+	 * If {@code key} is not in the dictionary, it is mapped to {@code value}.
+	 * Otherwise, it is mapped to the result of {@code merger} applied to its old value and {@code value}.
+	 * @param key The key to merge into.
+	 * @param value The value to merge.
+	 * @param merger Combines the old value with {@code value}. The result is stored even if it is null.
+	 * @return Returns the value now associated with {@code key}.
+	 * @throws NullPointerException Thrown if {@code key} or {@code merger} is null.
+	 */
+	public V Merge(K key, V value, ValueMerger<V> merger)
+	{
+		int i = Find(key);
+		
+		if(i < 0)
+		{
+			Insert(-i - 1,key,value);
+			return value;
+		}
+		
+		// The merger may modify the dictionary too, in which case the key may have moved or gone
+		int mods = KeyTable.Modifications;
+		V ret = merger.Merge((V)ValueTable[i],value);
+		
+		if(mods == KeyTable.Modifications)
+			ValueTable[i] = ret;
+		else
+			Put(key,ret);
+		
+		return ret;
+	}
 	
 	/**
 	 * Removes the dictionary entry with key {@code key} if it exists.
@@ -127,7 +247,18 @@ public class Dictionary<K,V> implements ICollection<KeyValuePair<K,V>>
 	 * @return Returns true if the key was removed and false otherwise.
 	 */
 	public boolean RemoveByKey(K key)
-	{return Entries.remove(new KeyValuePair<K,V>(key,null));}
+	{
+		if(key == null)
+			return false;
+		
+		int i = Find(key);
+		
+		if(i < 0)
+			return false;
+		
+		KeyTable.Delete(i);
+		return true;
+	}
 	
 	/**
 	 * Determines if the dictionary contains the key {@code k}.
@@ -135,12 +266,7 @@ public class Dictionary<K,V> implements ICollection<KeyValuePair<K,V>>
 	 * @return Returns true if the dictionary contains the key and false otherwise.
 	 */
 	public boolean ContainsKey(K k)
-	{
-		if(k == null)
-			return false;
-		
-		return Entries.contains(new KeyValuePair<K,V>(k,null));
-	}
+	{return k != null && Find(k) >= 0;}
 	
 	/**
 	 * Determines if the dictionary contains every key in {@code keys}.
@@ -189,31 +315,29 @@ public class Dictionary<K,V> implements ICollection<KeyValuePair<K,V>>
 	 */
 	public boolean Remove(KeyValuePair<K,V> t)
 	{
-		if(t == null)
+		if(t == null || t.Item1 == null)
 			return false;
 		
-		KeyValuePair<K,V> p = TryGet(t.Item1);
+		int i = Find(t.Item1);
 		
-		if(p == null)
+		if(i < 0 || !(ValueTable[i] == null ? t.Item2 == null : ValueTable[i].equals(t.Item2)))
 			return false;
 		
-		if(p.Item2 == null ? t.Item2 == null : p.Item2.equals(t.Item2))
-			RemoveByKey(t.Item1);
-		
-		return false;
+		KeyTable.Delete(i);
+		return true;
 	}
 	
 	public boolean Contains(KeyValuePair<K,V> t)
 	{
-		if(t == null)
+		if(t == null || t.Item1 == null)
 			return false;
 		
-		KeyValuePair<K,V> p = TryGet(t.Item1);
+		int i = Find(t.Item1);
 		
-		if(p == null)
+		if(i < 0)
 			return false;
 		
-		return p.Item2 == null ? t.Item2 == null : p.Item2.equals(t.Item2);
+		return ValueTable[i] == null ? t.Item2 == null : ValueTable[i].equals(t.Item2);
 	}
 	
 	/**
@@ -221,7 +345,7 @@ public class Dictionary<K,V> implements ICollection<KeyValuePair<K,V>>
 	 */
 	public void Clear()
 	{
-		Entries.clear();
+		KeyTable.clear();
 		return;
 	}
 	
@@ -230,7 +354,7 @@ public class Dictionary<K,V> implements ICollection<KeyValuePair<K,V>>
 	 * @return Returns the number of entries in the dictionary.
 	 */
 	public int Count()
-	{return Entries.size();}
+	{return KeyTable.size();}
 	
 	/**
 	 * Determines if the dictionary is empty.
@@ -239,8 +363,26 @@ public class Dictionary<K,V> implements ICollection<KeyValuePair<K,V>>
 	public boolean IsEmpty()
 	{return Count() == 0;}
 	
+	/**
+	 * Iterates over the key-value pairs of the dictionary.
+	 * Each pair is created as it is visited, so iterating over {@code Keys} or {@code Values} is preferable when only one or the other is needed.
+	 */
 	public Iterator<KeyValuePair<K,V>> iterator()
-	{return Entries.iterator();}
+	{
+		return new Iterator<KeyValuePair<K,V>>()
+		{
+			public boolean hasNext()
+			{return Slots.hasNext();}
+			
+			public KeyValuePair<K,V> next()
+			{
+				int i = Slots.NextSlot();
+				return new KeyValuePair<K,V>((K)KeyTable.Table[i],(V)ValueTable[i]);
+			}
+			
+			protected OpenHashTable<K>.SlotIterator Slots = KeyTable.new SlotIterator();
+		};
+	}
 	
 	/**
 	 * Obtains the keys in the dictionary.
@@ -272,36 +414,116 @@ public class Dictionary<K,V> implements ICollection<KeyValuePair<K,V>>
 	{
 		String ret = "";
 		
-		for(KeyValuePair<K,V> p : this)
-			ret += p.Item1 + " -> " + p.Item2 + "\n";
+		for(int i = 0;i < ValueTable.length;i++)
+			if(KeyTable.Table[i] != null)
+				ret += KeyTable.Table[i] + " -> " + ValueTable[i] + "\n";
 		
 		return ret.substring(0,ret.length() - 1);
 	}
 	
 	/**
-	 * The backing data structure for the dictionary.
+	 * The keys of the dictionary.
 	 */
-	protected HashTable<KeyValuePair<K,V>> Entries;
+	protected final KeySet KeyTable;
 	
 	/**
-	 * Iterates over the keys of a dictionary.
+	 * The values of the dictionary.
+	 * The value of the key in slot {@code i} of {@code KeyTable} is {@code ValueTable[i]}.
+	 */
+	protected Object[] ValueTable;
+	
+	/**
+	 * The maximum Count/Capacity ratio allowed before the tables grow.
+	 */
+	protected static final double LOAD_FACTOR = 0.75;
+	
+	/**
+	 * The hash table of a dictionary's keys.
+	 * It carries each key's value along with it whenever it moves the key to another slot.
 	 * @author Dawn Nye
 	 */
-	protected class KeyIterator implements Iterator<K>
+	protected class KeySet extends OpenHashTable<K>
 	{
-		public KeyIterator()
+		/**
+		 * Creates an empty key set.
+		 * @param c The initial capacity. This is rounded up to a power of two.
+		 */
+		public KeySet(int c)
+		{
+			super(c,LOAD_FACTOR);
+			return;
+		}
+		
+		@Override protected void Move(int from, int to)
+		{
+			super.Move(from,to);
+			ValueTable[to] = ValueTable[from];
+			
+			return;
+		}
+		
+		@Override protected void Vacate(int i)
 		{
-			Iter = iterator();
+			super.Vacate(i);
+			ValueTable[i] = null;
+			
 			return;
 		}
 		
+		@Override protected void Resize(int c)
+		{
+			Object[] keys = Table;
+			Object[] values = ValueTable;
+			
+			Table = new Object[c];
+			ValueTable = new Object[c];
+			Mask = c - 1;
+			Modifications++;
+			
+			for(int i = 0;i < keys.length;i++)
+				if(keys[i] != null)
+				{
+					int j = Vacancy(keys[i]);
+					
+					Table[j] = keys[i];
+					ValueTable[j] = values[i];
+				}
+			
+			return;
+		}
+		
+		@Override public void clear()
+		{
+			super.clear();
+			ValueTable = new Object[Table.length];
+			
+			return;
+		}
+		
+		/**
+		 * Keys cannot be filtered without their values, so this is not supported.
+		 * @throws UnsupportedOperationException Always thrown.
+		 */
+		@Override public boolean retainAll(Collection<?> c)
+		{throw new UnsupportedOperationException();}
+	}
+	
+	/**
+	 * Iterates over the keys of a dictionary.
+	 * @author Dawn Nye
+	 */
+	protected class KeyIterator implements Iterator<K>
+	{
 		public boolean hasNext()
-		{return Iter.hasNext();}
+		{return Slots.hasNext();}
 		
 		public K next()
-		{return Iter.next().Item1;}
+		{return (K)KeyTable.Table[Slots.NextSlot()];}
 		
-		protected Iterator<KeyValuePair<K,V>> Iter;
+		/**
+		 * The occupied slots of the key table.
+		 */
+		protected OpenHashTable<K>.SlotIterator Slots = KeyTable.new SlotIterator();
 	}
 	
 	/**
@@ -310,18 +532,44 @@ public class Dictionary<K,V> implements ICollection<KeyValuePair<K,V>>
 	 */
 	protected class ValueIterator implements Iterator<V>
 	{
-		public ValueIterator()
-		{
-			Iter = iterator();
-			return;
-		}
-		
 		public boolean hasNext()
-		{return Iter.hasNext();}
+		{return Slots.hasNext();}
 		
 		public V next()
-		{return Iter.next().Item2;}
+		{return (V)ValueTable[Slots.NextSlot()];}
 		
-		protected Iterator<KeyValuePair<K,V>> Iter;
+		/**
+		 * The occupied slots of the key table.
+		 */
+		protected OpenHashTable<K>.SlotIterator Slots = KeyTable.new SlotIterator();
+	}
+	
+	/**
+	 * Creates the value of a key absent from a dictionary.
+	 * @author Dawn Nye
+	 */
+	@FunctionalInterface public interface ValueFactory<K,V>
+	{
+		/**
+		 * Creates the value of {@code key}.
+		 * @param key The key needing a value.
+		 * @return Returns the value to associate with {@code key}.
+		 */
+		public V Create(K key);
+	}
+	
+	/**
+	 * Combines an existing dictionary value with a new one.
+	 * @author Dawn Nye
+	 */
+	@FunctionalInterface public interface ValueMerger<V>
+	{
+		/**
+		 * Combines {@code old} with {@code value}.
+		 * @param old The value already in the dictionary.
+		 * @param value The value being merged into it.
+		 * @return Returns the combined value.
+		 */
+		public V Merge(V old, V value);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package gamecore.datastructures;
+
+/**
+ * Describes a collection of things which can be looked up by where they are.
+ * Each item occupies the bounding box given to it by a {@link BoundaryExtractor} as of when it was added.
+ * An implementation of this interface may be a bounding volume hierarchy such as an AABB tree, a uniform grid, a spatial hash, or any other related data structure.
+ * @author Dawn Nye
+ * @param <T> The type stored in the index.
+ */
+public interface ISpatialIndex<T> extends ICollection<T>
+{
+	/**
+	 * Adds every item of {@code c} to the index.
+	 * Implementations may take advantage of knowing many items at once to build a better index than they would by adding them one at a time.
+	 * @param c The items to add.
+	 * @return Returns the number of items added.
+	 * @throws NullPointerException Thrown if {@code c} is null.
+	 */
+	public default int BulkAdd(Iterable<? extends T> c)
+	{
+		int ret = 0;
+		
+		for(T t : c)
+			if(Add(t))
+				ret++;
+		
+		return ret;
+	}
+	
+	/**
+	 * Visits every item whose bounding box intersects {@code area}.
+	 * Each such item is visited once.
+	 * The index must not be modified until the query finishes, but the visitor may itself query this index.
+	 * @param area The area to look for things in.
+	 * @param visitor The visitor to pass each item to. If it returns false, the query stops immediately.
+	 * @return Returns true if every intersecting item was visited and false if the visitor stopped the query early.
+	 * @throws NullPointerException Thrown if {@code area} or {@code visitor} is null.
+	 */
+	public boolean Query(CellRectangle area, Visitor<? super T> visitor);
+	
+	/**
+	 * Determines if this index can be queried by several threads at once.
+	 * The index must still not be modified while any of them are querying it.
+	 * @return Returns true if concurrent queries are safe and false otherwise.
+	 */
+	public default boolean ConcurrentQueries()
+	{return false;}
+	
+	/**
+	 * Visits the results of a query.
+	 * @author Dawn Nye
+	 * @param <E> The type of data to visit.
+	 */
+	@FunctionalInterface public interface Visitor<E>
+	{
+		/**
+		 * Visits a piece of data.
+		 * @param data The data to visit.
+		 * @return Returns true if the query should continue and false if it should stop.
+		 */
+		public abstract boolean Visit(E data);
+	}
+	
+	/**
+	 * Extracts a bounding box from a generic type.
+	 * @author Dawn Nye
+	 * @param <E> The type of data to extract a bounding box from.
+	 */
+	@FunctionalInterface public interface BoundaryExtractor<E>
+	{
+		/**
+		 * Extracts a bounding box from a generic piece of data.
+		 * @param data The data to extract a bounding box from.
+		 * @return Returns the bounding box for the provided data or null if no bounding box exists (perhaps when {@code data} is null).
+		 */
+		public abstract CellRectangle ExtractBoundary(E data);
+	}
+}
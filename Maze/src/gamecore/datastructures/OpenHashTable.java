@@ -0,0 +1,596 @@
+package gamecore.datastructures;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import gamecore.LINQ.LINQ.EqualityPredicate;
+import gamecore.LINQ.LINQ.HashFunction;
+
+/**
+ * Stores values in a hash table.
+ * Collisions are resolved with linear probing into a single flat array whose capacity is always a power of two.
+ * Removals shift later entries of the same probe run backward rather than leaving tombstones, so lookups never probe past an empty slot.
+ * Entries may be compared and hashed with custom functions in place of {@code equals} and {@code hashCode}.
+ * Duplicate values are allowed, but null entries are prohibited.
+ * @author Dawn Nye
+ * @param <T> The type of values to store in the table.
+ */
+public class OpenHashTable<T> implements Collection<T>, ICollection<T>
+{
+	/**
+	 * Creates an empty hash table.
+	 */
+	public OpenHashTable()
+	{
+		this(null,16,0.75,false,null,null);
+		return;
+	}
+	
+	/**
+	 * Creates a hash table.
+	 * @param seed The initial population of the hash table.
+	 * @throws NullPointerException Thrown if {@code seed} is null.
+	 */
+	public OpenHashTable(Iterable<? extends T> seed)
+	{
+		this(seed,16,0.75,true,null,null);
+		return;
+	}
+	
+	/**
+	 * Creates an empty hash table.
+	 * @param c The initial capacity. This is rounded up to a power of two.
+	 */
+	public OpenHashTable(int c)
+	{
+		this(null,c,0.75,false,null,null);
+		return;
+	}
+	
+	/**
+	 * Creates a hash table.
+	 * @param seed The initial population of the hash table.
+	 * @param c The initial capacity. This is rounded up to a power of two.
+	 * @throws NullPointerException Thrown if {@code seed} is null.
+	 */
+	public OpenHashTable(Iterable<? extends T> seed, int c)
+	{
+		this(seed,c,0.75,true,null,null);
+		return;
+	}
+	
+	/**
+	 * Creates an empty hash table.
+	 * @param c The initial capacity. This is rounded up to a power of two.
+	 * @param l The load factor. This value is clamped to [0.5,0.9].
+	 */
+	public OpenHashTable(int c, double l)
+	{
+		this(null,c,l,false,null,null);
+		return;
+	}
+	
+	/**
+	 * Creates a hash table.
+	 * @param seed The initial population of the hash table.
+	 * @param c The initial capacity. This is rounded up to a power of two.
+	 * @param l The load factor. This value is clamped to [0.5,0.9].
+	 * @throws NullPointerException Thrown if {@code seed} is null.
+	 */
+	public OpenHashTable(Iterable<? extends T> seed, int c, double l)
+	{
+		this(seed,c,l,true,null,null);
+		return;
+	}
+	
+	/**
+	 * Creates an empty hash table which compares and hashes its entries with custom functions.
+	 * @param equality Determines if two entries are the same. If this is null, {@code equals} is used.
+	 * @param hash Hashes entries consistently with {@code equality}. If this is null, {@code hashCode} is used.
+	 */
+	public OpenHashTable(EqualityPredicate<? super T> equality, HashFunction<? super T> hash)
+	{
+		this(null,16,0.75,false,equality,hash);
+		return;
+	}
+	
+	/**
+	 * Creates an empty hash table which compares and hashes its entries with custom functions.
+	 * @param c The initial capacity. This is rounded up to a power of two.
+	 * @param l The load factor. This value is clamped to [0.5,0.9].
+	 * @param equality Determines if two entries are the same. If this is null, {@code equals} is used.
+	 * @param hash Hashes entries consistently with {@code equality}. If this is null, {@code hashCode} is used.
+	 */
+	public OpenHashTable(int c, double l, EqualityPredicate<? super T> equality, HashFunction<? super T> hash)
+	{
+		this(null,c,l,false,equality,hash);
+		return;
+	}
+	
+	/**
+	 * Creates a hash table.
+	 * @param seed The initial population of the hash table.
+	 * @param c The initial capacity. This is rounded up to a power of two.
+	 * @param l The load factor. This value is clamped to [0.5,0.9].
+	 * @param not_null Determines if there is supposed to be a non null value for {@code seed}.
+	 * @param equality Determines if two entries are the same. If this is null, {@code equals} is used.
+	 * @param hash Hashes entries consistently with {@code equality}. If this is null, {@code hashCode} is used.
+	 * @throws NullPointerException Thrown if {@code seed} is null and {@code not_null} is true.
+	 */
+	protected OpenHashTable(Iterable<? extends T> seed, int c, double l, boolean not_null, EqualityPredicate<? super T> equality, HashFunction<? super T> hash)
+	{
+		if(not_null && seed == null)
+			throw new NullPointerException();
+		
+		Table = new Object[InitialCapacity = RoundUp(c)];
+		Mask = Table.length - 1;
+		
+		Count = 0;
+		Modifications = 0;
+		LoadFactor = Math.min(0.9,Math.max(0.5,l));
+		
+		Equality = equality;
+		Hash = hash;
+		
+		if(seed != null)
+			for(T t : seed)
+				add(t);
+		
+		return;
+	}
+	
+	/**
+	 * Rounds {@code c} up to the nearest power of two no smaller than 2.
+	 */
+	protected static int RoundUp(int c)
+	{return c <= 2 ? 2 : Integer.highestOneBit(c - 1) << 1;}
+	
+	/**
+	 * Determines the slot at which the probe for {@code o} begins.
+	 * The hash code is multiplied by the golden ratio and its high bits are folded down so that keys differing only in their high bits do not pile into the same probe run.
+	 * @param o The value to hash.
+	 * @return Returns the home slot of {@code o}.
+	 * @throws NullPointerException Thrown if {@code o} is null.
+	 */
+	protected int Home(Object o)
+	{
+		int h = (Hash == null ? o.hashCode() : Hash.Evaluate((T)o)) * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & Mask;
+	}
+	
+	/**
+	 * Determines if {@code a} and {@code b} are the same entry.
+	 * @param a The value being looked for. This is never null.
+	 * @param b An entry of the table. This is never null.
+	 * @return Returns true if {@code a} and {@code b} are the same and false otherwise.
+	 */
+	protected boolean Equal(Object a, Object b)
+	{return Equality == null ? a.equals(b) : Equality.Evaluate((T)a,(T)b);}
+	
+	/**
+	 * Finds the slot containing an entry equal to {@code o} or, failing that, the empty slot where it would be placed.
+	 * @param o The value to look for.
+	 * @return Returns the index of the slot containing {@code o} if it exists. Otherwise, returns {@code -(i + 1)} where {@code i} is the empty slot ending its probe.
+	 * @throws NullPointerException Thrown if {@code o} is null.
+	 */
+	protected int Find(Object o)
+	{
+		int i = Home(o);
+		
+		while(Table[i] != null)
+		{
+			if(Equal(o,Table[i]))
+				return i;
+			
+			i = (i + 1) & Mask;
+		}
+		
+		return -(i + 1);
+	}
+	
+	/**
+	 * Finds the first empty slot of the probe run of {@code o}.
+	 * This is where {@code o} would be placed if duplicates are acceptable.
+	 * @param o The value to place.
+	 * @return Returns the index of the empty slot.
+	 * @throws NullPointerException Thrown if {@code o} is null.
+	 */
+	protected int Vacancy(Object o)
+	{
+		int i = Home(o);
+		
+		while(Table[i] != null)
+			i = (i + 1) & Mask;
+		
+		return i;
+	}
+	
+	/**
+	 * Places {@code t} into the empty slot {@code i} found by {@code Find} or {@code Vacancy} and grows the table if necessary.
+	 * @param i The empty slot.
+	 * @param t The entry to place.
+	 */
+	protected void Insert(int i, T t)
+	{
+		Table[i] = t;
+		Modifications++;
+		
+		if(++Count > Table.length * LoadFactor)
+			Resize(Table.length << 1);
+		
+		return;
+	}
+	
+	/**
+	 * Empties slot {@code i} and shifts the later entries of its probe run backward to close the gap, then shrinks the table if necessary.
+	 * An entry is only shifted if its home slot does not lie cyclically between the gap and its current slot, since it would otherwise become unreachable.
+	 * @param i The slot to empty.
+	 */
+	protected void Delete(int i)
+	{
+		for(int j = (i + 1) & Mask;Table[j] != null;j = (j + 1) & Mask)
+		{
+			int k = Home(Table[j]);
+			
+			if(i <= j ? (i < k && k <= j) : (i < k || k <= j))
+				continue;
+			
+			Move(j,i);
+			i = j;
+		}
+		
+		Vacate(i);
+		Modifications++;
+		
+		if(--Count <= Table.length >> 2 && Table.length > InitialCapacity)
+			Resize(Table.length >> 1);
+		
+		return;
+	}
+	
+	/**
+	 * Moves the entry in slot {@code from} into the empty slot {@code to} while closing a gap left by a removal.
+	 * Tables storing more data alongside each entry should move that data as well.
+	 * @param from The occupied slot.
+	 * @param to The empty slot.
+	 */
+	protected void Move(int from, int to)
+	{
+		Table[to] = Table[from];
+		return;
+	}
+	
+	/**
+	 * Empties slot {@code i} for good once a removal has finished shifting entries.
+	 * Tables storing more data alongside each entry should release that data as well.
+	 * @param i The slot to empty.
+	 */
+	protected void Vacate(int i)
+	{
+		Table[i] = null;
+		return;
+	}
+	
+	/**
+	 * Moves every entry into a new table with capacity {@code c}.
+	 * Tables storing more data alongside each entry must override this to move that data as well.
+	 * @param c The new capacity. This must be a power of two.
+	 */
+	protected void Resize(int c)
+	{
+		Object[] old = Table;
+		
+		Table = new Object[c];
+		Mask = c - 1;
+		Modifications++;
+		
+		for(int i = 0;i < old.length;i++)
+			if(old[i] != null)
+				Table[Vacancy(old[i])] = old[i];
+		
+		return;
+	}
+	
+	public boolean Add(T t)
+	{return add(t);}
+	
+	/**
+	 * Adds {@code t} to this hash table if no entry equal to it is already present.
+	 * This probes the table only once.
+	 * @param t The value to add.
+	 * @return Returns true if {@code t} was added and false if an equal entry was already present.
+	 * @throws NullPointerException Thrown if {@code t} is null.
+	 */
+	public boolean AddIfAbsent(T t)
+	{
+		int i = Find(t);
+		
+		if(i >= 0)
+			return false;
+		
+		Insert(-i - 1,t);
+		return true;
+	}
+	
+	public boolean Remove(T t)
+	{return remove(t);}
+	
+	public boolean Contains(T t)
+	{return contains(t);}
+	
+	public void Clear()
+	{
+		clear();
+		return;
+	}
+	
+	public int Count()
+	{return size();}
+	
+	public boolean add(T t)
+	{
+		if(t == null)
+			throw new NullPointerException();
+		
+		Insert(Vacancy(t),t);
+		return true;
+	}
+	
+	public boolean addAll(Collection<? extends T> c)
+	{
+		boolean ret = false;
+		
+		for(T t : c)
+			if(add(t))
+				ret = true;
+		
+		return ret;
+	}
+	
+	/**
+	 * Gets the entry {@code key} if it exists in this hash table.
+	 * This is useful for when entries hold more data than are necessary to be equal, such as for a map of keys to values.
+	 * @param key The entry to look for.
+	 * @return Returns the entry {@code key} or null if no such entry exists.
+	 * @throws NullPointerException Thrown if {@code key} is null.
+	 */
+	public T get(T key)
+	{
+		int i = Find(key);
+		return i < 0 ? null : (T)Table[i];
+	}
+	
+	public boolean remove(Object o)
+	{
+		if(o == null)
+			return false;
+		
+		int i = Find(o);
+		
+		if(i < 0)
+			return false;
+		
+		Delete(i);
+		return true;
+	}
+	
+	public boolean removeAll(Collection<?> c)
+	{
+		boolean ret = false;
+		
+		for(Object obj : c)
+			while(remove(obj))
+				ret = true;
+		
+		return ret;
+	}
+	
+	public boolean retainAll(Collection<?> c)
+	{
+		Object[] old = Table;
+		int n = Count;
+		
+		// Removing entries in place would shift unvisited entries behind us, so we rebuild the table from the survivors instead
+		Table = new Object[old.length];
+		Count = 0;
+		Modifications++;
+		
+		for(int i = 0;i < old.length;i++)
+			if(old[i] != null && c.contains(old[i]))
+			{
+				Table[Vacancy(old[i])] = old[i];
+				Count++;
+			}
+		
+		if(Count <= Table.length >> 2 && Table.length > InitialCapacity)
+			Resize(Table.length >> 1);
+		
+		return Count != n;
+	}
+	
+	public boolean contains(Object o)
+	{return o != null && Find(o) >= 0;}
+	
+	public boolean containsAll(Collection<?> c)
+	{
+		for(Object t : c)
+			if(!contains(t))
+				return false;
+		
+		return true;
+	}
+	
+	public void clear()
+	{
+		Table = new Object[InitialCapacity];
+		Mask = Table.length - 1;
+		
+		Count = 0;
+		Modifications++;
+		
+		return;
+	}
+	
+	public int size()
+	{return Count;}
+	
+	public boolean isEmpty()
+	{return size() == 0;}
+	
+	public Iterator<T> iterator()
+	{return new OpenHashTableEntryIterator();}
+	
+	public Object[] toArray()
+	{
+		Object[] ret = new Object[size()];
+		int i = 0;
+		
+		for(int j = 0;j < Table.length;j++)
+			if(Table[j] != null)
+				ret[i++] = Table[j];
+		
+		return ret;
+	}
+	
+	public <E> E[] toArray(E[] a)
+	{
+		E[] ret = a.length >= size() ? a : (E[])Array.newInstance(a.getClass().getComponentType(),size());
+		int i = 0;
+		
+		for(int j = 0;j < Table.length;j++)
+			if(Table[j] != null)
+				ret[i++] = (E)Table[j];
+		
+		if(ret.length > size())
+			ret[size()] = null;
+		
+		return ret;
+	}
+	
+	@Override public String toString()
+	{
+		String ret = "";
+		
+		for(int i = 0;i < Table.length;i++)
+			ret += i + " -> " + (Table[i] == null ? "<no entry>" : Table[i].toString()) + "\n";
+		
+		return ret.substring(0,ret.length() - 1);
+	}
+	
+	/**
+	 * Determines the current load of the hash table.
+	 * @return Returns the value of Count / Capacity.
+	 */
+	protected double Load()
+	{return size() / (double)Capacity();}
+	
+	/**
+	 * Determines the maximum capacity of the hash table.
+	 * @return Return the capacity of the hash table.
+	 */
+	protected int Capacity()
+	{return Table.length;}
+	
+	/**
+	 * The backing data structure for the hash table.
+	 * Empty slots are null.
+	 */
+	protected Object[] Table;
+	
+	/**
+	 * One less than the capacity of the table, used to wrap probes around it.
+	 */
+	protected int Mask;
+	
+	/**
+	 * The number of values in the hash table.
+	 */
+	protected int Count;
+	
+	/**
+	 * The number of times an entry has been placed or removed or the table has been replaced.
+	 * Anything that remembers a slot across a call to user code can check this to see if the slot is still good.
+	 */
+	protected int Modifications;
+	
+	/**
+	 * The initial capacity of the hash table.
+	 */
+	protected int InitialCapacity;
+	
+	/**
+	 * The maximum Count/Capacity ratio allowed before the table grows.
+	 */
+	protected double LoadFactor;
+	
+	/**
+	 * The custom equality function or null to use {@code equals}.
+	 */
+	protected final EqualityPredicate<? super T> Equality;
+	
+	/**
+	 * The custom hash function or null to use {@code hashCode}.
+	 */
+	protected final HashFunction<? super T> Hash;
+	
+	/**
+	 * Iterates over the occupied slots of a hash table.
+	 * @author Dawn Nye
+	 */
+	protected class SlotIterator
+	{
+		/**
+		 * Creates a new slot iterator.
+		 */
+		public SlotIterator()
+		{
+			Slot = -1;
+			Index = -1;
+			
+			return;
+		}
+		
+		public boolean hasNext()
+		{return Index + 1 < size();}
+		
+		/**
+		 * Advances to the next occupied slot.
+		 * @return Returns the index of the slot.
+		 * @throws NoSuchElementException Thrown if there are no more entries.
+		 */
+		public int NextSlot()
+		{
+			if(!hasNext())
+				throw new NoSuchElementException();
+			
+			do
+				Slot++;
+			while(Table[Slot] == null);
+			
+			Index++;
+			return Slot;
+		}
+		
+		/**
+		 * The current slot.
+		 */
+		protected int Slot;
+		
+		/**
+		 * The number of entries visited so far less one.
+		 */
+		protected int Index;
+	}
+	
+	/**
+	 * Iterates over a hash table's entries.
+	 * @author Dawn Nye
+	 */
+	protected class OpenHashTableEntryIterator extends SlotIterator implements Iterator<T>
+	{
+		public T next()
+		{return (T)Table[NextSlot()];}
+	}
+}
@@ -0,0 +1,468 @@
+package gamecore.datastructures;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * A uniform grid of square cells which indexes things by the cells their bounding boxes overlap.
+ * Only cells with something in them are stored, and they are found by hashing their coordinates, so the grid may be unbounded and sparse.
+ * <br><br>
+ * Adding, removing, and looking up an item take constant time per cell it overlaps, so this is best suited to worlds of similarly sized things aligned to a grid, such as tile maps.
+ * When the cell size matches the size of the things in it, most items lie in a single cell, and a query need only look at the few cells under it.
+ * An AABB tree is better suited to things of widely varying sizes.
+ * <br><br>
+ * Each item may be in the index at most once, and items are indexed by hash to find them quickly, so an item's hash code must not change while it is in the index.
+ * @author Dawn Nye
+ * @param <T> The type of data stored in the spatial hash.
+ */
+public class SpatialHash<T> implements ISpatialIndex<T>
+{
+	/**
+	 * Creates an empty spatial hash.
+	 * @param boundary_extractor The means by which bounding data is extracted.
+	 * @param cell_size The width and height of each cell.
+	 * @throws NullPointerException Thrown if {@code boundary_extractor} is null.
+	 * @throws IllegalArgumentException Thrown if {@code cell_size} is not positive.
+	 */
+	public SpatialHash(BoundaryExtractor<T> boundary_extractor, int cell_size)
+	{
+		if(boundary_extractor == null)
+			throw new NullPointerException();
+		
+		if(cell_size <= 0)
+			throw new IllegalArgumentException();
+		
+		BoundingBoxExtractor = boundary_extractor;
+		CellSize = cell_size;
+		
+		Cells = new CellTable();
+		Entries = new Dictionary<T,Entry<T>>();
+		
+		return;
+	}
+	
+	/**
+	 * Creates a spatial hash.
+	 * @param boundary_extractor The means by which bounding data is extracted.
+	 * @param cell_size The width and height of each cell.
+	 * @param c Initializes the spatial hash to contain the given collection of items.
+	 * @throws NullPointerException Thrown if {@code boundary_extractor} or {@code c} is null.
+	 * @throws IllegalArgumentException Thrown if {@code cell_size} is not positive.
+	 */
+	public SpatialHash(BoundaryExtractor<T> boundary_extractor, int cell_size, Iterable<? extends T> c)
+	{
+		this(boundary_extractor,cell_size);
+		BulkAdd(c);
+		
+		return;
+	}
+	
+	/**
+	 * Adds {@code t} to the spatial hash.
+	 * @param t The item to add.
+	 * @return Returns true if {@code t} was added. Returns false if it was already present or has no valid bounding box.
+	 * @throws NullPointerException Thrown if {@code t} is null.
+	 */
+	public boolean Add(T t)
+	{
+		if(Entries.ContainsKey(t))
+			return false;
+		
+		CellRectangle boundary = BoundingBoxExtractor.ExtractBoundary(t);
+		
+		// If we can't generate a valid boundary, we're done
+		if(boundary == null || boundary.IsDegenerate())
+			return false;
+		
+		Entry<T> e = new Entry<T>(t,boundary,Math.floorDiv(boundary.Left(),CellSize),Math.floorDiv(boundary.Top(),CellSize),Math.floorDiv(boundary.Right(),CellSize),Math.floorDiv(boundary.Bottom(),CellSize));
+		
+		for(int y = e.Top;y <= e.Bottom;y++)
+			for(int x = e.Left;x <= e.Right;x++)
+				GetOrCreateCell(Key(x,y)).Add(e);
+		
+		Entries.Put(t,e);
+		return true;
+	}
+	
+	/**
+	 * Removes {@code t} from the spatial hash.
+	 * It is removed from the cells it was in when it was added, so it may have moved since.
+	 * @param t The item to remove.
+	 * @return Returns true if {@code t} was removed and false if it was not present.
+	 */
+	public boolean Remove(T t)
+	{
+		if(t == null)
+			return false;
+		
+		Entry<T> e = Entries.GetOrDefault(t,null);
+		
+		if(e == null)
+			return false;
+		
+		for(int y = e.Top;y <= e.Bottom;y++)
+			for(int x = e.Left;x <= e.Right;x++)
+			{
+				int i = Cells.Find(Key(x,y));
+				
+				if(((Cell)Cells.Table[i]).Remove(e))
+					Cells.Delete(i);
+			}
+		
+		Entries.RemoveByKey(t);
+		return true;
+	}
+	
+	public boolean Contains(T t)
+	{return t != null && Entries.ContainsKey(t);}
+	
+	public void Clear()
+	{
+		Cells.clear();
+		Entries.Clear();
+		
+		return;
+	}
+	
+	public int Count()
+	{return Entries.Count();}
+	
+	/**
+	 * Visits every item whose bounding box intersects {@code area}.
+	 * This allocates nothing.
+	 * An item lying in several cells the query looks at is only visited from the first of them (the top left cell of the item and query overlap), so no record of what has been visited is needed.
+	 * If the query covers more cells than the spatial hash holds, it looks at every cell that's held instead.
+	 */
+	public boolean Query(CellRectangle area, Visitor<? super T> visitor)
+	{
+		if(visitor == null)
+			throw new NullPointerException();
+		
+		if(area.IsEmpty())
+			return true;
+		
+		int left = Math.floorDiv(area.Left(),CellSize);
+		int top = Math.floorDiv(area.Top(),CellSize);
+		int right = Math.floorDiv(area.Right(),CellSize);
+		int bottom = Math.floorDiv(area.Bottom(),CellSize);
+		
+		if((long)(right - left + 1) * (bottom - top + 1) > Cells.size())
+		{
+			for(Object o : Cells.Table)
+			{
+				Cell c = (Cell)o;
+				
+				if(c != null && !VisitCell(c,(int)(c.Key >> 32),(int)c.Key,area,left,top,visitor))
+					return false;
+			}
+			
+			return true;
+		}
+		
+		for(int y = top;y <= bottom;y++)
+			for(int x = left;x <= right;x++)
+			{
+				int i = Cells.Find(Key(x,y));
+				
+				if(i >= 0 && !VisitCell((Cell)Cells.Table[i],x,y,area,left,top,visitor))
+					return false;
+			}
+		
+		return true;
+	}
+	
+	/**
+	 * Queries keep no state, so any number of threads may query a spatial hash at once.
+	 */
+	public boolean ConcurrentQueries()
+	{return true;}
+	
+	/**
+	 * Visits the items of a cell which a query should report from it.
+	 * @param c The cell.
+	 * @param x The column of the cell.
+	 * @param y The row of the cell.
+	 * @param area The area being queried.
+	 * @param left The leftmost column of the query.
+	 * @param top The topmost row of the query.
+	 * @param visitor The visitor to pass each item to.
+	 * @return Returns true if the query should continue and false if the visitor stopped it.
+	 */
+	protected boolean VisitCell(Cell c, int x, int y, CellRectangle area, int left, int top, Visitor<? super T> visitor)
+	{
+		for(int i = 0;i < c.Count;i++)
+		{
+			Entry<T> e = (Entry<T>)c.Entries[i];
+			
+			// Only report an item from the first cell it shares with the query
+			if(x != Math.max(e.Left,left) || y != Math.max(e.Top,top))
+				continue;
+			
+			if(e.Boundary.Intersects(area) && !visitor.Visit(e.Item))
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Packs a cell's coordinates into a key.
+	 * @param x The column of the cell.
+	 * @param y The row of the cell.
+	 * @return Returns the key of the cell.
+	 */
+	protected static long Key(int x, int y)
+	{return (long)x << 32 | (y & 0xFFFFFFFFL);}
+	
+	/**
+	 * Obtains a cell, creating it if it doesn't exist.
+	 * @param key The key of the cell.
+	 * @return Returns the cell with key {@code key}.
+	 */
+	protected Cell GetOrCreateCell(long key)
+	{
+		int i = Cells.Find(key);
+		
+		if(i >= 0)
+			return (Cell)Cells.Table[i];
+		
+		Cell ret = new Cell(key);
+		Cells.Insert(-i - 1,ret);
+		
+		return ret;
+	}
+	
+	/**
+	 * Iterates over the items in no particular order.
+	 */
+	public Iterator<T> iterator()
+	{return Entries.Keys().iterator();}
+	
+	/**
+	 * Obtains the width and height of each cell.
+	 */
+	public int CellSize()
+	{return CellSize;}
+	
+	/**
+	 * Obtains the number of cells with something in them.
+	 */
+	public int CellCount()
+	{return Cells.size();}
+	
+	@Override public String toString()
+	{
+		if(IsEmpty())
+			return "{}";
+		
+		String ret = "{";
+		
+		for(T t : this)
+			ret += t + ",";
+		
+		return ret.substring(0,ret.length() - 1) + "}";
+	}
+	
+	/**
+	 * Extracts bounding boxes from data.
+	 */
+	protected BoundaryExtractor<T> BoundingBoxExtractor;
+	
+	/**
+	 * The width and height of each cell.
+	 */
+	protected final int CellSize;
+	
+	/**
+	 * The cells with something in them, hashed by their keys.
+	 */
+	protected final CellTable Cells;
+	
+	/**
+	 * The entry of each item.
+	 */
+	protected Dictionary<T,Entry<T>> Entries;
+	
+	/**
+	 * The initial length of the table.
+	 */
+	protected static final int INITIAL_CAPACITY = 16;
+	
+	/**
+	 * A hash table of cells which can be looked up by key without making a cell to look for.
+	 * @author Dawn Nye
+	 */
+	protected static final class CellTable extends OpenHashTable<Cell>
+	{
+		/**
+		 * Creates an empty cell table.
+		 */
+		public CellTable()
+		{
+			// Keep the table at most half full so that runs stay short
+			super(INITIAL_CAPACITY,0.5);
+			return;
+		}
+		
+		@Override protected int Home(Object o)
+		{return Home(((Cell)o).Key);}
+		
+		/**
+		 * Determines where in the table a key would prefer to be.
+		 * @param key The key.
+		 * @return Returns the index the key hashes to.
+		 */
+		public int Home(long key)
+		{return (int)((key * 0x9E3779B97F4A7C15L) >>> 32) & Mask;}
+		
+		/**
+		 * Finds where a cell is in the table.
+		 * @param key The key of the cell.
+		 * @return Returns the index of the cell with key {@code key} if it exists. Otherwise, returns {@code -(i + 1)} where {@code i} is the empty index where it would go.
+		 */
+		public int Find(long key)
+		{
+			int i = Home(key);
+			
+			// The table is never full, so this always stops
+			while(Table[i] != null)
+			{
+				if(((Cell)Table[i]).Key == key)
+					return i;
+				
+				i = (i + 1) & Mask;
+			}
+			
+			return -(i + 1);
+		}
+	}
+	
+	/**
+	 * An item in a spatial hash along with the boundary and range of cells it had when it was added.
+	 * @author Dawn Nye
+	 * @param <E> The type of the item.
+	 */
+	protected static final class Entry<E>
+	{
+		/**
+		 * Creates a new entry.
+		 * @param item The item.
+		 * @param boundary The bounding box of the item.
+		 * @param left The leftmost column the item is in.
+		 * @param top The topmost row the item is in.
+		 * @param right The rightmost column the item is in.
+		 * @param bottom The bottommost row the item is in.
+		 */
+		public Entry(E item, CellRectangle boundary, int left, int top, int right, int bottom)
+		{
+			Item = item;
+			Boundary = boundary;
+			
+			Left = left;
+			Top = top;
+			Right = right;
+			Bottom = bottom;
+			
+			return;
+		}
+		
+		/**
+		 * The item.
+		 */
+		public final E Item;
+		
+		/**
+		 * The bounding box of the item.
+		 */
+		public final CellRectangle Boundary;
+		
+		/**
+		 * The leftmost column the item is in.
+		 */
+		public final int Left;
+		
+		/**
+		 * The topmost row the item is in.
+		 */
+		public final int Top;
+		
+		/**
+		 * The rightmost column the item is in.
+		 */
+		public final int Right;
+		
+		/**
+		 * The bottommost row the item is in.
+		 */
+		public final int Bottom;
+	}
+	
+	/**
+	 * A cell of a spatial hash and the entries overlapping it.
+	 * @author Dawn Nye
+	 */
+	protected static final class Cell
+	{
+		/**
+		 * Creates a new empty cell.
+		 * @param key The key of the cell.
+		 */
+		public Cell(long key)
+		{
+			Key = key;
+			
+			Entries = new Object[2];
+			Count = 0;
+			
+			return;
+		}
+		
+		/**
+		 * Adds an entry to the cell.
+		 * @param e The entry to add.
+		 */
+		public void Add(Object e)
+		{
+			if(Count == Entries.length)
+				Entries = Arrays.copyOf(Entries,Count << 1);
+			
+			Entries[Count++] = e;
+			return;
+		}
+		
+		/**
+		 * Removes an entry from the cell.
+		 * The last entry is moved into its place.
+		 * @param e The entry to remove.
+		 * @return Returns true if the cell is now empty and false otherwise.
+		 */
+		public boolean Remove(Object e)
+		{
+			for(int i = 0;i < Count;i++)
+				if(Entries[i] == e)
+				{
+					Entries[i] = Entries[--Count];
+					Entries[Count] = null;
+					
+					break;
+				}
+			
+			return Count == 0;
+		}
+		
+		/**
+		 * The column and row of the cell packed together.
+		 */
+		public final long Key;
+		
+		/**
+		 * The entries overlapping the cell.
+		 */
+		public Object[] Entries;
+		
+		/**
+		 * The number of entries overlapping the cell.
+		 */
+		public int Count;
+	}
+}
@@ -2,6 +2,8 @@ package gamecore.datastructures.grids;
 
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 import gamecore.datastructures.LinkedList;
 import gamecore.datastructures.tuples.Pair;
@@ -371,12 +373,88 @@ public class FixedSizeGrid<T> implements IGrid<Vector2i,T>
 		public Iterator<T> iterator()
 		{return new ItemIterator(SkipEmpty);}
 		
+		public Spliterator<T> spliterator()
+		{return new ItemSpliterator(0,Width * Height,SkipEmpty);}
+		
 		/**
 		 * If true, we skip empty entries.
 		 */
 		protected boolean SkipEmpty;
 	}
 	
+	/**
+	 * Splits the items of the grid into contiguous ranges of cells so that they can be processed in parallel.
+	 * Cells are visited in the same order as an {@code ItemIterator} visits them.
+	 * @author Dawn Nye
+	 */
+	protected class ItemSpliterator implements Spliterator<T>
+	{
+		/**
+		 * Creates a new item spliterator.
+		 * @param start The first cell to visit, where cell ({@code x},{@code y}) is numbered {@code y * Width + x}.
+		 * @param end One past the last cell to visit.
+		 * @param skip_empty If true, then empty cells are skipped.
+		 */
+		public ItemSpliterator(int start, int end, boolean skip_empty)
+		{
+			Index = start;
+			End = end;
+			
+			SkipEmpty = skip_empty;
+			return;
+		}
+		
+		public boolean tryAdvance(Consumer<? super T> action)
+		{
+			while(Index < End)
+			{
+				int x = Index % Width;
+				int y = Index++ / Width;
+				
+				if(!SkipEmpty || IsCellOccupied(x,y))
+				{
+					action.accept(Get(x,y));
+					return true;
+				}
+			}
+			
+			return false;
+		}
+		
+		public Spliterator<T> trySplit()
+		{
+			if(End - Index < 2)
+				return null;
+			
+			int mid = (Index + End) >>> 1;
+			Spliterator<T> ret = new ItemSpliterator(Index,mid,SkipEmpty);
+			
+			Index = mid;
+			return ret;
+		}
+		
+		public long estimateSize()
+		{return End - Index;}
+		
+		public int characteristics()
+		{return SkipEmpty ? ORDERED : ORDERED | SIZED | SUBSIZED;}
+		
+		/**
+		 * The next cell to visit.
+		 */
+		protected int Index;
+		
+		/**
+		 * One past the last cell to visit.
+		 */
+		protected int End;
+		
+		/**
+		 * If true, we skip empty cells.
+		 */
+		protected boolean SkipEmpty;
+	}
+	
 	/**
 	 * Iterates over the items of the grid.
 	 * @author Dawn Nye
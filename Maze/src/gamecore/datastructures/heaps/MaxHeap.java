@@ -31,6 +31,31 @@ public class MaxHeap<T> implements IHeap<T>
 		return;
 	}
 	
+	/**
+	 * Creates a new max heap with the given ordering.
+	 * @param cmp The means by which items are sorted.
+	 * @param arity The number of children each item in the heap has.
+	 * @throws IllegalArgumentException Thrown if {@code arity} is less than 2.
+	 */
+	public MaxHeap(Comparator<T> cmp, int arity)
+	{
+		Heap = new MinHeap<T>((a,b) -> cmp.compare(b,a),arity);
+		return;
+	}
+	
+	/**
+	 * Creates a new max heap with the given ordering.
+	 * @param seed The initial set of objects to fill this heap with.
+	 * @param cmp The means by which items are sorted.
+	 * @param arity The number of children each item in the heap has.
+	 * @throws IllegalArgumentException Thrown if {@code arity} is less than 2.
+	 */
+	public MaxHeap(Iterable<? extends T> seed, Comparator<T> cmp, int arity)
+	{
+		Heap = new MinHeap<T>(seed,(a,b) -> cmp.compare(b,a),arity);
+		return;
+	}
+	
 	public boolean Remove(T t)
 	{return Heap.Remove(t);}
 	
@@ -64,6 +89,12 @@ public class MaxHeap<T> implements IHeap<T>
 	public int Count()
 	{return Heap.Count();}
 	
+	/**
+	 * Determines the number of children each item in the heap has.
+	 */
+	public int Arity()
+	{return Heap.Arity();}
+	
 	public boolean IsEmpty()
 	{return Heap.IsEmpty();}
 	
@@ -1,14 +1,14 @@
 package gamecore.datastructures.heaps;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
-import gamecore.datastructures.LinkedList;
-import gamecore.datastructures.tuples.Triple;
-
 /**
  * Implements a min heap.
+ * The heap is stored implicitly in an array in level order, so the children of the item at index {@code i} are at indices {@code Arity * i + 1} through {@code Arity * i + Arity}.
+ * A binary heap (an arity of 2) is the default, but a wider heap is shallower and keeps each item's children adjacent in memory, which can make it faster when removals are rarer than additions or comparisons are cheap.
  * @author Dawn Nye
  * @param <T> The type of data in the heap.
  */
@@ -20,8 +20,26 @@ public class MinHeap<T> implements IHeap<T>
 	 */
 	public MinHeap(Comparator<T> cmp)
 	{
+		this(cmp,2);
+		return;
+	}
+	
+	/**
+	 * Creates a new min heap with the given ordering.
+	 * @param cmp The means by which items are sorted.
+	 * @param arity The number of children each item in the heap has.
+	 * @throws IllegalArgumentException Thrown if {@code arity} is less than 2.
+	 */
+	public MinHeap(Comparator<T> cmp, int arity)
+	{
+		if(arity < 2)
+			throw new IllegalArgumentException();
+		
 		Ordering = cmp;
-		Root = null;
+		Arity = arity;
+		
+		Items = new Object[INITIAL_CAPACITY];
+		Count = 0;
 		
 		return;
 	}
@@ -33,111 +51,100 @@ public class MinHeap<T> implements IHeap<T>
 	 */
 	public MinHeap(Iterable<? extends T> seed, Comparator<T> cmp)
 	{
-		Ordering = cmp;
-
-		LinkedList<Triple<T,Node,Boolean>> q = new LinkedList<Triple<T,Node,Boolean>>(); // The item, the parent, and a left child flag
-		Iterator<? extends T> iter = seed.iterator();
-
-		// If we have any elements whatsoever, initialize them here so that we don't need a special case in the loop
-		if(iter.hasNext())
-			Root = new Node(iter.next(),null,null,null);
-
-		// Queue up the root's children if they exist
-		if(iter.hasNext())
-			q.AddLast(new Triple<T,Node,Boolean>(iter.next(),Root,true));
-
-		if(iter.hasNext())
-			q.AddLast(new Triple<T,Node,Boolean>(iter.next(),Root,false));
-
-		// Now we can loop normally
-		while(!q.isEmpty())
+		this(seed,cmp,2);
+		return;
+	}
+	
+	/**
+	 * Creates a new min heap with the given ordering.
+	 * @param seed The initial set of objects to fill this heap with.
+	 * @param cmp The means by which items are sorted.
+	 * @param arity The number of children each item in the heap has.
+	 * @throws IllegalArgumentException Thrown if {@code arity} is less than 2.
+	 */
+	public MinHeap(Iterable<? extends T> seed, Comparator<T> cmp, int arity)
+	{
+		this(cmp,arity);
+		
+		for(T t : seed)
 		{
-			// Get the next item to put into the heap
-			Triple<T,Node,Boolean> t = q.RemoveFront();
-			Node n = new Node(t.Item1,t.Item2,null,null);
+			if(Count == Items.length)
+				Items = Arrays.copyOf(Items,Count << 1);
 			
-			// If this is supposed to be a left child, make it so; similarly with right children
-			if(t.Item3)
-				t.Item2.Left = n;
-			else
-				t.Item2.Right = n;
-
-			// If there's enough stuff left for a left child, make it so
-			if(iter.hasNext())
-				q.AddLast(new Triple<T,Node,Boolean>(iter.next(),n,true));
-
-			// If there's enough stuff left for a right child, make it so
-			if(iter.hasNext())
-				q.AddLast(new Triple<T,Node,Boolean>(iter.next(),n,false));
+			Items[Count++] = t;
 		}
-
-		if(Root != null)
-			FastHeapify(Root);
 		
+		FastHeapify();
 		return;
 	}
 	
 	/**
 	 * Heapifies the heap in linear time.
-	 * @param n The current heap root.
+	 * Every item with children is percolated down, starting with the last one, so that each is placed atop subheaps that are already valid.
 	 */
-	protected void FastHeapify(Node n)
+	protected void FastHeapify()
 	{
-		n.Count = 1;
-
-		if(n.Left != null)
-		{
-			FastHeapify(n.Left);
-			n.Count += n.Left.Count;
-		}
-
-		if(n.Right != null)
-		{
-			FastHeapify(n.Right);
-			n.Count += n.Right.Count;
-		}
-
-		PercolateDown(n);
+		for(int i = (Count - 2) / Arity;i >= 0;i--)
+			PercolateDown(i);
+		
 		return;
 	}
 	
 	/**
-	 * Given a node, percolates its data downward to maintain the heap property.
-	 * @param n The node to percolate down.
+	 * Given an index, percolates its data downward to maintain the heap property.
+	 * Rather than swapping at each level, smaller children are moved up into the hole left behind, and the item is written once at the end.
+	 * @param i The index to percolate down.
 	 */
-	protected void PercolateDown(Node n)
+	protected void PercolateDown(int i)
 	{
-		if(n.Left == null && n.Right == null)
-			return;
-
-		if(n.Left != null)
+		T item = (T)Items[i];
+		
+		while(true)
 		{
-			// If Right has nothing or is bigger than Left, we only care about what's going on with Left
-			if(n.Right == null || Ordering.compare(n.Left.Item,n.Right.Item) < 0)
-			{
-				if(Ordering.compare(n.Item,n.Left.Item) > 0)
-				{
-					Swap(n,n.Left);
-					PercolateDown(n.Left);
-				}
-
-				return;
-			}
-			else if(n.Right != null && Ordering.compare(n.Item,n.Right.Item) > 0) // This favors swaping with Right when Left and Right are equal, but that's fine
-			{
-				Swap(n,n.Right);
-				PercolateDown(n.Right);
-			}
-
-			return;
+			int first = Arity * i + 1;
+			
+			if(first >= Count)
+				break;
+			
+			// Find the smallest child
+			int min = first;
+			int end = Math.min(first + Arity,Count);
+			
+			for(int c = first + 1;c < end;c++)
+				if(Ordering.compare((T)Items[c],(T)Items[min]) < 0)
+					min = c;
+			
+			if(Ordering.compare((T)Items[min],item) >= 0)
+				break;
+			
+			Items[i] = Items[min];
+			i = min;
 		}
-
-		if(n.Right != null && Ordering.compare(n.Item,n.Right.Item) > 0)
+		
+		Items[i] = item;
+		return;
+	}
+	
+	/**
+	 * Given an index, percolates its data upward to maintain the heap property.
+	 * @param i The index whose data we want to percolate up.
+	 */
+	protected void PercolateUp(int i)
+	{
+		T item = (T)Items[i];
+		
+		while(i > 0)
 		{
-			Swap(n,n.Right);
-			PercolateDown(n.Right);
+			int p = (i - 1) / Arity;
+			
+			if(Ordering.compare(item,(T)Items[p]) >= 0)
+				break;
+			
+			Items[i] = Items[p];
+			i = p;
 		}
 		
+		Items[i] = item;
 		return;
 	}
 	
@@ -146,205 +153,110 @@ public class MinHeap<T> implements IHeap<T>
 	
 	/**
 	 * Gets and removes the minimum element from this heap.
-	 * @return Returns the minmum element of this heap or null if the heap is empty.
+	 * @return Returns the minmum element of this heap.
 	 * @throws NoSuchElementException Thrown if the heap is empty.
 	 */
 	public T RemoveMin()
 	{
 		if(IsEmpty())
 			throw new NoSuchElementException();
-
-		T ret = Root.Item;
-
-		Node n = GetLastNode(Root);
 		
-		// Check if we're removing the root
-		if(n.Parent == null)
-		{
-			Root = null;
-			return ret;
-		}
-
-		Swap(Root,n);
-
-		n = n.Parent;
-		SubtractOne(n);
-
-		if(n.Right != null)
-			n.Right = null;
-		else
-			n.Left = null;
+		T ret = (T)Items[0];
+		RemoveAt(0);
 		
-		PercolateDown(Root);
 		return ret;
 	}
 	
-	public boolean Remove(T t)
-	{throw new UnsupportedOperationException();}
-	
-	public boolean Add(T t)
-	{
-		if(Root == null)
-		{
-			Root = new Node(t,null,null,null);
-			Root.Count = 1;
-
-			return true;
-		}
-
-		PercolateUp(AddNewNode(Root,t));
-		return true;
-	}
-	
-	public boolean AddAll(Iterable<? extends T> c)
-	{
-		boolean ret = false;
-		
-		for(T t : c)
-			if(Add(t))
-				ret = true;
-		
-		return ret;
-	}
-
 	/**
-	 * Maintains the heap property upwards.
-	 * @param n The node whose data we want to percolate up.
+	 * Removes the item at index {@code i} by replacing it with the last item and restoring the heap property.
+	 * @param i The index to remove.
 	 */
-	protected void PercolateUp(Node n)
+	protected void RemoveAt(int i)
 	{
-		if(n.Parent == null)
-			return;
-
-		if(Ordering.compare(n.Item,n.Parent.Item) < 0)
+		Items[i] = Items[--Count];
+		Items[Count] = null;
+		
+		if(i < Count)
 		{
-			Swap(n,n.Parent);
-			PercolateUp(n.Parent);
+			Object moved = Items[i];
+			PercolateDown(i);
+			
+			// The last item may belong above i if it came from another branch of the heap, which can only be the case if it didn't move down
+			if(Items[i] == moved)
+				PercolateUp(i);
 		}
-
+		
+		// Give back memory when the heap has shrunk a lot, but not so eagerly that we thrash near the boundary
+		if(Items.length > INITIAL_CAPACITY && Count <= Items.length >> 2)
+			Items = Arrays.copyOf(Items,Items.length >> 1);
+		
 		return;
 	}
 	
 	/**
-	 * Adds and returns a new node at the first available space in the heap.
-	 * @param n The subheap root.
-	 * @param t The item to add.
-	 * @return Returns the new node created in the heap.
+	 * Removes an item from the heap.
+	 * Finding the item takes linear time, but removing it once found takes only logarithmic time.
+	 * @param t The item to remove.
+	 * @return Returns true if the item was removed and false if it was not in the heap.
 	 */
-	protected Node AddNewNode(Node n, T t)
+	public boolean Remove(T t)
 	{
-		if(n.Right == null) // If the right child is empty, we're at a base case
-			if(n.Left == null)
-			{
-				n.Left = new Node(t,n,null,null);
-				n.Left.Count = 0;
-
-				AddOne(n.Left);
-				return n.Left;
-			}
-			else
-			{
-				n.Right = new Node(t,n,null,null);
-				n.Right.Count = 0;
-
-				AddOne(n.Right);
-				return n.Right;
-			}
-
-		// There's room on the left if both sides have equal size or if the left isn't full yet
-		if(n.Left.Count == n.Right.Count || CountSetBits(n.Left.Count + 1) != 1)
-			return AddNewNode(n.Left,t);
-
-		return AddNewNode(n.Right,t);
+		int i = IndexOf(t);
+		
+		if(i < 0)
+			return false;
+		
+		RemoveAt(i);
+		return true;
 	}
 	
-	/**
-	 * Subtracts one from the count of this heap. 
-	 * @param n The subheap to subtract one count upward from.
-	 */
-	protected void SubtractOne(Node n)
+	public boolean Add(T t)
 	{
-		n.Count--;
-
-		if(n.Parent == null)
-			return;
+		if(Count == Items.length)
+			Items = Arrays.copyOf(Items,Count << 1);
 		
-		SubtractOne(n.Parent);
-		return;
-	}
-
-	/**
-	 * Adds one to the count of this heap.
-	 * @param n The subheap to add one count upward to.
-	 */
-	protected void AddOne(Node n)
-	{
-		n.Count++;
-
-		if(n.Parent == null)
-			return;
-
-		AddOne(n.Parent);
-		return;
-	}
-
-	/**
-	 * Gets the last Node in the heap.
-	 * @param n The subheap to grab the last node of.
-	 * @return Returns the last node in the heap.
-	 */
-	protected Node GetLastNode(Node n)
-	{
-		if(n.Right == null) // If we don't have two children, we're at a base case
-			if(n.Left == null)
-				return n;
-			else
-				return n.Left; // We can only ever have one child if we're directly above the last node
-
-		// To be a full binary tree and proceed right, the left node have one less than a power of two nodes in it AND the right one must not
-		if(n.Left.Count != n.Right.Count && (CountSetBits(n.Left.Count + 1) != 1 || CountSetBits(n.Right.Count + 1) == 1))
-			return GetLastNode(n.Left);
+		Items[Count] = t;
+		PercolateUp(Count++);
 		
-		return GetLastNode(n.Right);
+		return true;
 	}
-
+	
 	/**
-	 * Counts the number of set bits in {@code n}.
-	 * @param n The integer to count the set bits of.
-	 * @return Returns the number of set bits in {@code n}
+	 * Adds every element of {@code c} to the heap.
+	 * When {@code c} is large compared to the heap, the elements are appended and the whole heap is heapified at once in linear time rather than added one by one.
 	 */
-	protected int CountSetBits(int n)
+	public boolean AddAll(Iterable<? extends T> c)
 	{
-		int ret = 0;
-
-		while(n != 0)
+		int old = Count;
+		
+		for(T t : c)
 		{
-			n &= (n - 1);
-			ret++;
+			if(Count == Items.length)
+				Items = Arrays.copyOf(Items,Count << 1);
+			
+			Items[Count++] = t;
 		}
 		
-		return ret;
-	}
-
-	/**
-	 * Swaps the data in the two given nodes.
-	 * @param n1 The first node to swap.
-	 * @param n2 The second node to swap.
-	 */
-	protected void Swap(Node n1, Node n2)
-	{
-		T temp = n1.Item;
-		n1.Item = n2.Item;
-		n2.Item = temp;
-
-		return;
+		if(Count == old)
+			return false;
+		
+		// Adding k items one at a time costs about k log n while heapifying costs about n, so we pick whichever is cheaper
+		int k = Count - old;
+		
+		if(k > Count / (32 - Integer.numberOfLeadingZeros(Count)))
+			FastHeapify();
+		else
+			for(int i = old;i < Count;i++)
+				PercolateUp(i);
+		
+		return true;
 	}
 	
 	public T Top()
 	{return Min();}
 	
 	/**
-	 * Returns the minimum element of this heap (or T's default value if there is none).
+	 * Returns the minimum element of this heap.
 	 * @throws NoSuchElementException Thrown if the heap is empty.
 	 */
 	public T Min()
@@ -352,47 +264,53 @@ public class MinHeap<T> implements IHeap<T>
 		if(IsEmpty())
 			throw new NoSuchElementException();
 		
-		return Root.Item;
+		return (T)Items[0];
 	}
 	
 	public boolean Contains(T t)
-	{return RContains(Root,t);}
+	{return IndexOf(t) >= 0;}
 	
-	protected boolean RContains(Node n, T t)
+	/**
+	 * Finds the index of an item in the heap.
+	 * The item array is scanned in order, which is linear time but touches memory sequentially.
+	 * @param t The item to look for.
+	 * @return Returns the index of {@code t} or -1 if it is not in the heap.
+	 */
+	protected int IndexOf(T t)
 	{
-		if(n == null)
-			return false;
+		for(int i = 0;i < Count;i++)
+			if(Items[i] == null ? t == null : Items[i].equals(t))
+				return i;
 		
-		if(n.Item == null ? t == null : n.Item.equals(t))
-			return true;
-		
-		// We use <= here because the heap can have multiple items of the same priority
-		return Ordering.compare(n.Item,t) <= 0 && (RContains(n.Left,t) || RContains(n.Right,t));
+		return -1;
 	}
 	
 	public void Clear()
 	{
-		Root = null;
+		Items = new Object[INITIAL_CAPACITY];
+		Count = 0;
+		
 		return;
 	}
-
+	
 	public int Count()
-	{
-		if(Root == null)
-			return 0;
-
-		return Root.Count;
-	}
+	{return Count;}
 	
 	public boolean IsEmpty()
-	{return Count() == 0;}
+	{return Count == 0;}
+	
+	/**
+	 * Determines the number of children each item in the heap has.
+	 */
+	public int Arity()
+	{return Arity;}
 	
 	public Iterator<T> iterator()
-	{return new MinHeapEnumerator(Root,Ordering);}
+	{return new MinHeapEnumerator();}
 	
 	@Override public String toString()
 	{
-		if(Root == null)
+		if(IsEmpty())
 			return "{}";
 		
 		String ret = "{";
@@ -407,119 +325,68 @@ public class MinHeap<T> implements IHeap<T>
 	 * The ordering of items.
 	 */
 	protected Comparator<T> Ordering;
-
+	
 	/**
-	 * The root node of the heap.
+	 * The heap's items in level order.
 	 */
-	protected Node Root;
+	protected Object[] Items;
 	
 	/**
-	 * The node class for building this heap as a tree.
-	 * @author Dawn Nye
+	 * The number of items in the heap.
 	 */
-	protected class Node
-	{
-		/**
-		 * Creates a new heap node.
-		 * @param item The item to store in the heap.
-		 * @param p The parent node in the heap.
-		 * @param l The left child of this node in the heap.
-		 * @param r The right child of this node in the heap.
-		 */
-		public Node(T item, Node p, Node l, Node r)
-		{
-			Parent = p;
-			
-			Left = l;
-			Right = r;
-			
-			Item = item;
-			
-			Count = (l == null ? 0 : l.Count) + (r == null ? 0 : r.Count) + 1;
-			return;
-		}
-		
-		@Override public String toString()
-		{return Item.toString();}
-		
-		public T Item;
-		public Node Parent;
-		public Node Left;
-		public Node Right;
-		public int Count;
-	}
+	protected int Count;
+	
+	/**
+	 * The number of children each item in the heap has.
+	 */
+	protected final int Arity;
+	
+	/**
+	 * The initial length of the item array.
+	 */
+	protected static final int INITIAL_CAPACITY = 16;
 	
 	/**
 	 * Enumerates a min heap.
+	 * Items are enumerated in heap order by exploring the heap best first from the top, so that each item is visited before its children.
 	 * @author Dawn Nye
 	 */
 	protected class MinHeapEnumerator implements Iterator<T>
 	{
 		/**
 		 * Creates a new heap enumerator.
-		 * @param root The root of the heap.
-		 * @param cmp Compares things of T type.
 		 */
-		public MinHeapEnumerator(Node root, Comparator<T> cmp)
+		public MinHeapEnumerator()
 		{
-			Root = root;
-			q = new MinHeap<Node>((n1,n2) -> cmp.compare(n1.Item,n2.Item));
-
-			if(Root != null)
-				q.Add(Root);
-
-			CurrentNode = null;
+			q = new MinHeap<Integer>((i,j) -> Ordering.compare((T)Items[i],(T)Items[j]),Arity);
+			
+			if(Count > 0)
+				q.Add(0);
+			
 			return;
 		}
-
+		
 		public boolean hasNext()
 		{return q.Count() > 0;}
-
+		
 		public T next()
 		{
 			if(!hasNext())
 				throw new NoSuchElementException();
 			
-			MoveNext();
-			return CurrentNode.Item;
-		}
-		
-		/**
-		 * Goes to the next element (if one exists).
-		 * @return Returns true if it can get to the next element and false if one does not exist.
-		 */
-		protected boolean MoveNext()
-		{
-			if(q.Count() == 0)
-			{
-				CurrentNode = null;
-				return false;
-			}
-
-			CurrentNode = q.RemoveMin();
+			int i = q.RemoveMin();
+			int first = Arity * i + 1;
+			int end = Math.min(first + Arity,Count);
 			
-			if(CurrentNode.Left != null)
-				q.Add(CurrentNode.Left);
-
-			if(CurrentNode.Right != null)
-				q.Add(CurrentNode.Right);
+			for(int c = first;c < end;c++)
+				q.Add(c);
 			
-			return true;
+			return (T)Items[i];
 		}
 		
 		/**
-		 * Returns the current node of the enumerator.
-		 */
-		protected Node CurrentNode;
-
-		/**
-		 * The root node of the heap.
-		 */
-		protected Node Root;
-
-		/**
-		 * The heap of things to explore.
+		 * The heap of indices to explore.
 		 */
-		protected MinHeap<Node> q;
+		protected MinHeap<Integer> q;
 	}
-}
\ No newline at end of file
+}
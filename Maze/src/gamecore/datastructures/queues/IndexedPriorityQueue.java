@@ -0,0 +1,468 @@
+package gamecore.datastructures.queues;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A priority queue which hands out a handle for each item it holds.
+ * A handle tracks where its item currently lies in the backing heap, so the item can be reprioritized or removed in logarithmic time without searching for it.
+ * This makes operations such as the decrease key of Dijkstra's algorithm cheap.
+ * @author Dawn Nye
+ * @param <T> The type of data stored in the queue.
+ */
+public class IndexedPriorityQueue<T> implements IQueue<T>
+{
+	/**
+	 * Creates an empty indexed priority queue.
+	 * Low priority values occur first.
+	 * @param cmp The means by which items are compared.
+	 */
+	public IndexedPriorityQueue(Comparator<? super T> cmp)
+	{
+		this(cmp,true);
+		return;
+	}
+	
+	/**
+	 * Creates an empty indexed priority queue.
+	 * @param cmp The means by which items are compared.
+	 * @param min If true, then low priority values occur before high priority values. If false, then high priority values will occur first instead.
+	 */
+	public IndexedPriorityQueue(Comparator<? super T> cmp, boolean min)
+	{
+		if(cmp == null)
+			throw new NullPointerException();
+		
+		Ordering = min ? cmp : (a,b) -> cmp.compare(b,a);
+		Min = min;
+		
+		Heap = (Handle[])new IndexedPriorityQueue.Handle[INITIAL_CAPACITY];
+		Count = 0;
+		
+		return;
+	}
+	
+	/**
+	 * Adds {@code t} to the queue.
+	 * @param t The item to add.
+	 * @return Returns the handle of {@code t}, which remains valid until {@code t} leaves the queue.
+	 */
+	public Handle Push(T t)
+	{
+		if(Count == Heap.length)
+			Heap = Arrays.copyOf(Heap,Count << 1);
+		
+		Handle ret = new Handle(t);
+		
+		Heap[Count] = ret;
+		ret.Index = Count;
+		
+		PercolateUp(Count++);
+		return ret;
+	}
+	
+	public boolean Enqueue(T t)
+	{
+		Push(t);
+		return true;
+	}
+	
+	public boolean EnqueueAll(Iterable<? extends T> c)
+	{
+		boolean ret = false;
+		
+		for(T t : c)
+			ret |= Enqueue(t);
+		
+		return ret;
+	}
+	
+	public T Dequeue()
+	{return DequeueHandle().Item;}
+	
+	/**
+	 * Gets and removes the front item of the queue.
+	 * @return Returns the handle of the front item, which is no longer in the queue.
+	 * @throws NoSuchElementException Thrown if the queue is empty.
+	 */
+	public Handle DequeueHandle()
+	{
+		if(IsEmpty())
+			throw new NoSuchElementException();
+		
+		Handle ret = Heap[0];
+		RemoveAt(0);
+		
+		return ret;
+	}
+	
+	public T Front()
+	{return FrontHandle().Item;}
+	
+	/**
+	 * Gets the handle of the front item of the queue without removing it.
+	 * @throws NoSuchElementException Thrown if the queue is empty.
+	 */
+	public Handle FrontHandle()
+	{
+		if(IsEmpty())
+			throw new NoSuchElementException();
+		
+		return Heap[0];
+	}
+	
+	/**
+	 * Replaces an item with one that comes no later in the queue.
+	 * @param h The handle of the item to replace. It remains the handle of the new item.
+	 * @param t The new item.
+	 * @throws NoSuchElementException Thrown if {@code h} is not in this queue.
+	 * @throws IllegalArgumentException Thrown if {@code t} would come after the item it replaces.
+	 */
+	public void DecreaseKey(Handle h, T t)
+	{
+		Validate(h);
+		
+		if(Ordering.compare(t,h.Item) > 0)
+			throw new IllegalArgumentException();
+		
+		h.Item = t;
+		PercolateUp(h.Index);
+		
+		return;
+	}
+	
+	/**
+	 * Replaces an item with one that comes no earlier in the queue.
+	 * @param h The handle of the item to replace. It remains the handle of the new item.
+	 * @param t The new item.
+	 * @throws NoSuchElementException Thrown if {@code h} is not in this queue.
+	 * @throws IllegalArgumentException Thrown if {@code t} would come before the item it replaces.
+	 */
+	public void IncreaseKey(Handle h, T t)
+	{
+		Validate(h);
+		
+		if(Ordering.compare(t,h.Item) < 0)
+			throw new IllegalArgumentException();
+		
+		h.Item = t;
+		PercolateDown(h.Index);
+		
+		return;
+	}
+	
+	/**
+	 * Replaces an item with another, wherever it belongs in the queue.
+	 * @param h The handle of the item to replace. It remains the handle of the new item.
+	 * @param t The new item.
+	 * @throws NoSuchElementException Thrown if {@code h} is not in this queue.
+	 */
+	public void Update(Handle h, T t)
+	{
+		Validate(h);
+		
+		h.Item = t;
+		Fix(h.Index);
+		
+		return;
+	}
+	
+	/**
+	 * Restores an item's place in the queue after its priority has been changed in place, such as by mutating it.
+	 * @param h The handle of the item which changed.
+	 * @throws NoSuchElementException Thrown if {@code h} is not in this queue.
+	 */
+	public void Update(Handle h)
+	{
+		Validate(h);
+		Fix(h.Index);
+		
+		return;
+	}
+	
+	/**
+	 * Removes an item from the queue.
+	 * @param h The handle of the item to remove.
+	 * @return Returns true if the item was removed and false if {@code h} was not in this queue.
+	 */
+	public boolean Remove(Handle h)
+	{
+		if(!Contains(h))
+			return false;
+		
+		RemoveAt(h.Index);
+		return true;
+	}
+	
+	/**
+	 * Determines if a handle's item is in this queue.
+	 * @param h The handle.
+	 * @return Returns true if the item of {@code h} is in the queue and false otherwise.
+	 */
+	public boolean Contains(Handle h)
+	{return h != null && h.Index >= 0 && h.Index < Count && Heap[h.Index] == h;}
+	
+	/**
+	 * Ensures that {@code h} is in this queue.
+	 * @throws NoSuchElementException Thrown if {@code h} is not in this queue.
+	 */
+	protected void Validate(Handle h)
+	{
+		if(!Contains(h))
+			throw new NoSuchElementException();
+		
+		return;
+	}
+	
+	/**
+	 * Removes the handle at heap index {@code i} by replacing it with the last handle and restoring the heap property.
+	 * @param i The index to remove.
+	 */
+	protected void RemoveAt(int i)
+	{
+		Heap[i].Index = -1;
+		
+		Heap[i] = Heap[--Count];
+		Heap[Count] = null;
+		
+		if(i < Count)
+		{
+			Heap[i].Index = i;
+			Fix(i);
+		}
+		
+		if(Heap.length > INITIAL_CAPACITY && Count <= Heap.length >> 2)
+			Heap = Arrays.copyOf(Heap,Heap.length >> 1);
+		
+		return;
+	}
+	
+	/**
+	 * Moves the handle at heap index {@code i} up or down, whichever restores the heap property.
+	 * @param i The index to fix.
+	 */
+	protected void Fix(int i)
+	{
+		if(i > 0 && Ordering.compare(Heap[i].Item,Heap[(i - 1) >> 1].Item) < 0)
+			PercolateUp(i);
+		else
+			PercolateDown(i);
+		
+		return;
+	}
+	
+	/**
+	 * Percolates the handle at heap index {@code i} upward to maintain the heap property.
+	 * @param i The index to percolate up.
+	 */
+	protected void PercolateUp(int i)
+	{
+		Handle h = Heap[i];
+		
+		while(i > 0)
+		{
+			int p = (i - 1) >> 1;
+			
+			if(Ordering.compare(h.Item,Heap[p].Item) >= 0)
+				break;
+			
+			Heap[i] = Heap[p];
+			Heap[i].Index = i;
+			
+			i = p;
+		}
+		
+		Heap[i] = h;
+		h.Index = i;
+		
+		return;
+	}
+	
+	/**
+	 * Percolates the handle at heap index {@code i} downward to maintain the heap property.
+	 * @param i The index to percolate down.
+	 */
+	protected void PercolateDown(int i)
+	{
+		Handle h = Heap[i];
+		
+		while(true)
+		{
+			int c = (i << 1) + 1;
+			
+			if(c >= Count)
+				break;
+			
+			if(c + 1 < Count && Ordering.compare(Heap[c + 1].Item,Heap[c].Item) < 0)
+				c++;
+			
+			if(Ordering.compare(Heap[c].Item,h.Item) >= 0)
+				break;
+			
+			Heap[i] = Heap[c];
+			Heap[i].Index = i;
+			
+			i = c;
+		}
+		
+		Heap[i] = h;
+		h.Index = i;
+		
+		return;
+	}
+	
+	public boolean Add(T t)
+	{return Enqueue(t);}
+	
+	/**
+	 * Removes an item from the queue.
+	 * Finding the item takes linear time. If its handle is available, {@code Remove(Handle)} should be used instead.
+	 */
+	public boolean Remove(T t)
+	{
+		for(int i = 0;i < Count;i++)
+			if(Heap[i].Item == null ? t == null : Heap[i].Item.equals(t))
+			{
+				RemoveAt(i);
+				return true;
+			}
+		
+		return false;
+	}
+	
+	/**
+	 * Determines if an item is in the queue.
+	 * This takes linear time. If its handle is available, {@code Contains(Handle)} should be used instead.
+	 */
+	public boolean Contains(T t)
+	{
+		for(int i = 0;i < Count;i++)
+			if(Heap[i].Item == null ? t == null : Heap[i].Item.equals(t))
+				return true;
+		
+		return false;
+	}
+	
+	public void Clear()
+	{
+		for(int i = 0;i < Count;i++)
+			Heap[i].Index = -1;
+		
+		Heap = (Handle[])new IndexedPriorityQueue.Handle[INITIAL_CAPACITY];
+		Count = 0;
+		
+		return;
+	}
+	
+	public int Count()
+	{return Count;}
+	
+	public boolean IsEmpty()
+	{return Count == 0;}
+	
+	/**
+	 * Determines if low priority values occur first.
+	 */
+	public boolean IsMin()
+	{return Min;}
+	
+	/**
+	 * Iterates over the items in the queue in no particular order.
+	 */
+	public Iterator<T> iterator()
+	{
+		return new Iterator<T>()
+		{
+			public boolean hasNext()
+			{return Index < Count;}
+			
+			public T next()
+			{
+				if(!hasNext())
+					throw new NoSuchElementException();
+				
+				return Heap[Index++].Item;
+			}
+			
+			protected int Index = 0;
+		};
+	}
+	
+	@Override public String toString()
+	{
+		if(IsEmpty())
+			return "{}";
+		
+		String ret = "{";
+		
+		for(T t : this)
+			ret += t + ",";
+		
+		return ret.substring(0,ret.length() - 1) + "}";
+	}
+	
+	/**
+	 * The means by which items are compared, reversed if high priority values occur first.
+	 */
+	protected final Comparator<? super T> Ordering;
+	
+	/**
+	 * If true, low priority values occur first.
+	 */
+	protected final boolean Min;
+	
+	/**
+	 * The binary heap of handles in level order.
+	 */
+	protected Handle[] Heap;
+	
+	/**
+	 * The number of items in the queue.
+	 */
+	protected int Count;
+	
+	/**
+	 * The initial length of the heap array.
+	 */
+	protected static final int INITIAL_CAPACITY = 16;
+	
+	/**
+	 * Refers to an item in an indexed priority queue.
+	 * @author Dawn Nye
+	 */
+	public final class Handle
+	{
+		/**
+		 * Creates a new handle.
+		 * @param t The item.
+		 */
+		protected Handle(T t)
+		{
+			Item = t;
+			Index = -1;
+			
+			return;
+		}
+		
+		/**
+		 * Obtains the item this handle refers to.
+		 */
+		public T Item()
+		{return Item;}
+		
+		@Override public String toString()
+		{return String.valueOf(Item);}
+		
+		/**
+		 * The item.
+		 */
+		protected T Item;
+		
+		/**
+		 * The index of this handle in the heap or -1 if it is not in the queue.
+		 */
+		protected int Index;
+	}
+}
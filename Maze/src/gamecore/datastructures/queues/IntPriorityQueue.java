@@ -0,0 +1,404 @@
+package gamecore.datastructures.queues;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+/**
+ * An indexed priority queue of nonnegative integer IDs, such as graph vertex IDs, each with a priority.
+ * Each ID serves as its own handle, so no handle objects are allocated, and an ID can be reprioritized or removed in logarithmic time.
+ * Each ID may be in the queue at most once.
+ * @author Dawn Nye
+ * @param <P> The type of the priorities.
+ */
+public class IntPriorityQueue<P>
+{
+	/**
+	 * Creates an empty int priority queue.
+	 * Low priority values occur first.
+	 * @param cmp The means by which priorities are compared.
+	 */
+	public IntPriorityQueue(Comparator<? super P> cmp)
+	{
+		this(cmp,true,16);
+		return;
+	}
+	
+	/**
+	 * Creates an empty int priority queue.
+	 * @param cmp The means by which priorities are compared.
+	 * @param min If true, then low priority values occur before high priority values. If false, then high priority values will occur first instead.
+	 * @param c The initial capacity. IDs less than this can be enqueued without the queue growing.
+	 * @throws IllegalArgumentException Thrown if {@code c} is negative.
+	 */
+	public IntPriorityQueue(Comparator<? super P> cmp, boolean min, int c)
+	{
+		if(cmp == null)
+			throw new NullPointerException();
+		
+		if(c < 0)
+			throw new IllegalArgumentException();
+		
+		Ordering = min ? cmp : (a,b) -> cmp.compare(b,a);
+		Min = min;
+		
+		Heap = new int[Math.max(c,1)];
+		Positions = new int[Math.max(c,1)];
+		Priorities = new Object[Math.max(c,1)];
+		
+		Arrays.fill(Positions,-1);
+		Count = 0;
+		
+		return;
+	}
+	
+	/**
+	 * Adds an ID to the queue.
+	 * @param id The ID to add.
+	 * @param priority Its priority.
+	 * @return Returns true if {@code id} was added and false if it was already in the queue.
+	 * @throws IndexOutOfBoundsException Thrown if {@code id} is negative.
+	 */
+	public boolean Enqueue(int id, P priority)
+	{
+		if(id < 0)
+			throw new IndexOutOfBoundsException();
+		
+		if(id >= Positions.length)
+			Grow(id);
+		else if(Positions[id] >= 0)
+			return false;
+		
+		Heap[Count] = id;
+		Positions[id] = Count;
+		Priorities[id] = priority;
+		
+		PercolateUp(Count++);
+		return true;
+	}
+	
+	/**
+	 * Adds an ID to the queue or, if it is already present, changes its priority.
+	 * @param id The ID to add or update.
+	 * @param priority Its new priority.
+	 * @throws IndexOutOfBoundsException Thrown if {@code id} is negative.
+	 */
+	public void Put(int id, P priority)
+	{
+		if(!Enqueue(id,priority))
+			ChangeKey(id,priority);
+		
+		return;
+	}
+	
+	/**
+	 * Gets and removes the front ID of the queue.
+	 * @return Returns the front ID.
+	 * @throws NoSuchElementException Thrown if the queue is empty.
+	 */
+	public int Dequeue()
+	{
+		if(IsEmpty())
+			throw new NoSuchElementException();
+		
+		int ret = Heap[0];
+		RemoveAt(0);
+		
+		return ret;
+	}
+	
+	/**
+	 * Gets the front ID of the queue without removing it.
+	 * @throws NoSuchElementException Thrown if the queue is empty.
+	 */
+	public int Front()
+	{
+		if(IsEmpty())
+			throw new NoSuchElementException();
+		
+		return Heap[0];
+	}
+	
+	/**
+	 * Gets the priority of the front ID of the queue.
+	 * @throws NoSuchElementException Thrown if the queue is empty.
+	 */
+	public P FrontPriority()
+	{return Priority(Front());}
+	
+	/**
+	 * Gets the priority of an ID in the queue.
+	 * @param id The ID.
+	 * @return Returns the priority of {@code id}.
+	 * @throws NoSuchElementException Thrown if {@code id} is not in the queue.
+	 */
+	public P Priority(int id)
+	{
+		Validate(id);
+		return (P)Priorities[id];
+	}
+	
+	/**
+	 * Gives an ID a priority that comes no later in the queue.
+	 * @param id The ID.
+	 * @param priority Its new priority.
+	 * @throws NoSuchElementException Thrown if {@code id} is not in the queue.
+	 * @throws IllegalArgumentException Thrown if {@code priority} would come after the old one.
+	 */
+	public void DecreaseKey(int id, P priority)
+	{
+		Validate(id);
+		
+		if(Ordering.compare(priority,(P)Priorities[id]) > 0)
+			throw new IllegalArgumentException();
+		
+		Priorities[id] = priority;
+		PercolateUp(Positions[id]);
+		
+		return;
+	}
+	
+	/**
+	 * Gives an ID a priority that comes no earlier in the queue.
+	 * @param id The ID.
+	 * @param priority Its new priority.
+	 * @throws NoSuchElementException Thrown if {@code id} is not in the queue.
+	 * @throws IllegalArgumentException Thrown if {@code priority} would come before the old one.
+	 */
+	public void IncreaseKey(int id, P priority)
+	{
+		Validate(id);
+		
+		if(Ordering.compare(priority,(P)Priorities[id]) < 0)
+			throw new IllegalArgumentException();
+		
+		Priorities[id] = priority;
+		PercolateDown(Positions[id]);
+		
+		return;
+	}
+	
+	/**
+	 * Gives an ID a new priority, wherever it belongs in the queue.
+	 * @param id The ID.
+	 * @param priority Its new priority.
+	 * @throws NoSuchElementException Thrown if {@code id} is not in the queue.
+	 */
+	public void ChangeKey(int id, P priority)
+	{
+		Validate(id);
+		
+		Priorities[id] = priority;
+		int i = Positions[id];
+		
+		if(i > 0 && Ordering.compare(priority,(P)Priorities[Heap[(i - 1) >> 1]]) < 0)
+			PercolateUp(i);
+		else
+			PercolateDown(i);
+		
+		return;
+	}
+	
+	/**
+	 * Removes an ID from the queue.
+	 * @param id The ID to remove.
+	 * @return Returns true if {@code id} was removed and false if it was not in the queue.
+	 */
+	public boolean Remove(int id)
+	{
+		if(!Contains(id))
+			return false;
+		
+		RemoveAt(Positions[id]);
+		return true;
+	}
+	
+	/**
+	 * Determines if an ID is in the queue.
+	 */
+	public boolean Contains(int id)
+	{return id >= 0 && id < Positions.length && Positions[id] >= 0;}
+	
+	/**
+	 * Ensures that {@code id} is in this queue.
+	 * @throws NoSuchElementException Thrown if {@code id} is not in this queue.
+	 */
+	protected void Validate(int id)
+	{
+		if(!Contains(id))
+			throw new NoSuchElementException();
+		
+		return;
+	}
+	
+	/**
+	 * Enlarges the queue so that it can hold {@code id}.
+	 * @param id The ID to make room for.
+	 */
+	protected void Grow(int id)
+	{
+		int n = Math.max(id + 1,Positions.length << 1);
+		int old = Positions.length;
+		
+		Heap = Arrays.copyOf(Heap,n);
+		Positions = Arrays.copyOf(Positions,n);
+		Priorities = Arrays.copyOf(Priorities,n);
+		
+		Arrays.fill(Positions,old,n,-1);
+		return;
+	}
+	
+	/**
+	 * Removes the ID at heap index {@code i} by replacing it with the last ID and restoring the heap property.
+	 * @param i The index to remove.
+	 */
+	protected void RemoveAt(int i)
+	{
+		int id = Heap[i];
+		
+		Positions[id] = -1;
+		Priorities[id] = null;
+		
+		if(i == --Count)
+			return;
+		
+		int moved = Heap[Count];
+		
+		Heap[i] = moved;
+		Positions[moved] = i;
+		
+		// The last ID may belong above i if it came from another branch of the heap, which can only be the case if it didn't move down
+		PercolateDown(i);
+		
+		if(Heap[i] == moved)
+			PercolateUp(i);
+		
+		return;
+	}
+	
+	/**
+	 * Percolates the ID at heap index {@code i} upward to maintain the heap property.
+	 * @param i The index to percolate up.
+	 */
+	protected void PercolateUp(int i)
+	{
+		int id = Heap[i];
+		P p = (P)Priorities[id];
+		
+		while(i > 0)
+		{
+			int parent = (i - 1) >> 1;
+			
+			if(Ordering.compare(p,(P)Priorities[Heap[parent]]) >= 0)
+				break;
+			
+			Heap[i] = Heap[parent];
+			Positions[Heap[i]] = i;
+			
+			i = parent;
+		}
+		
+		Heap[i] = id;
+		Positions[id] = i;
+		
+		return;
+	}
+	
+	/**
+	 * Percolates the ID at heap index {@code i} downward to maintain the heap property.
+	 * @param i The index to percolate down.
+	 */
+	protected void PercolateDown(int i)
+	{
+		int id = Heap[i];
+		P p = (P)Priorities[id];
+		
+		while(true)
+		{
+			int c = (i << 1) + 1;
+			
+			if(c >= Count)
+				break;
+			
+			if(c + 1 < Count && Ordering.compare((P)Priorities[Heap[c + 1]],(P)Priorities[Heap[c]]) < 0)
+				c++;
+			
+			if(Ordering.compare((P)Priorities[Heap[c]],p) >= 0)
+				break;
+			
+			Heap[i] = Heap[c];
+			Positions[Heap[i]] = i;
+			
+			i = c;
+		}
+		
+		Heap[i] = id;
+		Positions[id] = i;
+		
+		return;
+	}
+	
+	/**
+	 * Clears the queue.
+	 */
+	public void Clear()
+	{
+		for(int i = 0;i < Count;i++)
+		{
+			Positions[Heap[i]] = -1;
+			Priorities[Heap[i]] = null;
+		}
+		
+		Count = 0;
+		return;
+	}
+	
+	/**
+	 * The number of IDs in the queue.
+	 */
+	public int Count()
+	{return Count;}
+	
+	/**
+	 * Determines if the queue is empty.
+	 * @return Returns true if the queue is empty and false otherwise.
+	 */
+	public boolean IsEmpty()
+	{return Count == 0;}
+	
+	/**
+	 * Determines if low priority values occur first.
+	 */
+	public boolean IsMin()
+	{return Min;}
+	
+	/**
+	 * The means by which priorities are compared, reversed if high priority values occur first.
+	 */
+	protected final Comparator<? super P> Ordering;
+	
+	/**
+	 * If true, low priority values occur first.
+	 */
+	protected final boolean Min;
+	
+	/**
+	 * The binary heap of IDs in level order.
+	 */
+	protected int[] Heap;
+	
+	/**
+	 * The heap index of each ID or -1 if it is not in the queue.
+	 */
+	protected int[] Positions;
+	
+	/**
+	 * The priority of each ID in the queue.
+	 */
+	protected Object[] Priorities;
+	
+	/**
+	 * The number of IDs in the queue.
+	 */
+	protected int Count;
+}
@@ -1,11 +1,16 @@
 package gamecore.datastructures.trees;
 
 import java.lang.reflect.Array;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import gamecore.datastructures.CellRectangle;
+import gamecore.datastructures.Dictionary;
+import gamecore.datastructures.ISpatialIndex;
 import gamecore.datastructures.LinkedList;
 import gamecore.datastructures.queues.PriorityQueue;
 import gamecore.datastructures.queues.Queue;
@@ -15,10 +20,19 @@ import gamecore.datastructures.tuples.Pair;
  * A self-balancing Axis-Aligned Bounding Box Tree.
  * Allows for (typically) log time collision checking against static objects.
  * Can also be updated in log time via additions or removals.
+ * <br><br>
+ * Moving objects can live in the tree too.
+ * Each leaf stores a fat bounding box, which is its object's tight bounding box expanded by a margin on every side.
+ * When an object moves, {@code Update} does nothing to the tree unless its tight box has left its fat box, so objects which move a little each frame rarely touch the tree at all.
+ * Queries still only report objects whose tight boxes (as of their last add or update) intersect the query.
+ * Items are indexed by hash to find their leaves quickly, so an item's hash code must not change while it is in the tree.
+ * <br><br>
+ * When many items are known at once, {@code BulkAdd} builds the tree top down with the surface area heuristic instead of inserting the items one at a time.
+ * This takes O(n log n) time and produces a shallower tree with tighter nodes than incremental insertion does.
  * @author Dawn Nye
  * @param <T> The type of data stored in this AABB Tree.
  */
-public class AABBTree<T> implements ITree<T>, Collection<T>
+public class AABBTree<T> implements ITree<T>, Collection<T>, ISpatialIndex<T>
 {
 	/**
 	 * Creates a new AABB tree.
@@ -26,28 +40,63 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 	 * @throws NullPointerException Thrown if {@code boundary_extractor} or {@code c} is null.
 	 */
 	public AABBTree(BoundaryExtractor<T> boundary_extractor)
+	{
+		this(boundary_extractor,0);
+		return;
+	}
+	
+	/**
+	 * Creates a new AABB tree.
+	 * @param boundary_extractor The means by which bounding data is extracted.
+	 * @param margin The distance by which each leaf's bounding box is expanded on every side. Larger margins make {@code Update} cheaper for fast moving objects at the cost of looser queries.
+	 * @throws NullPointerException Thrown if {@code boundary_extractor} is null.
+	 * @throws IllegalArgumentException Thrown if {@code margin} is negative.
+	 */
+	public AABBTree(BoundaryExtractor<T> boundary_extractor, int margin)
 	{
 		if(boundary_extractor == null)
 			throw new NullPointerException();
 		
+		if(margin < 0)
+			throw new IllegalArgumentException();
+		
 		BoundingBoxExtractor = boundary_extractor;
+		Margin = margin;
 		
 		Root = null;
 		Count = 0;
+		Leaves = new Dictionary<T,Node>();
+		Stacks = ThreadLocal.withInitial(TraversalStack::new);
 		
 		return;
 	}
 
 	/**
 	 * Creates a new AABB tree.
+	 * The tree is built all at once with {@code BulkAdd}.
 	 * @param boundary_extractor The means by which bounding data is extracted.
 	 * @param c Initializes the tree to contain the given collection of items.
 	 * @throws NullPointerException Thrown if {@code boundary_extractor} or {@code c} is null.
 	 */
 	public AABBTree(BoundaryExtractor<T> boundary_extractor, Iterable<? extends T> c)
 	{
-		this(boundary_extractor);
-		addAll(c);
+		this(boundary_extractor,0,c);
+		return;
+	}
+	
+	/**
+	 * Creates a new AABB tree.
+	 * The tree is built all at once with {@code BulkAdd}.
+	 * @param boundary_extractor The means by which bounding data is extracted.
+	 * @param margin The distance by which each leaf's bounding box is expanded on every side.
+	 * @param c Initializes the tree to contain the given collection of items.
+	 * @throws NullPointerException Thrown if {@code boundary_extractor} or {@code c} is null.
+	 * @throws IllegalArgumentException Thrown if {@code margin} is negative.
+	 */
+	public AABBTree(BoundaryExtractor<T> boundary_extractor, int margin, Iterable<? extends T> c)
+	{
+		this(boundary_extractor,margin);
+		BulkAdd(c);
 		
 		return;
 	}
@@ -63,12 +112,30 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 		// We'll always succeed now, so just increment it
 		Count++;
 		
+		Node leaf = new Node(Fatten(boundary),e);
+		leaf.Tight = boundary;
+		
+		InsertLeaf(leaf);
+		Leaves.Put(e,leaf);
+		
+		return true;
+	}
+	
+	/**
+	 * Places a detached leaf into the tree.
+	 * @param leaf The leaf to insert. Its boundary must already be assigned.
+	 */
+	protected void InsertLeaf(Node leaf)
+	{
+		leaf.Parent = null;
+		
 		if(Root == null)
 		{
-			Root = new Node(boundary,e);
-			return true;
+			Root = leaf;
+			return;
 		}
 		
+		CellRectangle boundary = leaf.Boundary;
 		Node n = Root;
 		
 		while(!n.IsLeaf())
@@ -83,8 +150,7 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 				n = n.Right;
 		}
 		
-		Node right = new Node(boundary,e);
-		Node parent = new Node(n.Parent,n,right);
+		Node parent = new Node(n.Parent,n,leaf);
 		
 		// This is a one time only edge case we have to catch
 		if(parent.IsRoot())
@@ -93,7 +159,20 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 		parent.LinkAdjacentNodes(n.IsRoot() || n.Parent.Right != n);
 		parent.UpdateProperties();
 
-		return true;
+		return;
+	}
+	
+	/**
+	 * Expands a tight bounding box by this tree's margin.
+	 * @param tight The tight bounding box.
+	 * @return Returns the fat bounding box for a leaf.
+	 */
+	protected CellRectangle Fatten(CellRectangle tight)
+	{
+		if(Margin == 0)
+			return tight;
+		
+		return new CellRectangle(tight.Left() - Margin,tight.Top() - Margin,tight.Width() + (Margin << 1),tight.Height() + (Margin << 1));
 	}
 	
 	public boolean Add(T t)
@@ -133,6 +212,107 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 		return ret;
 	}
 	
+	/**
+	 * Adds every item of {@code c} to the tree and then rebuilds the whole tree top down.
+	 * This costs O(n log n) time for the n items in the tree afterward, so it is best used when {@code c} is large compared to the tree.
+	 * Items without a valid bounding box are skipped, just as they are by {@code add}.
+	 * @param c The items to add.
+	 * @return Returns the number of items added.
+	 * @throws NullPointerException Thrown if {@code c} is null.
+	 */
+	public int BulkAdd(Iterable<? extends T> c)
+	{
+		Node[] leaves = CollectLeaves();
+		int n = Count;
+		
+		for(T t : c)
+		{
+			CellRectangle boundary = BoundingBoxExtractor.ExtractBoundary(t);
+			
+			if(boundary == null || boundary.IsDegenerate())
+				continue;
+			
+			Node leaf = new Node(Fatten(boundary),t);
+			leaf.Tight = boundary;
+			
+			if(n == leaves.length)
+				leaves = Arrays.copyOf(leaves,n << 1);
+			
+			leaves[n++] = leaf;
+			Leaves.Put(t,leaf);
+		}
+		
+		int ret = n - Count;
+		
+		Count = n;
+		Root = Build(leaves,n);
+		
+		return ret;
+	}
+	
+	/**
+	 * Rebuilds the whole tree top down.
+	 * This restores the tree's quality after many incremental changes.
+	 */
+	public void Rebuild()
+	{
+		Root = Build(CollectLeaves(),Count);
+		return;
+	}
+	
+	/**
+	 * Gathers the leaves of the tree into an array.
+	 * @return Returns an array whose first {@code Count} entries are the tree's leaves. The array has room for at least one more.
+	 */
+	protected Node[] CollectLeaves()
+	{
+		Node[] ret = new AABBTree.Node[Count + 1];
+		int i = 0;
+		
+		for(NodeEnumerator iter = new NodeEnumerator(Root);iter.hasNext();)
+		{
+			iter.next();
+			ret[i++] = iter.CurrentNode();
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * Builds a tree top down from detached leaves.
+	 * Large subtrees are built in parallel. The result does not depend on how the work is scheduled.
+	 * @param leaves The leaves to build the tree from.
+	 * @param n The number of leaves to use from the front of {@code leaves}.
+	 * @return Returns the root of the new tree or null if {@code n} is zero.
+	 */
+	protected Node Build(Node[] leaves, int n)
+	{
+		if(n == 0)
+			return null;
+		
+		// The build sweeps over and shuffles the leaves many times, so we copy their boxes out to one array and shuffle indices rather than the leaves themselves
+		int[] boxes = new int[n << 2];
+		int[] order = new int[n];
+		
+		for(int i = 0;i < n;i++)
+		{
+			CellRectangle r = leaves[i].Boundary;
+			
+			boxes[i << 2] = r.Left();
+			boxes[(i << 2) + 1] = r.Top();
+			boxes[(i << 2) + 2] = r.Right();
+			boxes[(i << 2) + 3] = r.Bottom();
+			
+			order[i] = i;
+		}
+		
+		BuildTask task = new BuildTask(leaves,boxes,order,0,n,0);
+		Node ret = n < PARALLEL_BUILD_GRAIN ? task.compute() : ForkJoinPool.commonPool().invoke(task);
+		
+		ret.Parent = null;
+		return ret;
+	}
+	
 	public boolean remove(Object o)
 	{
 		Node n = Find((T)o);
@@ -143,11 +323,25 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 		// We WILL remove something now, so just decrement it already
 		Count--;
 		
+		if(Leaves.GetOrDefault(n.Data,null) == n)
+			Leaves.RemoveByKey(n.Data);
+		
+		RemoveLeaf(n);
+		return true;
+	}
+	
+	/**
+	 * Detaches a leaf from the tree.
+	 * The leaf's own fields are left alone (save its parent) so that it may be reinserted.
+	 * @param n The leaf to detach.
+	 */
+	protected void RemoveLeaf(Node n)
+	{
 		// If we get the root, then there's nothing else in the tree since only leaves can hold data
 		if(n.IsRoot())
 		{
 			Root = null;
-			return true;
+			return;
 		}
 		
 		// If we get a child of the root, then we need to handle this edge case
@@ -159,8 +353,12 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 				Root = Root.Left;
 
 			Root.Parent = null;
-			return true;
+			n.Parent = null;
+			
+			return;
 		}
+		
+		Node leaf = n;
 
 		// We're not in a special case, so just go ahead and get stuff done
 		// Grab the node that we're not going to get rid of
@@ -177,13 +375,78 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 
 		// The new parent is the old grandparent
 		n.Parent = n.Parent.Parent;
+		leaf.Parent = null;
 
 		// Now we can just recurse up the tree
 		n.Parent.UpdateProperties();
 
+		return;
+	}
+	
+	/**
+	 * Brings an item's place in the tree up to date after it has moved or changed size.
+	 * If its new tight bounding box still lies within its leaf's fat bounding box, only the tight box is recorded.
+	 * Otherwise, its leaf is given a new fat box and reinserted where it now best fits.
+	 * Refitting the leaf's ancestors in place instead would be cheaper, but it never moves the leaf, so a steadily moving item would drag its ancestors' boxes across the whole map.
+	 * @param t The item which moved.
+	 * @return Returns true if {@code t} is in the tree and was updated. Returns false if {@code t} is not in the tree or no longer has a valid bounding box, in which case the tree is left unchanged.
+	 */
+	public boolean Update(T t)
+	{
+		Node n = Find(t);
+		
+		if(n == null)
+			return false;
+		
+		CellRectangle tight = BoundingBoxExtractor.ExtractBoundary(t);
+		
+		if(tight == null || tight.IsDegenerate())
+			return false;
+		
+		n.Tight = tight;
+		
+		// This is the common case and costs us nothing
+		if(n.Boundary.Contains(tight))
+			return true;
+		
+		RemoveLeaf(n);
+		n.Boundary = Fatten(tight);
+		InsertLeaf(n);
+		
 		return true;
 	}
 	
+	/**
+	 * Brings every item's place in the tree up to date.
+	 * This is equivalent to calling {@code Update} on every item in the tree.
+	 * @return Returns the number of items whose tight bounding boxes had left their fat bounding boxes.
+	 */
+	public int UpdateAll()
+	{
+		// Leaves move around as we update them, so we collect them first
+		LinkedList<T> escaped = new LinkedList<T>();
+		
+		for(NodeEnumerator iter = new NodeEnumerator(Root);iter.hasNext();)
+		{
+			T t = iter.next();
+			Node n = iter.CurrentNode();
+			CellRectangle tight = BoundingBoxExtractor.ExtractBoundary(t);
+			
+			if(tight == null || tight.IsDegenerate())
+				continue;
+			
+			n.Tight = tight;
+			
+			if(!n.Boundary.Contains(tight))
+				escaped.AddLast(t);
+		}
+		
+		for(T t : escaped)
+			Update(t);
+		
+		return escaped.Count();
+	}
+	
 	public boolean Remove(T t)
 	{return remove(t);}
 	
@@ -204,12 +467,23 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 	}
 	
 	/**
-	 * Finds the first instance of {@code item} via a breadth first search of the tree.
+	 * Finds an instance of {@code item}.
+	 * If it is not indexed, the first instance is found via a breadth first search of the tree.
 	 * @param item The item to find.
 	 * @return The first instance of the given item in the tree or null if it doesn't exist.
 	 */
 	protected Node Find(T item)
 	{
+		if(item == null)
+			return null;
+		
+		// Most of the time, we know exactly where the item is
+		Node ret = Leaves.GetOrDefault(item,null);
+		
+		if(ret != null)
+			return ret;
+		
+		// Duplicate items are only indexed once, so we may still need to search for them
 		CellRectangle boundary = BoundingBoxExtractor.ExtractBoundary(item);
 
 		// If we can't generate a valid boundary, we're done
@@ -260,6 +534,7 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 	{
 		Root = null;
 		Count = 0;
+		Leaves.Clear();
 		
 		return;
 	}
@@ -295,7 +570,9 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 			
 			if(n.IsLeaf())
 			{
-				ret.AddLast(n.Data);
+				if(boundary.Intersects(n.Tight))
+					ret.AddLast(n.Data);
+				
 				continue;
 			}
 			
@@ -336,7 +613,9 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 			if(n.IsLeaf())
 			{
 				// Intersects is way faster than intersect, and we typically won't need to intersect often enough for the repeated operation here to matter rather than enqueing area with the data
-				q.Enqueue(new Pair<T,Integer>(n.Data,boundary.Intersection(n.Boundary).Area()));
+				if(boundary.Intersects(n.Tight))
+					q.Enqueue(new Pair<T,Integer>(n.Data,boundary.Intersection(n.Tight).Area()));
+				
 				continue;
 			}
 			
@@ -376,10 +655,12 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 		while(!frontier.IsEmpty())
 		{
 			Node n = frontier.Dequeue();
-
+			
 			if(n.IsLeaf())
 			{
-				ret.AddLast(n.Data);
+				if(area.Intersects(n.Tight))
+					ret.AddLast(n.Data);
+				
 				continue;
 			}
 			
@@ -418,7 +699,9 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 			if(n.IsLeaf())
 			{
 				// Intersects is way faster than intersect, and we typically won't need to intersect often enough for the repeated operation here to matter rather than enqueing area with the data
-				q.Enqueue(new Pair<T,Integer>(n.Data,area.Intersection(n.Boundary).Area()));
+				if(area.Intersects(n.Tight))
+					q.Enqueue(new Pair<T,Integer>(n.Data,area.Intersection(n.Tight).Area()));
+				
 				continue;
 			}
 			
@@ -437,6 +720,74 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 		return ret;
 	}
 	
+	/**
+	 * Visits every item whose bounding box intersects {@code area}.
+	 * Unlike {@code DirectQuery}, this allocates nothing once this tree's traversal stack has grown large enough, so it is suitable for broad phase queries made every frame.
+	 * The tree must not be modified until the query finishes, but the visitor may itself query this tree.
+	 * This uses a traversal stack shared by every query of this tree made on the same thread, so different threads may query the tree at once.
+	 * @param area The area to look for things in.
+	 * @param visitor The visitor to pass each item to. If it returns false, the query stops immediately.
+	 * @return Returns true if every intersecting item was visited and false if the visitor stopped the query early.
+	 * @throws NullPointerException Thrown if {@code area} or {@code visitor} is null.
+	 */
+	public boolean Query(CellRectangle area, Visitor<? super T> visitor)
+	{return Query(area,visitor,Stacks.get());}
+	
+	/**
+	 * Each thread has its own traversal stack, so any number of threads may query an AABB tree at once.
+	 */
+	public boolean ConcurrentQueries()
+	{return true;}
+	
+	/**
+	 * Visits every item whose bounding box intersects {@code area}.
+	 * This allocates nothing once {@code stack} has grown large enough.
+	 * The tree must not be modified until the query finishes, but the visitor may itself query this tree with the same stack.
+	 * @param area The area to look for things in.
+	 * @param visitor The visitor to pass each item to. If it returns false, the query stops immediately.
+	 * @param stack The traversal stack to use.
+	 * @return Returns true if every intersecting item was visited and false if the visitor stopped the query early.
+	 * @throws NullPointerException Thrown if {@code area}, {@code visitor}, or {@code stack} is null.
+	 */
+	public boolean Query(CellRectangle area, Visitor<? super T> visitor, TraversalStack stack)
+	{
+		if(visitor == null || stack == null)
+			throw new NullPointerException();
+		
+		// If there's nowhere to look, we're done
+		if(area.IsDegenerate() || Root == null || !area.Intersects(Root.Boundary))
+			return true;
+		
+		// Anything already on the stack belongs to a query that is visiting us, so we leave it be
+		int base = stack.Top;
+		stack.Push(Root);
+		
+		while(stack.Top > base)
+		{
+			Node n = (Node)stack.Pop();
+			
+			if(n.IsLeaf())
+			{
+				if(area.Intersects(n.Tight) && !visitor.Visit(n.Data))
+				{
+					stack.Top = base;
+					return false;
+				}
+				
+				continue;
+			}
+			
+			// We push right first so that items are visited left to right
+			if(area.Intersects(n.Right.Boundary))
+				stack.Push(n.Right);
+			
+			if(area.Intersects(n.Left.Boundary))
+				stack.Push(n.Left);
+		}
+		
+		return true;
+	}
+	
 	public T Root()
 	{
 		if(IsEmpty())
@@ -626,6 +977,37 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 	 */
 	protected BoundaryExtractor<T> BoundingBoxExtractor;
 	
+	/**
+	 * The distance by which each leaf's bounding box is expanded on every side.
+	 */
+	protected final int Margin;
+	
+	/**
+	 * The traversal stack of each thread, shared by that thread's queries that are not given their own.
+	 */
+	protected final ThreadLocal<TraversalStack> Stacks;
+	
+	/**
+	 * The leaf holding each item.
+	 * When an item is in the tree more than once, only one of its leaves is indexed here.
+	 */
+	protected Dictionary<T,Node> Leaves;
+	
+	/**
+	 * The number of bins the surface area heuristic sorts leaves into when looking for a split.
+	 */
+	protected static final int BUILD_BINS = 16;
+	
+	/**
+	 * The smallest number of leaves whose subtree is worth building in parallel.
+	 */
+	protected static final int PARALLEL_BUILD_GRAIN = 1024;
+	
+	/**
+	 * The depth past which bulk builds stop using the surface area heuristic and just split leaves in half.
+	 */
+	protected static final int MAX_BUILD_DEPTH = 64;
+	
 	/**
 	 * A node for the AABB tree.
 	 * Note that these nodes will ALWAYS have either no children or two children by design.
@@ -759,10 +1141,6 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 						// Assign the new boundary to D
 						D.Boundary = D.Left.Boundary.Union(D.Right.Boundary);
 					}
-
-					// Update the heights of the children (grandchildren are unchanged) so long as we're not in the special removal case
-					if(order != null)
-						Left.Height--; // The tree is balanced now, so we can just subtract one (the new right doesn't change)
 				}
 				else // We're right heavy
 				{
@@ -817,10 +1195,6 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 						// Assign the new boundary to D
 						D.Boundary = D.Left.Boundary.Union(D.Right.Boundary);
 					}
-
-					// Update the heights of the children (grandchildren are unchanged) so long as we're not in the special removal case
-					if(order != null)
-						Right.Height--; // The tree is balanced now, so we can just subtract one (the new left doesn't change)
 				}
 
 				// Assign the grandchildren in the appropriate order so long as we're not in the special removal case
@@ -840,6 +1214,11 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 					// Now we can update the boundaries
 					Left.Boundary = Left.Left.Boundary.Union(Left.Right.Boundary);
 					Right.Boundary = Right.Left.Boundary.Union(Right.Right.Boundary);
+					
+					// And the heights of the children (grandchildren are unchanged)
+					// A bulk built tree need not be perfectly balanced, so we can't assume one rotation fixes everything and must compute these outright
+					Left.Height = Math.max(Left.Left.Height,Left.Right.Height) + 1;
+					Right.Height = Math.max(Right.Left.Height,Right.Right.Height) + 1;
 				}
 			}
 			// END ROTATION LOGIC
@@ -858,7 +1237,7 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 			CellRectangle r = Left.Boundary.Union(Right.Boundary);
 
 			// If the boundary is unchanged, we don't need to propogate it upward
-			if(Boundary != r)
+			if(!r.equals(Boundary))
 			{
 				Boundary = r;
 				needs_updating = true;
@@ -933,8 +1312,15 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 
 		/**
 		 * The bounding box of this node.
+		 * For leaves, this is the fat bounding box.
 		 */
 		public CellRectangle Boundary;
+		
+		/**
+		 * The tight bounding box of a leaf's data as of when it was last added or updated.
+		 * This is null for internal nodes.
+		 */
+		public CellRectangle Tight;
 
 		/**
 		 * The data in this node.
@@ -1063,17 +1449,358 @@ public class AABBTree<T> implements ITree<T>, Collection<T>
 	}
 	
 	/**
-	 * Extracts a bounding box from a generic type.
+	 * Builds a subtree top down using the binned surface area heuristic.
+	 * In two dimensions, the surface area of a box is its perimeter, which is proportional to the chance that a randomly placed query hits it.
+	 * Each split is chosen to minimize the sum over both sides of their perimeter times their number of leaves.
+	 * Rather than trying every possible split, leaves are sorted into a fixed number of bins by their centers, and only the boundaries between bins are tried.
+	 * @author Dawn Nye
+	 */
+	protected class BuildTask extends RecursiveTask<Node>
+	{
+		/**
+		 * Creates a new build task.
+		 * @param leaves The leaves to build from.
+		 * @param boxes The left, top, right, and bottom of each leaf's boundary in turn. These are kept in the same order as {@code order}.
+		 * @param order The index in {@code leaves} of each leaf.
+		 * @param start The first position in {@code order} of the leaves to build from.
+		 * @param end The (exclusive) last position in {@code order} of the leaves to build from.
+		 * @param depth The depth of the subtree being built.
+		 */
+		public BuildTask(Node[] leaves, int[] boxes, int[] order, int start, int end, int depth)
+		{
+			Nodes = leaves;
+			Boxes = boxes;
+			Order = order;
+			Start = start;
+			End = end;
+			Depth = depth;
+			
+			return;
+		}
+		
+		@Override protected Node compute()
+		{
+			if(End - Start == 1)
+				return Nodes[Order[Start]];
+			
+			int mid = Split();
+			
+			BuildTask left = new BuildTask(Nodes,Boxes,Order,Start,mid,Depth + 1);
+			BuildTask right = new BuildTask(Nodes,Boxes,Order,mid,End,Depth + 1);
+			
+			Node l;
+			Node r;
+			
+			// The two halves are disjoint ranges of the leaf array, so they can be built at the same time
+			if(End - Start >= PARALLEL_BUILD_GRAIN)
+			{
+				left.fork();
+				
+				r = right.compute();
+				l = left.join();
+			}
+			else
+			{
+				l = left.compute();
+				r = right.compute();
+			}
+			
+			Node ret = new Node(null,l,r);
+			ret.LinkAdjacentNodes(true);
+			
+			ret.Boundary = l.Boundary.Union(r.Boundary);
+			ret.Height = Math.max(l.Height,r.Height) + 1;
+			
+			return ret;
+		}
+		
+		/**
+		 * Partitions the leaves into two nonempty groups.
+		 * @return Returns the index at which the second group begins.
+		 */
+		protected int Split()
+		{
+			int n = End - Start;
+			
+			// Find the bounds of the leaves' centers (doubled so that they stay integral)
+			int[] min = {Integer.MAX_VALUE,Integer.MAX_VALUE};
+			int[] max = {Integer.MIN_VALUE,Integer.MIN_VALUE};
+			
+			for(int i = Start;i < End;i++)
+				for(int axis = 0;axis < 2;axis++)
+				{
+					int c = Center(i,axis);
+					
+					min[axis] = Math.min(min[axis],c);
+					max[axis] = Math.max(max[axis],c);
+				}
+			
+			// A pathological set of leaves could make the heuristic peel them off one at a time, so we give up on it before the tree gets too deep
+			if(Depth >= MAX_BUILD_DEPTH)
+				return MedianSplit(max[0] - min[0] >= max[1] - min[1] ? 0 : 1);
+			
+			int bins = Math.min(BUILD_BINS,n);
+			
+			int[] counts = new int[bins];
+			int[] bounds = new int[bins << 2]; // Left, top, right, and bottom of each bin
+			long[] costs = new long[bins];
+			
+			long best_cost = Long.MAX_VALUE;
+			int best_axis = -1;
+			int best_bin = -1;
+			float best_scale = 0.0f;
+			
+			for(int axis = 0;axis < 2;axis++)
+			{
+				int extent = max[axis] - min[axis];
+				
+				// If every center is the same along this axis, there's nothing to split
+				if(extent == 0)
+					continue;
+				
+				// Multiplying is much cheaper than dividing, and we bin every leaf
+				float scale = bins / (extent + 1.0f);
+				Arrays.fill(counts,0);
+				
+				for(int b = 0;b < bins;b++)
+				{
+					bounds[b << 2] = bounds[(b << 2) + 1] = Integer.MAX_VALUE;
+					bounds[(b << 2) + 2] = bounds[(b << 2) + 3] = Integer.MIN_VALUE;
+				}
+				
+				for(int i = Start;i < End;i++)
+				{
+					int b = Bin(i,axis,min[axis],scale,bins);
+					counts[b]++;
+					
+					bounds[b << 2] = Math.min(bounds[b << 2],Boxes[i << 2]);
+					bounds[(b << 2) + 1] = Math.min(bounds[(b << 2) + 1],Boxes[(i << 2) + 1]);
+					bounds[(b << 2) + 2] = Math.max(bounds[(b << 2) + 2],Boxes[(i << 2) + 2]);
+					bounds[(b << 2) + 3] = Math.max(bounds[(b << 2) + 3],Boxes[(i << 2) + 3]);
+				}
+				
+				// Sweep from the right to find the cost of everything after each bin boundary
+				int l = Integer.MAX_VALUE;
+				int t = Integer.MAX_VALUE;
+				int r = Integer.MIN_VALUE;
+				int btm = Integer.MIN_VALUE;
+				int count = 0;
+				
+				for(int b = bins - 1;b > 0;b--)
+				{
+					if(counts[b] > 0)
+					{
+						l = Math.min(l,bounds[b << 2]);
+						t = Math.min(t,bounds[(b << 2) + 1]);
+						r = Math.max(r,bounds[(b << 2) + 2]);
+						btm = Math.max(btm,bounds[(b << 2) + 3]);
+						
+						count += counts[b];
+					}
+					
+					costs[b - 1] = count == 0 ? 0L : (long)(r - l + btm - t + 2) * count;
+				}
+				
+				// Now sweep from the left to find the cost of everything before each bin boundary and pick the best boundary
+				l = t = Integer.MAX_VALUE;
+				r = btm = Integer.MIN_VALUE;
+				count = 0;
+				
+				for(int b = 0;b < bins - 1;b++)
+				{
+					if(counts[b] > 0)
+					{
+						l = Math.min(l,bounds[b << 2]);
+						t = Math.min(t,bounds[(b << 2) + 1]);
+						r = Math.max(r,bounds[(b << 2) + 2]);
+						btm = Math.max(btm,bounds[(b << 2) + 3]);
+						
+						count += counts[b];
+					}
+					
+					// Both sides must get something
+					if(count == 0 || count == n)
+						continue;
+					
+					long cost = (long)(r - l + btm - t + 2) * count + costs[b];
+					
+					if(cost < best_cost)
+					{
+						best_cost = cost;
+						best_axis = axis;
+						best_bin = b;
+						best_scale = scale;
+					}
+				}
+			}
+			
+			// If every center is the same, no boundary separates anything, so we just cut the leaves in half
+			if(best_axis < 0)
+				return Start + (n >> 1);
+			
+			// Partition the leaves in place so that the bins up to and including the best one come first
+			int i = Start;
+			int j = End - 1;
+			
+			while(i <= j)
+				if(Bin(i,best_axis,min[best_axis],best_scale,bins) <= best_bin)
+					i++;
+				else
+					Swap(i,j--);
+			
+			return i;
+		}
+		
+		/**
+		 * Swaps two leaves along with their boxes.
+		 * @param i The position of the first leaf.
+		 * @param j The position of the second leaf.
+		 */
+		protected void Swap(int i, int j)
+		{
+			int temp = Order[i];
+			Order[i] = Order[j];
+			Order[j] = temp;
+			
+			for(int k = 0;k < 4;k++)
+			{
+				int b = Boxes[(i << 2) + k];
+				Boxes[(i << 2) + k] = Boxes[(j << 2) + k];
+				Boxes[(j << 2) + k] = b;
+			}
+			
+			return;
+		}
+		
+		/**
+		 * Splits the leaves in half after sorting them by their centers along an axis.
+		 * @param axis The axis to sort along. This is 0 for x and 1 for y.
+		 * @return Returns the index at which the second half begins.
+		 */
+		protected int MedianSplit(int axis)
+		{
+			int n = End - Start;
+			
+			// Pack each leaf's center above its position so that sorting the keys sorts by center and then by position
+			long[] keys = new long[n];
+			
+			for(int i = 0;i < n;i++)
+				keys[i] = (long)Center(Start + i,axis) << 32 | i;
+			
+			Arrays.sort(keys);
+			
+			// Now we can put the leaves and their boxes in sorted order
+			int[] order = Arrays.copyOfRange(Order,Start,End);
+			int[] boxes = Arrays.copyOfRange(Boxes,Start << 2,End << 2);
+			
+			for(int i = 0;i < n;i++)
+			{
+				int from = (int)keys[i];
+				
+				Order[Start + i] = order[from];
+				System.arraycopy(boxes,from << 2,Boxes,(Start + i) << 2,4);
+			}
+			
+			return Start + (n >> 1);
+		}
+		
+		/**
+		 * Determines which bin a leaf belongs to.
+		 * @param i The position of the leaf.
+		 * @param axis The axis being binned along. This is 0 for x and 1 for y.
+		 * @param min The smallest (doubled) center along {@code axis}.
+		 * @param scale The number of bins per unit of (doubled) distance along {@code axis}.
+		 * @param bins The number of bins.
+		 * @return Returns the index of the bin leaf {@code i} belongs to.
+		 */
+		protected int Bin(int i, int axis, int min, float scale, int bins)
+		{return Math.min((int)((Center(i,axis) - min) * scale),bins - 1);}
+		
+		/**
+		 * Determines twice the center of a leaf's boundary along an axis.
+		 * @param i The position of the leaf.
+		 * @param axis The axis. This is 0 for x and 1 for y.
+		 * @return Returns twice the center of leaf {@code i} along {@code axis}.
+		 */
+		protected int Center(int i, int axis)
+		{return Boxes[(i << 2) + axis] + Boxes[(i << 2) + axis + 2];}
+		
+		/**
+		 * The leaves being built from.
+		 */
+		protected final Node[] Nodes;
+		
+		/**
+		 * The left, top, right, and bottom of each leaf's boundary in turn.
+		 */
+		protected final int[] Boxes;
+		
+		/**
+		 * The index in {@code Nodes} of each leaf.
+		 */
+		protected final int[] Order;
+		
+		/**
+		 * The first position of the leaves to build from.
+		 */
+		protected final int Start;
+		
+		/**
+		 * The (exclusive) last position of the leaves to build from.
+		 */
+		protected final int End;
+		
+		/**
+		 * The depth of the subtree being built.
+		 */
+		protected final int Depth;
+	}
+	
+	/**
+	 * The stack of nodes left to explore during a query.
+	 * It is kept between queries so that its storage can be reused.
 	 * @author Dawn Nye
-	 * @param <E> The type of data to extract a bounding box from.
 	 */
-	@FunctionalInterface public interface BoundaryExtractor<E>
+	public static final class TraversalStack
 	{
 		/**
-		 * Extracts a bounding box from a generic piece of data.
-		 * @param data The data to extract a bounding box from.
-		 * @return Returns the bounding box for the provided data or null if no bounding box exists (perhaps when {@code data} is null).
+		 * Creates an empty traversal stack.
+		 */
+		public TraversalStack()
+		{
+			Items = new Object[32];
+			Top = 0;
+			
+			return;
+		}
+		
+		/**
+		 * Pushes a node onto the stack.
+		 */
+		protected void Push(Object n)
+		{
+			if(Top == Items.length)
+				Items = Arrays.copyOf(Items,Top << 1);
+			
+			Items[Top++] = n;
+			return;
+		}
+		
+		/**
+		 * Pops a node off of the stack.
+		 * The popped slot is not cleared, since it will be overwritten soon enough by the next query.
+		 */
+		protected Object Pop()
+		{return Items[--Top];}
+		
+		/**
+		 * The nodes on the stack.
+		 */
+		protected Object[] Items;
+		
+		/**
+		 * The number of nodes on the stack.
 		 */
-		public abstract CellRectangle ExtractBoundary(E data);
+		protected int Top;
 	}
 }
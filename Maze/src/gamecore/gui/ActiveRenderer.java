@@ -0,0 +1,250 @@
+package gamecore.gui;
+
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.swing.JLayeredPane;
+
+import gamecore.input.KeyboardStateMonitor;
+import gamecore.input.MouseStateMonitor;
+
+/**
+ * Draws render snapshots onto a frame from its own thread via active rendering.
+ * The update thread publishes snapshots as it finishes them and never waits on the renderer.
+ * The renderer always draws the newest snapshot available and silently drops any it did not get to in time.
+ * @author Dawn Nye
+ */
+public class ActiveRenderer implements Runnable
+{
+	/**
+	 * Creates a new active renderer for {@code frame}.
+	 * This places a canvas over the frame's content pane, so Swing painting of the content pane will no longer be visible.
+	 * @param frame The frame to draw onto. It must already be displayable.
+	 * @throws NullPointerException Thrown if {@code frame} is null.
+	 */
+	public ActiveRenderer(AbsoluteFrame frame)
+	{
+		Frame = frame;
+		
+		Rectangle bounds = frame.getContentPane().getBounds();
+		Background = frame.getContentPane().getBackground();
+		
+		// We draw on a heavyweight canvas placed above the content pane so that Swing and us do not fight over the same pixels
+		Surface = new Canvas();
+		Surface.setIgnoreRepaint(true);
+		Surface.setBounds(bounds);
+		Surface.setFocusTraversalKeysEnabled(false);
+		
+		// The canvas will steal focus and input, so it needs to report to the input monitors as well
+		Surface.addKeyListener(KeyboardStateMonitor.GetMonitor());
+		Surface.addMouseListener(MouseStateMonitor.GetMonitor());
+		Surface.addMouseMotionListener(MouseStateMonitor.GetMonitor());
+		Surface.addMouseWheelListener(MouseStateMonitor.GetMonitor());
+		
+		frame.getLayeredPane().add(Surface,JLayeredPane.DRAG_LAYER);
+		
+		Surface.createBufferStrategy(2);
+		Strategy = Surface.getBufferStrategy();
+		
+		Latest = new AtomicReference<RenderSnapshot>(null);
+		Worker = null;
+		Running = false;
+		RenderedFrames = 0;
+		
+		return;
+	}
+	
+	/**
+	 * Starts the render thread.
+	 * @throws IllegalStateException Thrown if the render thread is already running.
+	 */
+	public void Start()
+	{
+		if(Running)
+			throw new IllegalStateException();
+		
+		Running = true;
+		
+		Worker = new Thread(this,"Render Thread");
+		Worker.setDaemon(true);
+		Worker.start();
+		
+		return;
+	}
+	
+	/**
+	 * Stops the render thread and waits for it to finish drawing whatever it was in the middle of.
+	 */
+	public void Stop()
+	{
+		if(!Running)
+			return;
+		
+		Running = false;
+		LockSupport.unpark(Worker);
+		
+		try
+		{Worker.join();}
+		catch(InterruptedException e)
+		{}
+		
+		Worker = null;
+		return;
+	}
+	
+	/**
+	 * Publishes a new snapshot to draw.
+	 * This replaces any snapshot that has not yet been drawn.
+	 * @param snapshot The snapshot to draw.
+	 * @throws NullPointerException Thrown if {@code snapshot} is null.
+	 */
+	public void Publish(RenderSnapshot snapshot)
+	{
+		if(snapshot == null)
+			throw new NullPointerException();
+		
+		Latest.set(snapshot);
+		
+		if(Worker != null)
+			LockSupport.unpark(Worker);
+		
+		return;
+	}
+	
+	public void run()
+	{
+		while(Running)
+		{
+			RenderSnapshot snapshot = Latest.getAndSet(null);
+			
+			// If there's nothing new to draw, wait until there is
+			if(snapshot == null)
+			{
+				LockSupport.park(this);
+				continue;
+			}
+			
+			Draw(snapshot);
+			RenderedFrames++;
+		}
+		
+		return;
+	}
+	
+	/**
+	 * Fits the canvas to its frame's content pane again and gives it a new buffer strategy of the new size.
+	 * This must be called whenever the frame changes size.
+	 * If the render thread is in the middle of drawing, this waits for it to finish.
+	 */
+	public void Resize()
+	{
+		// The content pane is not laid out again until its frame is validated
+		Frame.validate();
+		Rectangle bounds = Frame.getContentPane().getBounds();
+		
+		synchronized(this)
+		{
+			Surface.setBounds(bounds);
+			
+			Surface.createBufferStrategy(2);
+			Strategy = Surface.getBufferStrategy();
+		}
+		
+		return;
+	}
+	
+	/**
+	 * Draws a snapshot onto the canvas and flips it to the screen.
+	 * This cannot happen at the same time as a {@code Resize}.
+	 * @param snapshot The snapshot to draw.
+	 */
+	protected synchronized void Draw(RenderSnapshot snapshot)
+	{
+		// The buffer contents can be lost or restored out from under us at any time, in which case we have to start over
+		do
+		{
+			do
+			{
+				Graphics2D g = (Graphics2D)Strategy.getDrawGraphics();
+				
+				try
+				{
+					g.setColor(Background);
+					g.fillRect(0,0,Surface.getWidth(),Surface.getHeight());
+					
+					snapshot.Render(g);
+				}
+				finally
+				{g.dispose();}
+			}
+			while(Strategy.contentsRestored());
+			
+			Strategy.show();
+		}
+		while(Strategy.contentsLost());
+		
+		Toolkit.getDefaultToolkit().sync();
+		return;
+	}
+	
+	/**
+	 * Determines the number of snapshots drawn so far.
+	 * @return Returns the number of snapshots drawn so far.
+	 */
+	public int RenderedFrames()
+	{return RenderedFrames;}
+	
+	/**
+	 * Determines if the render thread is running.
+	 * @return Returns true if the render thread is running and false otherwise.
+	 */
+	public boolean Running()
+	{return Running;}
+	
+	/**
+	 * The frame we draw onto.
+	 */
+	protected final AbsoluteFrame Frame;
+	
+	/**
+	 * The canvas we draw onto.
+	 */
+	protected final Canvas Surface;
+	
+	/**
+	 * The buffer strategy of {@code Surface}.
+	 * This is replaced whenever the canvas is resized.
+	 */
+	protected BufferStrategy Strategy;
+	
+	/**
+	 * The color we clear the canvas to before each frame.
+	 */
+	protected final Color Background;
+	
+	/**
+	 * The most recently published snapshot or null if it has already been drawn.
+	 */
+	protected final AtomicReference<RenderSnapshot> Latest;
+	
+	/**
+	 * The render thread.
+	 */
+	protected Thread Worker;
+	
+	/**
+	 * If true, the render thread should keep running.
+	 */
+	protected volatile boolean Running;
+	
+	/**
+	 * The number of snapshots drawn so far.
+	 */
+	protected volatile int RenderedFrames;
+}
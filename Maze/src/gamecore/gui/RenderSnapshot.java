@@ -0,0 +1,79 @@
+package gamecore.gui;
+
+import java.awt.Graphics2D;
+
+/**
+ * An immutable record of everything that should be drawn for a single frame.
+ * Snapshots are built by the update thread and drawn by a render thread, so nothing inside of one may refer to mutable game state.
+ * @author Dawn Nye
+ */
+public final class RenderSnapshot
+{
+	/**
+	 * Creates a new render snapshot.
+	 * @param frame The update frame this snapshot was taken on.
+	 * @param commands The draw commands for the frame. Commands with a smaller index are drawn on top of commands with a larger index. Null commands are skipped.
+	 * @throws NullPointerException Thrown if {@code commands} is null.
+	 */
+	public RenderSnapshot(int frame, RenderCommand[] commands)
+	{
+		if(commands == null)
+			throw new NullPointerException();
+		
+		Frame = frame;
+		Commands = commands;
+		
+		return;
+	}
+	
+	/**
+	 * Draws this snapshot.
+	 * Each command is given its own copy of {@code g} so that no command can affect the state seen by another.
+	 * @param g The graphics context to draw with.
+	 */
+	public void Render(Graphics2D g)
+	{
+		// The first command should end up on top, so we draw back to front
+		for(int i = Commands.length - 1;i >= 0;i--)
+			if(Commands[i] != null)
+			{
+				Graphics2D g2 = (Graphics2D)g.create();
+				
+				try
+				{Commands[i].Render(g2);}
+				finally
+				{g2.dispose();}
+			}
+		
+		return;
+	}
+	
+	/**
+	 * Obtains the update frame this snapshot was taken on.
+	 */
+	public int Frame()
+	{return Frame;}
+	
+	/**
+	 * The update frame this snapshot was taken on.
+	 */
+	private final int Frame;
+	
+	/**
+	 * The draw commands for the frame.
+	 */
+	private final RenderCommand[] Commands;
+	
+	/**
+	 * A single immutable draw operation.
+	 * @author Dawn Nye
+	 */
+	@FunctionalInterface public interface RenderCommand
+	{
+		/**
+		 * Draws something.
+		 * @param g The graphics context to draw with. It is safe to modify its state.
+		 */
+		public void Render(Graphics2D g);
+	}
+}
@@ -69,6 +69,20 @@ public class AnimatedComponent extends ImageComponent implements IUpdatable, IOb
 		return;
 	}
 	
+	@Override public boolean ParallelSafe()
+	{return ParallelSafe;}
+	
+	/**
+	 * Sets whether this component may be updated in parallel with other components.
+	 * This is only safe when no other observer of this component's animation touches shared state when notified.
+	 * @param safe If true, this component may be updated in parallel. This is false by default.
+	 */
+	public void SetParallelSafe(boolean safe)
+	{
+		ParallelSafe = safe;
+		return;
+	}
+	
 	public void OnNext(TimeEvent event)
 	{
 		if(!event.IsSegmentChange())
@@ -312,4 +326,9 @@ public class AnimatedComponent extends ImageComponent implements IUpdatable, IOb
 	 * If this value is out of bounds, no image is display and no error is thrown.
 	 */
 	protected int SelectedIndex;
+	
+	/**
+	 * If true, this component may be updated in parallel with other components.
+	 */
+	protected boolean ParallelSafe;
 }
@@ -3,6 +3,7 @@ package gamecore.gui.gamecomponents;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.geom.AffineTransform;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -12,6 +13,7 @@ import javax.imageio.ImageIO;
 import javax.imageio.stream.ImageInputStream;
 
 import gamecore.IDrawable;
+import gamecore.gui.RenderSnapshot.RenderCommand;
 
 /**
  * A component that draws an image.
@@ -268,6 +270,18 @@ public class ImageComponent extends AffineComponent implements IDrawable
 		return;
 	}
 	
+	public RenderCommand Snapshot(double alpha)
+	{
+		if(!Show || img == null)
+			return null;
+		
+		// The transformation we get is already a fresh copy, and images are never modified once loaded
+		Image i = img;
+		AffineTransform t = GetTransformation(true);
+		
+		return g -> g.drawImage(i,t,null);
+	}
+	
 	/**
 	 * Sets the dimensions of this component.
 	 * @param w The width.
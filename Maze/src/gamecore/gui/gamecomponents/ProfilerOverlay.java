@@ -0,0 +1,78 @@
+package gamecore.gui.gamecomponents;
+
+import gamecore.time.FrameProfiler;
+
+/**
+ * A text component which periodically displays a summary of a frame profiler.
+ * @author Dawn Nye
+ */
+public class ProfilerOverlay extends TextComponent
+{
+	/**
+	 * Creates a new profiler overlay in the top left corner of the screen.
+	 * It refreshes twice per second.
+	 * @param profiler The profiler to summarize.
+	 * @throws NullPointerException Thrown if {@code profiler} is null.
+	 */
+	public ProfilerOverlay(FrameProfiler profiler)
+	{
+		this(profiler,500L);
+		return;
+	}
+	
+	/**
+	 * Creates a new profiler overlay in the top left corner of the screen.
+	 * @param profiler The profiler to summarize.
+	 * @param refresh The time in milliseconds between refreshes of the summary.
+	 * @throws IllegalArgumentException Thrown if {@code refresh} is negative.
+	 * @throws NullPointerException Thrown if {@code profiler} is null.
+	 */
+	public ProfilerOverlay(FrameProfiler profiler, long refresh)
+	{
+		super("",new java.awt.Font("Courier",java.awt.Font.PLAIN,12),java.awt.Color.WHITE); // TextComponent's fields hide the Font and Color types in here
+		
+		if(profiler == null)
+			throw new NullPointerException();
+		
+		if(refresh < 0L)
+			throw new IllegalArgumentException();
+		
+		Profiler = profiler;
+		RefreshTime = refresh;
+		SinceRefresh = refresh; // Refresh right away on the first update
+		
+		// Text is drawn from its baseline, so we need to move down a bit to be seen at all
+		Translate(4.0,14.0);
+		
+		return;
+	}
+	
+	@Override public void Update(long delta)
+	{
+		SinceRefresh += delta;
+		
+		// Summaries are expensive enough that we don't want to rebuild them every frame
+		if(SinceRefresh < RefreshTime)
+			return;
+		
+		SetText(Profiler.Summary());
+		SinceRefresh = 0L;
+		
+		return;
+	}
+	
+	/**
+	 * The profiler to summarize.
+	 */
+	protected FrameProfiler Profiler;
+	
+	/**
+	 * The time in milliseconds between refreshes of the summary.
+	 */
+	protected long RefreshTime;
+	
+	/**
+	 * The time in milliseconds since the last refresh.
+	 */
+	protected long SinceRefresh;
+}
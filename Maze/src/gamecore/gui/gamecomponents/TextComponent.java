@@ -4,8 +4,10 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
 
 import gamecore.IDrawable;
+import gamecore.gui.RenderSnapshot.RenderCommand;
 
 /**
  * A component that writes a string.
@@ -96,6 +98,28 @@ public class TextComponent extends AffineComponent implements IDrawable
 		return;
 	}
 	
+	public RenderCommand Snapshot(double alpha)
+	{
+		if(!Display || Text == null)
+			return null;
+		
+		// Strings, fonts, and colors are immutable, and the transformation we get is a fresh copy
+		String text = Text;
+		Font font = Font;
+		Color color = Color;
+		AffineTransform t = GetTransformation(true);
+		
+		return g ->
+		{
+			g.setFont(font);
+			g.setColor(color);
+			g.transform(t);
+			
+			g.drawString(text,0,0);
+			return;
+		};
+	}
+	
 	/**
 	 * Hides the text.
 	 */
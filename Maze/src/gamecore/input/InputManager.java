@@ -1,5 +1,9 @@
 package gamecore.input;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 
 import gamecore.GlobalConstants;
@@ -44,12 +48,27 @@ public class InputManager implements IUpdatable
 		if(!Initialized() || Disposed())
 			return;
 		
+		// When replaying, the recorded states replace the live ones, and the recorded delta drives our clock so that input timings are reproduced exactly
+		if(Replaying())
+			if(Playback.Next(PlaybackStates))
+				delta = Playback.Delta();
+			else
+				Arrays.fill(PlaybackStates,false);
+		
 		Clock.Update(delta);
 		LatestTime = Clock.ElapsedTime();
 		
 		for(DictionaryEntry t : Inputs.Values())
 		{
-			boolean b = t.Evaluate();
+			boolean b;
+			
+			if(Replaying())
+				b = t.PlaybackIndex >= 0 && PlaybackStates[t.PlaybackIndex]; // Inputs absent from the log are never satisfied
+			else
+				b = t.Evaluate();
+			
+			if(Recording() && t.RecordIndex >= 0)
+				RecordStates[t.RecordIndex] = b;
 			
 			// !b will be true more often, so put its check first
 			if(!b && t.RawSatisfied())
@@ -60,11 +79,22 @@ public class InputManager implements IUpdatable
 				t.WhenUnsatisfied = LatestTime; // A failsafe to avoid deadlock
 		}
 		
+		if(Recording())
+			try
+			{Recorder.Record(delta,RecordStates);}
+			catch(IOException e)
+			{throw new UncheckedIOException(e);}
+		
 		return;
 	}
 
 	public void Dispose()
 	{
+		if(Recording())
+			StopRecording();
+		
+		StopReplay();
+		
 		Disposed = true;
 		return;
 	}
@@ -72,6 +102,140 @@ public class InputManager implements IUpdatable
 	public boolean Disposed()
 	{return Disposed;}
 	
+	/**
+	 * Begins recording the state of every input registered so far to {@code file} each update.
+	 * Inputs registered after recording begins are not recorded.
+	 * For a replay to reproduce a session, the session must be deterministic given its inputs and {@code seed}, and its updates should occur with a fixed time step.
+	 * @param file The log file to write. It is overwritten if it already exists.
+	 * @param seed A seed for any randomness in the session, which is stored in the log and made available during its replay.
+	 * @throws IllegalStateException Thrown if this is already recording.
+	 * @throws IOException Thrown if the log file could not be opened.
+	 */
+	public void StartRecording(Path file, long seed) throws IOException
+	{
+		if(Recording())
+			throw new IllegalStateException();
+		
+		String[] names = new String[Inputs.Count()];
+		int i = 0;
+		
+		for(DictionaryEntry t : Inputs.Values())
+		{
+			names[i] = t.Name;
+			t.RecordIndex = i++;
+		}
+		
+		Recorder = new InputRecorder(file,names,seed);
+		RecordStates = new boolean[names.length];
+		
+		return;
+	}
+	
+	/**
+	 * Stops recording and closes the log file.
+	 * @throws IllegalStateException Thrown if this is not recording.
+	 * @throws UncheckedIOException Thrown if the log could not be written.
+	 */
+	public void StopRecording()
+	{
+		if(!Recording())
+			throw new IllegalStateException();
+		
+		for(DictionaryEntry t : Inputs.Values())
+			t.RecordIndex = -1;
+		
+		try
+		{Recorder.close();}
+		catch(IOException e)
+		{throw new UncheckedIOException(e);}
+		finally
+		{
+			Recorder = null;
+			RecordStates = null;
+		}
+		
+		return;
+	}
+	
+	/**
+	 * Determines if this is recording input.
+	 */
+	public boolean Recording()
+	{return Recorder != null;}
+	
+	/**
+	 * Begins replaying the input log {@code file}.
+	 * Each update thereafter takes its input states and time delta from the next update in the log rather than evaluating its input formulas.
+	 * Inputs registered in the log are matched to inputs here by name, including inputs registered after the replay begins.
+	 * Inputs missing from the log are never satisfied, and once the log is exhausted no input is satisfied.
+	 * @param file The log file to read.
+	 * @return Returns the seed stored in the log.
+	 * @throws IllegalStateException Thrown if this is already replaying.
+	 * @throws IOException Thrown if the log file could not be read or is not an input log.
+	 */
+	public long StartReplay(Path file) throws IOException
+	{
+		if(Replaying())
+			throw new IllegalStateException();
+		
+		Playback = new InputPlayback(file);
+		PlaybackStates = new boolean[Playback.Names().length];
+		PlaybackIndices = new Dictionary<String,Integer>();
+		
+		String[] names = Playback.Names();
+		
+		for(int i = 0;i < names.length;i++)
+			PlaybackIndices.Put(names[i],i);
+		
+		for(DictionaryEntry t : Inputs.Values())
+			t.PlaybackIndex = PlaybackIndex(t.Name);
+		
+		return Playback.Seed();
+	}
+	
+	/**
+	 * Stops replaying input so that input formulas are evaluated once again.
+	 * This does nothing if this is not replaying.
+	 */
+	public void StopReplay()
+	{
+		if(!Replaying())
+			return;
+		
+		for(DictionaryEntry t : Inputs.Values())
+			t.PlaybackIndex = -1;
+		
+		Playback = null;
+		PlaybackStates = null;
+		PlaybackIndices = null;
+		
+		return;
+	}
+	
+	/**
+	 * Determines if this is replaying input.
+	 */
+	public boolean Replaying()
+	{return Playback != null;}
+	
+	/**
+	 * Determines if this is replaying input and every update in the log has been replayed.
+	 */
+	public boolean ReplayFinished()
+	{return Replaying() && Playback.Finished();}
+	
+	/**
+	 * Determines where the state of the input {@code name} is stored in the replay log.
+	 * @return Returns the index of the input or -1 if it is absent from the log or this is not replaying.
+	 */
+	protected int PlaybackIndex(String name)
+	{
+		if(!Replaying())
+			return -1;
+		
+		return PlaybackIndices.GetOrDefault(name,-1);
+	}
+	
 	/**
 	 * Registers an input formula under the given name with the given expression.
 	 * @param input The input name.
@@ -573,6 +737,31 @@ public class InputManager implements IUpdatable
 	 */
 	protected Dictionary<String,DictionaryEntry> Inputs;
 	
+	/**
+	 * The input log being written or null if we are not recording.
+	 */
+	protected InputRecorder Recorder;
+	
+	/**
+	 * The input states of the current update indexed by each input's {@code RecordIndex}.
+	 */
+	protected boolean[] RecordStates;
+	
+	/**
+	 * The input log being replayed or null if we are not replaying.
+	 */
+	protected InputPlayback Playback;
+	
+	/**
+	 * The replayed input states of the current update indexed by each input's {@code PlaybackIndex}.
+	 */
+	protected boolean[] PlaybackStates;
+	
+	/**
+	 * Maps input names to their index in the replayed log.
+	 */
+	protected Dictionary<String,Integer> PlaybackIndices;
+	
 	/**
 	 * If true, then this game component is initialized.
 	 */
@@ -594,6 +783,9 @@ public class InputManager implements IUpdatable
 			Formula = new LinkedList<InputFunction>();
 			Name = name;
 			
+			RecordIndex = -1;
+			PlaybackIndex = PlaybackIndex(name);
+			
 			// We will always initialize inputs to an unsatisfied state with the minimal length of assumed unsatisfaction possible
 			// We will also ensure that the length of unsatisfaction also exceeds the grace period if enabled
 			WhenSatisfied = GlobalConstants.ALLOW_INPUT_GRACE ? t - GlobalConstants.INPUT_GRACE_TIME : t - 1;
@@ -635,6 +827,16 @@ public class InputManager implements IUpdatable
 		 */
 		public long WhenUnsatisfied;
 		
+		/**
+		 * The index of this input in the log being recorded or -1 if it is not being recorded.
+		 */
+		public int RecordIndex;
+		
+		/**
+		 * The index of this input in the log being replayed or -1 if it is absent from it.
+		 */
+		public int PlaybackIndex;
+		
 		/**
 		 * True if this input is satisfied without any additional processing.
 		 */
@@ -0,0 +1,136 @@
+package gamecore.input;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads back an input log written by an {@code InputRecorder} one update at a time.
+ * The entire log is memory mapped, so reading an update never touches the disk directly.
+ * @author Dawn Nye
+ */
+public class InputPlayback
+{
+	/**
+	 * Opens an input log.
+	 * @param file The log file to read.
+	 * @throws IOException Thrown if the log file could not be read or is not an input log.
+	 * @throws NullPointerException Thrown if {@code file} is null.
+	 */
+	public InputPlayback(Path file) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(file,StandardOpenOption.READ))
+		{Buffer = channel.map(FileChannel.MapMode.READ_ONLY,0L,channel.size());} // The mapping remains valid after the channel is closed
+		
+		if(Buffer.remaining() < 2 * Integer.BYTES + Long.BYTES + Integer.BYTES || Buffer.getInt() != InputRecorder.MAGIC || Buffer.getInt() != InputRecorder.VERSION)
+			throw new IOException("Not an input log: " + file);
+		
+		Seed = Buffer.getLong();
+		Names = new String[Buffer.getInt()];
+		
+		for(int i = 0;i < Names.length;i++)
+		{
+			byte[] utf = new byte[Short.toUnsignedInt(Buffer.getShort())];
+			Buffer.get(utf);
+			
+			Names[i] = new String(utf,StandardCharsets.UTF_8);
+		}
+		
+		TickBytes = Integer.BYTES + (Names.length + 7) / 8;
+		Ticks = Buffer.remaining() / TickBytes;
+		Delta = 0L;
+		
+		return;
+	}
+	
+	/**
+	 * Reads the next update's input states.
+	 * @param states The array to write each input's state into. Its entries are in the same order as {@code Names()}.
+	 * @return Returns true if an update was read and false if the log has been exhausted.
+	 * @throws IllegalArgumentException Thrown if {@code states} does not have one entry per input.
+	 */
+	public boolean Next(boolean[] states)
+	{
+		if(states.length != Names.length)
+			throw new IllegalArgumentException();
+		
+		if(Buffer.remaining() < TickBytes)
+			return false;
+		
+		Delta = Buffer.getInt();
+		
+		for(int i = 0;i < Names.length;i += 8)
+		{
+			int b = Buffer.get();
+			
+			for(int j = 0;j < 8 && i + j < Names.length;j++)
+				states[i + j] = (b & (1 << j)) != 0;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Determines if every update in the log has been read.
+	 */
+	public boolean Finished()
+	{return Buffer.remaining() < TickBytes;}
+	
+	/**
+	 * Obtains the time delta in milliseconds of the update most recently read.
+	 */
+	public long Delta()
+	{return Delta;}
+	
+	/**
+	 * Obtains the names of the recorded inputs.
+	 * @return Returns a copy of the input names in the order their states are read.
+	 */
+	public String[] Names()
+	{return Names.clone();}
+	
+	/**
+	 * Obtains the session seed stored in the log.
+	 */
+	public long Seed()
+	{return Seed;}
+	
+	/**
+	 * Determines the total number of updates in the log.
+	 */
+	public long Ticks()
+	{return Ticks;}
+	
+	/**
+	 * The memory mapped log.
+	 */
+	protected final ByteBuffer Buffer;
+	
+	/**
+	 * The names of the recorded inputs.
+	 */
+	protected final String[] Names;
+	
+	/**
+	 * The session seed stored in the log.
+	 */
+	protected final long Seed;
+	
+	/**
+	 * The number of bytes in each update record.
+	 */
+	protected final int TickBytes;
+	
+	/**
+	 * The total number of updates in the log.
+	 */
+	protected final long Ticks;
+	
+	/**
+	 * The time delta in milliseconds of the update most recently read.
+	 */
+	protected long Delta;
+}
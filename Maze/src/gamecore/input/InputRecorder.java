@@ -0,0 +1,187 @@
+package gamecore.input;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the state of a fixed set of named inputs to a binary log once per update.
+ * The log begins with a header containing {@code MAGIC}, {@code VERSION}, a session seed, and the input names.
+ * Each update then appends its time delta as an int followed by one bit per input, packed into as few bytes as possible.
+ * @author Dawn Nye
+ */
+public class InputRecorder implements AutoCloseable
+{
+	/**
+	 * Creates a new input recorder, overwriting {@code file} if it already exists.
+	 * @param file The log file to write.
+	 * @param names The names of the inputs to record in the order their states will be given to {@code Record}.
+	 * @param seed A seed for any randomness in the session being recorded so that it can be reproduced when the log is replayed.
+	 * @throws IllegalArgumentException Thrown if the UTF-8 encoding of any name is longer than {@code MAX_NAME_BYTES}.
+	 * @throws IOException Thrown if the log file could not be opened or written.
+	 * @throws NullPointerException Thrown if {@code file}, {@code names}, or any element of {@code names} is null.
+	 */
+	public InputRecorder(Path file, String[] names, long seed) throws IOException
+	{
+		// Encode the names up front so that a bad one doesn't clobber the file
+		byte[][] utfs = new byte[names.length][];
+		int longest = 0;
+		
+		for(int i = 0;i < names.length;i++)
+		{
+			utfs[i] = names[i].getBytes(StandardCharsets.UTF_8);
+			
+			if(utfs[i].length > MAX_NAME_BYTES)
+				throw new IllegalArgumentException();
+			
+			longest = Math.max(longest,utfs[i].length);
+		}
+		
+		InputCount = names.length;
+		TickBytes = Integer.BYTES + (InputCount + 7) / 8;
+		Ticks = 0L;
+		
+		Channel = FileChannel.open(file,StandardOpenOption.CREATE,StandardOpenOption.WRITE,StandardOpenOption.TRUNCATE_EXISTING);
+		Buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE,Math.max(TickBytes,Short.BYTES + longest)));
+		
+		// Write the header
+		Buffer.putInt(MAGIC);
+		Buffer.putInt(VERSION);
+		Buffer.putLong(seed);
+		Buffer.putInt(InputCount);
+		
+		for(byte[] utf : utfs)
+		{
+			if(Buffer.remaining() < Short.BYTES + utf.length)
+				Flush();
+			
+			Buffer.putShort((short)utf.length);
+			Buffer.put(utf);
+		}
+		
+		return;
+	}
+	
+	/**
+	 * Records the state of every input for a single update.
+	 * @param delta The time delta of the update in milliseconds.
+	 * @param states The state of each input in the same order as the names given to the constructor.
+	 * @throws IllegalArgumentException Thrown if {@code states} does not have one entry per input.
+	 * @throws IllegalStateException Thrown if this recorder has been closed.
+	 * @throws IOException Thrown if the log could not be written.
+	 */
+	public void Record(long delta, boolean[] states) throws IOException
+	{
+		if(states.length != InputCount)
+			throw new IllegalArgumentException();
+		
+		if(!Channel.isOpen())
+			throw new IllegalStateException();
+		
+		if(Buffer.remaining() < TickBytes)
+			Flush();
+		
+		Buffer.putInt((int)delta);
+		
+		for(int i = 0;i < InputCount;i += 8)
+		{
+			int b = 0;
+			
+			for(int j = 0;j < 8 && i + j < InputCount;j++)
+				if(states[i + j])
+					b |= 1 << j;
+			
+			Buffer.put((byte)b);
+		}
+		
+		Ticks++;
+		return;
+	}
+	
+	/**
+	 * Writes any buffered records to the log file.
+	 * @throws IOException Thrown if the log could not be written.
+	 */
+	public void Flush() throws IOException
+	{
+		Buffer.flip();
+		
+		while(Buffer.hasRemaining())
+			Channel.write(Buffer);
+		
+		Buffer.clear();
+		return;
+	}
+	
+	/**
+	 * Flushes the log and closes the log file.
+	 * Closing an already closed recorder does nothing.
+	 * @throws IOException Thrown if the log could not be written or closed.
+	 */
+	public void close() throws IOException
+	{
+		if(!Channel.isOpen())
+			return;
+		
+		try
+		{Flush();}
+		finally
+		{Channel.close();}
+		
+		return;
+	}
+	
+	/**
+	 * Determines the number of updates recorded so far.
+	 */
+	public long Ticks()
+	{return Ticks;}
+	
+	/**
+	 * The file we're writing the log to.
+	 */
+	protected final FileChannel Channel;
+	
+	/**
+	 * Buffers records so that we need not write to the file every update.
+	 */
+	protected final ByteBuffer Buffer;
+	
+	/**
+	 * The number of inputs recorded each update.
+	 */
+	protected final int InputCount;
+	
+	/**
+	 * The number of bytes written each update.
+	 */
+	protected final int TickBytes;
+	
+	/**
+	 * The number of updates recorded so far.
+	 */
+	protected long Ticks;
+	
+	/**
+	 * The number of bytes we buffer before writing to the log file.
+	 */
+	protected static final int BUFFER_SIZE = 1 << 16;
+	
+	/**
+	 * The longest UTF-8 encoded input name a log can hold, since name lengths are written as unsigned shorts.
+	 */
+	public static final int MAX_NAME_BYTES = 0xFFFF;
+	
+	/**
+	 * The first four bytes of every input log.
+	 */
+	public static final int MAGIC = 0x47434950; // GCIP
+	
+	/**
+	 * The version of the input log format.
+	 */
+	public static final int VERSION = 1;
+}
@@ -0,0 +1,390 @@
+package gamecore.time;
+
+import java.util.Arrays;
+
+import gamecore.IUpdatable;
+import gamecore.datastructures.Dictionary;
+
+/**
+ * Records how long each phase of a game engine's frames take.
+ * The most recent samples of each phase are kept in a ring buffer from which exact percentiles can be computed.
+ * Every sample ever taken is also kept in a histogram whose buckets double in width, so that the long term distribution of frame times is available at a glance.
+ * All times are measured in nanoseconds.
+ * @author Dawn Nye
+ */
+public class FrameProfiler
+{
+	/**
+	 * Creates a new frame profiler.
+	 * @param window The number of recent samples of each phase to keep.
+	 * @param slow The frame time in nanoseconds beyond which a frame is considered slow.
+	 * @param per_component If true, the update time of each component is recorded as well, grouped by component type.
+	 * @throws IllegalArgumentException Thrown if {@code window} is nonpositive or {@code slow} is negative.
+	 */
+	public FrameProfiler(int window, long slow, boolean per_component)
+	{
+		if(window <= 0 || slow < 0L)
+			throw new IllegalArgumentException();
+		
+		int phases = Phase.values().length;
+		
+		Samples = new long[phases][window];
+		Next = new int[phases];
+		SampleCount = new int[phases];
+		
+		Histograms = new long[phases][HISTOGRAM_BUCKETS];
+		Totals = new long[phases];
+		Counts = new long[phases];
+		
+		SlowThreshold = slow;
+		SlowFrames = 0L;
+		
+		PerComponent = per_component;
+		ComponentTimes = new Dictionary<Class,long[]>();
+		
+		return;
+	}
+	
+	/**
+	 * Records a sample for a phase.
+	 * @param phase The phase the sample belongs to.
+	 * @param nanos The time the phase took.
+	 */
+	public void Record(Phase phase, long nanos)
+	{
+		int p = phase.ordinal();
+		
+		Samples[p][Next[p]] = nanos;
+		Next[p] = (Next[p] + 1) % Samples[p].length;
+		
+		if(SampleCount[p] < Samples[p].length)
+			SampleCount[p]++;
+		
+		Histograms[p][Bucket(nanos)]++;
+		Totals[p] += nanos;
+		Counts[p]++;
+		
+		return;
+	}
+	
+	/**
+	 * Records the time taken by an entire frame.
+	 * This also determines if the frame was slow.
+	 * @param nanos The time the frame took.
+	 */
+	public void RecordFrame(long nanos)
+	{
+		Record(Phase.FRAME,nanos);
+		
+		if(nanos > SlowThreshold)
+			SlowFrames++;
+		
+		return;
+	}
+	
+	/**
+	 * Records the time a single component took to update.
+	 * This does nothing unless per component timings are enabled.
+	 * @param component The component that updated.
+	 * @param nanos The time it took to update.
+	 */
+	public void RecordComponent(IUpdatable component, long nanos)
+	{
+		if(!PerComponent)
+			return;
+		
+		long[] times = ComponentTimes.ComputeIfAbsent(component.getClass(),type -> new long[2]);
+		
+		times[0] += nanos;
+		times[1]++;
+		
+		return;
+	}
+	
+	/**
+	 * Determines the {@code p}th percentile of the recent samples of a phase.
+	 * @param phase The phase of interest.
+	 * @param p The percentile to compute as a value in [0,100].
+	 * @return Returns the smallest recent sample at or above which lie {@code p} percent of the recent samples or 0 if there are no samples.
+	 * @throws IllegalArgumentException Thrown if {@code p} is not in [0,100].
+	 */
+	public long Percentile(Phase phase, double p)
+	{
+		if(p < 0.0 || p > 100.0)
+			throw new IllegalArgumentException();
+		
+		int n = SampleCount[phase.ordinal()];
+		
+		if(n == 0)
+			return 0L;
+		
+		// Percentiles are only ever computed on request, so we don't mind paying for a copy here
+		long[] sorted = Arrays.copyOf(Samples[phase.ordinal()],n);
+		Arrays.sort(sorted);
+		
+		return sorted[Math.min(n - 1,(int)Math.ceil(p / 100.0 * n) - (p == 0.0 ? 0 : 1))];
+	}
+	
+	/**
+	 * Determines the largest recent sample of a phase.
+	 * @param phase The phase of interest.
+	 * @return Returns the largest recent sample or 0 if there are no samples.
+	 */
+	public long Max(Phase phase)
+	{
+		long ret = 0L;
+		
+		for(int i = 0;i < SampleCount[phase.ordinal()];i++)
+			ret = Math.max(ret,Samples[phase.ordinal()][i]);
+		
+		return ret;
+	}
+	
+	/**
+	 * Determines the mean of every sample ever taken of a phase.
+	 * @param phase The phase of interest.
+	 * @return Returns the mean sample or 0 if there are no samples.
+	 */
+	public double Mean(Phase phase)
+	{return Counts[phase.ordinal()] == 0L ? 0.0 : Totals[phase.ordinal()] / (double)Counts[phase.ordinal()];}
+	
+	/**
+	 * Determines the number of samples ever taken of a phase.
+	 * @param phase The phase of interest.
+	 * @return Returns the number of samples taken.
+	 */
+	public long Count(Phase phase)
+	{return Counts[phase.ordinal()];}
+	
+	/**
+	 * Obtains a copy of the histogram of every sample ever taken of a phase.
+	 * Bucket {@code i} counts the samples in [{@code BucketLowerBound(i)},{@code BucketUpperBound(i)}).
+	 * @param phase The phase of interest.
+	 * @return Returns a copy of the histogram.
+	 */
+	public long[] Histogram(Phase phase)
+	{return Arrays.copyOf(Histograms[phase.ordinal()],HISTOGRAM_BUCKETS);}
+	
+	/**
+	 * Determines the smallest time which falls into histogram bucket {@code i}.
+	 * @param i The bucket of interest.
+	 * @return Returns the (inclusive) lower bound of the bucket in nanoseconds.
+	 * @throws IndexOutOfBoundsException Thrown if {@code i} is negative or at least the number of buckets.
+	 */
+	public static long BucketLowerBound(int i)
+	{
+		if(i < 0 || i >= HISTOGRAM_BUCKETS)
+			throw new IndexOutOfBoundsException();
+		
+		return i == 0 ? 0L : 1L << (i - 1);
+	}
+	
+	/**
+	 * Determines the smallest time which falls past histogram bucket {@code i}.
+	 * @param i The bucket of interest.
+	 * @return Returns the (exclusive) upper bound of the bucket in nanoseconds. The last bucket has no upper bound, and Long.MAX_VALUE is returned for it.
+	 * @throws IndexOutOfBoundsException Thrown if {@code i} is negative or at least the number of buckets.
+	 */
+	public static long BucketUpperBound(int i)
+	{
+		if(i < 0 || i >= HISTOGRAM_BUCKETS)
+			throw new IndexOutOfBoundsException();
+		
+		return i == HISTOGRAM_BUCKETS - 1 ? Long.MAX_VALUE : 1L << i;
+	}
+	
+	/**
+	 * Determines which histogram bucket a sample belongs in.
+	 * @param nanos The sample.
+	 * @return Returns the bucket index.
+	 */
+	private static int Bucket(long nanos)
+	{return nanos <= 0L ? 0 : 64 - Long.numberOfLeadingZeros(nanos);}
+	
+	/**
+	 * Determines the number of frames that took longer than the slow frame threshold.
+	 */
+	public long SlowFrames()
+	{return SlowFrames;}
+	
+	/**
+	 * Obtains the frame time in nanoseconds beyond which a frame is considered slow.
+	 */
+	public long SlowFrameThreshold()
+	{return SlowThreshold;}
+	
+	/**
+	 * Sets the frame time beyond which a frame is considered slow.
+	 * @param nanos The new threshold in nanoseconds.
+	 * @throws IllegalArgumentException Thrown if {@code nanos} is negative.
+	 */
+	public void SetSlowFrameThreshold(long nanos)
+	{
+		if(nanos < 0L)
+			throw new IllegalArgumentException();
+		
+		SlowThreshold = nanos;
+		return;
+	}
+	
+	/**
+	 * Determines if this profiler records the update time of each component.
+	 */
+	public boolean PerComponent()
+	{return PerComponent;}
+	
+	/**
+	 * Obtains the component types that have had their update times recorded.
+	 */
+	public Iterable<Class> ComponentTypes()
+	{return ComponentTimes.Keys();}
+	
+	/**
+	 * Determines the total update time of every component of type {@code type}.
+	 * @param type The component type of interest.
+	 * @return Returns the total update time in nanoseconds or 0 if no component of this type has been recorded.
+	 */
+	public long ComponentTime(Class type)
+	{
+		long[] times = ComponentTimes.GetOrDefault(type,null);
+		return times == null ? 0L : times[0];
+	}
+	
+	/**
+	 * Determines the number of updates of components of type {@code type} that have been recorded.
+	 * @param type The component type of interest.
+	 * @return Returns the number of updates recorded or 0 if no component of this type has been recorded.
+	 */
+	public long ComponentUpdates(Class type)
+	{
+		long[] times = ComponentTimes.GetOrDefault(type,null);
+		return times == null ? 0L : times[1];
+	}
+	
+	/**
+	 * Forgets every sample taken so far.
+	 */
+	public void Reset()
+	{
+		for(int p = 0;p < Samples.length;p++)
+		{
+			Next[p] = 0;
+			SampleCount[p] = 0;
+			
+			Arrays.fill(Histograms[p],0L);
+			Totals[p] = 0L;
+			Counts[p] = 0L;
+		}
+		
+		SlowFrames = 0L;
+		ComponentTimes.Clear();
+		
+		return;
+	}
+	
+	/**
+	 * Summarizes the recent frame times on a single line.
+	 * @return Returns the median and 99th percentile of recent frames, the slowest recent phase medians, and the number of slow frames.
+	 */
+	public String Summary()
+	{
+		return String.format("frame p50 %.2f ms p99 %.2f ms | update %.2f components %.2f late %.2f draw %.2f repaint %.2f | slow %d",
+			Percentile(Phase.FRAME,50.0) / 1000000.0,Percentile(Phase.FRAME,99.0) / 1000000.0,
+			Percentile(Phase.UPDATE,50.0) / 1000000.0,Percentile(Phase.COMPONENTS,50.0) / 1000000.0,Percentile(Phase.LATE_UPDATE,50.0) / 1000000.0,
+			Percentile(Phase.DRAW,50.0) / 1000000.0,Percentile(Phase.REPAINT,50.0) / 1000000.0,
+			SlowFrames);
+	}
+	
+	/**
+	 * The recent samples of each phase.
+	 */
+	protected final long[][] Samples;
+	
+	/**
+	 * The next index to write to in each phase's ring buffer.
+	 */
+	protected final int[] Next;
+	
+	/**
+	 * The number of meaningful entries in each phase's ring buffer.
+	 */
+	protected final int[] SampleCount;
+	
+	/**
+	 * The histogram of every sample ever taken of each phase.
+	 */
+	protected final long[][] Histograms;
+	
+	/**
+	 * The sum of every sample ever taken of each phase.
+	 */
+	protected final long[] Totals;
+	
+	/**
+	 * The number of samples ever taken of each phase.
+	 */
+	protected final long[] Counts;
+	
+	/**
+	 * The frame time in nanoseconds beyond which a frame is considered slow.
+	 */
+	protected long SlowThreshold;
+	
+	/**
+	 * The number of slow frames.
+	 */
+	protected long SlowFrames;
+	
+	/**
+	 * If true, the update time of each component is recorded.
+	 */
+	protected final boolean PerComponent;
+	
+	/**
+	 * The total update time and number of updates of each component type.
+	 */
+	protected final Dictionary<Class,long[]> ComponentTimes;
+	
+	/**
+	 * The number of histogram buckets.
+	 * Bucket 0 holds nonpositive samples, and bucket i holds samples in [2^(i-1),2^i).
+	 */
+	public static final int HISTOGRAM_BUCKETS = 64;
+	
+	/**
+	 * The phases of a frame.
+	 * @author Dawn Nye
+	 */
+	public static enum Phase
+	{
+		/**
+		 * An entire pass of the main game loop, including any number of updates and a draw.
+		 */
+		FRAME,
+		
+		/**
+		 * The game engine's own {@code Update}.
+		 */
+		UPDATE,
+		
+		/**
+		 * Every game component's {@code Update}.
+		 */
+		COMPONENTS,
+		
+		/**
+		 * The game engine's {@code LateUpdate}.
+		 */
+		LATE_UPDATE,
+		
+		/**
+		 * Every drawable's {@code Draw} or, when pipelined, taking the render snapshot.
+		 */
+		DRAW,
+		
+		/**
+		 * Repainting the window or, when pipelined, publishing the render snapshot.
+		 */
+		REPAINT
+	}
+}
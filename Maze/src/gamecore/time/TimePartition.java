@@ -1,8 +1,9 @@
 package gamecore.time;
 
+import java.util.Arrays;
+
 import gamecore.IUpdatable;
 import gamecore.LINQ.LINQ;
-import gamecore.datastructures.ArrayList;
 import gamecore.datastructures.LinkedList;
 import gamecore.observe.IObservable;
 import gamecore.observe.IObserver;
@@ -36,7 +37,8 @@ public class TimePartition implements IUpdatable, IObservable<TimeEvent>
 		ElapsedTime = 0L;
 		CurrentTime = 0L;
 		
-		Segmentations = new ArrayList<Long>();
+		Segmentations = new long[8];
+		SegmentationCount = 0;
 		
 		Observers = new LinkedList<IObserver<TimeEvent>>();
 		return;
@@ -66,8 +68,15 @@ public class TimePartition implements IUpdatable, IObservable<TimeEvent>
 		ElapsedTime = 0L;
 		CurrentTime = 0L;
 		
-		Segmentations = new ArrayList<Long>(LINQ.Distinct(LINQ.Where(segment_starts,t -> t.compareTo(0L) > 0)));
-		Segmentations.sort(null);
+		// Sort the positive times, then drop the duplicates (which are now adjacent) in place
+		Segmentations = LINQ.From(segment_starts).SelectLong(t -> t).Where(t -> t > 0L).ToArray();
+		Arrays.sort(Segmentations);
+		
+		SegmentationCount = 0;
+		
+		for(int i = 0;i < Segmentations.length;i++)
+			if(SegmentationCount == 0 || Segmentations[i] != Segmentations[SegmentationCount - 1])
+				Segmentations[SegmentationCount++] = Segmentations[i];
 		
 		Observers = new LinkedList<IObserver<TimeEvent>>();
 		return;
@@ -97,7 +106,8 @@ public class TimePartition implements IUpdatable, IObservable<TimeEvent>
 		ElapsedTime = 0L;
 		CurrentTime = 0L;
 		
-		Segmentations = new ArrayList<Long>(clock.Segmentations);
+		Segmentations = Arrays.copyOf(clock.Segmentations,Math.max(8,clock.SegmentationCount));
+		SegmentationCount = clock.SegmentationCount;
 		
 		Observers = new LinkedList<IObserver<TimeEvent>>();
 		return;
@@ -201,23 +211,23 @@ public class TimePartition implements IUpdatable, IObservable<TimeEvent>
 			return -1;
 		
 		// We'll do two special cases here so that writing the binary search doesn't require a weird special case
-		if(Segmentations.size() == 0 || time < Segmentations.get(0))
+		if(SegmentationCount == 0 || time < Segmentations[0])
 			return 0;
 		
-		if(time >= Segmentations.get(Segmentations.size() - 1))
-			return Segmentations.size();
+		if(time >= Segmentations[SegmentationCount - 1])
+			return SegmentationCount;
 		
 		// Set up the l and r pointers
 		int l = 0;
-		int r = Segmentations.size() - 2;
+		int r = SegmentationCount - 2;
 		
 		while(l <= r)
 		{
 			int m = (l + r) >> 1;
 			
-			if(time >= Segmentations.get(m + 1))
+			if(time >= Segmentations[m + 1])
 				l = m + 1;
-			else if(time < Segmentations.get(m))
+			else if(time < Segmentations[m])
 				r = m - 1;
 			else
 				return m + 1;
@@ -239,18 +249,18 @@ public class TimePartition implements IUpdatable, IObservable<TimeEvent>
 		if(time < 0)
 			return false;
 		
-		int size = Segmentations.size();
+		int size = SegmentationCount;
 		
 		if(segment == 0)
-			return size == 0 || time < Segmentations.get(0);
+			return size == 0 || time < Segmentations[0];
 		
 		if(segment < 0 || segment > size)
 			return false;
 		
 		if(segment == size)
-			return time >= Segmentations.get(segment - 1);
+			return time >= Segmentations[segment - 1];
 		
-		return time >= Segmentations.get(segment - 1) && time < Segmentations.get(segment);
+		return time >= Segmentations[segment - 1] && time < Segmentations[segment];
 	}
 	
 	/**
@@ -267,16 +277,17 @@ public class TimePartition implements IUpdatable, IObservable<TimeEvent>
 		
 		int containing_segment = Segment(time);
 		
-		if(containing_segment == 0 && time != 0)
-		{
-			Segmentations.add(0,time);
-			return true;
-		}
-		
-		if(Segmentations.get(containing_segment - 1) == time)
+		if(containing_segment > 0 && Segmentations[containing_segment - 1] == time)
 			return false;
 		
-		Segmentations.add(containing_segment,time);
+		// The new segment starts after every earlier one, so it goes where the containing segment's successor used to be
+		if(SegmentationCount == Segmentations.length)
+			Segmentations = Arrays.copyOf(Segmentations,Math.max(8,Segmentations.length << 1));
+		
+		System.arraycopy(Segmentations,containing_segment,Segmentations,containing_segment + 1,SegmentationCount - containing_segment);
+		Segmentations[containing_segment] = time;
+		SegmentationCount++;
+		
 		return true;
 	}
 	
@@ -291,7 +302,10 @@ public class TimePartition implements IUpdatable, IObservable<TimeEvent>
 		if(index == 0)
 			return 0;
 		
-		return Segmentations.get(index - 1);
+		if(index < 0 || index > SegmentationCount)
+			throw new IndexOutOfBoundsException();
+		
+		return Segmentations[index - 1];
 	}
 	
 	/**
@@ -307,10 +321,10 @@ public class TimePartition implements IUpdatable, IObservable<TimeEvent>
 		if(seg == 0)
 			return false;
 		
-		if(Segmentations.get(seg - 1) != time)
+		if(Segmentations[seg - 1] != time)
 			return false;
 		
-		Segmentations.remove(seg - 1);
+		RemoveSegment(seg);
 		return true;
 	}
 	
@@ -321,14 +335,24 @@ public class TimePartition implements IUpdatable, IObservable<TimeEvent>
 	 * @throws IndexOutOfBoundsException Thrown if {@code index} is less than 1 (the first segment always begins at 0) or if {@code index} is at least {@code SegmentCount()}.
 	 */
 	public long RemoveSegment(int index)
-	{return Segmentations.remove(index - 1);}
+	{
+		if(index < 1 || index > SegmentationCount)
+			throw new IndexOutOfBoundsException();
+		
+		long ret = Segmentations[index - 1];
+		
+		System.arraycopy(Segmentations,index,Segmentations,index - 1,SegmentationCount - index);
+		SegmentationCount--;
+		
+		return ret;
+	}
 	
 	/**
 	 * Determines the number of time segments in the time partition.
 	 * @return Returns the number of time segements present.
 	 */
 	public int SegmentCount()
-	{return 1 + Segmentations.size();}
+	{return 1 + SegmentationCount;}
 	
 	/**
 	 * Causes time to be experienced starting at whatever the current time is.
@@ -520,8 +544,8 @@ public class TimePartition implements IUpdatable, IObservable<TimeEvent>
 	{
 		String ret = "{0";
 		
-		for(Long l : Segmentations)
-			ret += ", " + l;
+		for(int i = 0;i < SegmentationCount;i++)
+			ret += ", " + Segmentations[i];
 		
 		return ret + "}";
 	}
@@ -653,7 +677,12 @@ public class TimePartition implements IUpdatable, IObservable<TimeEvent>
 	 * The times when a new time segment beings.
 	 * The last time segement carries on to infinity.
 	 */
-	protected ArrayList<Long> Segmentations;
+	protected long[] Segmentations;
+	
+	/**
+	 * The number of meaningful entries in {@code Segmentations}.
+	 */
+	protected int SegmentationCount;
 	
 	/**
 	 * The observers of this timeline.
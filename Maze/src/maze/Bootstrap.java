@@ -1,5 +1,8 @@
 package maze;
 
+import java.nio.file.Paths;
+import java.util.Arrays;
+
 /**
  * The bootstrap class that starts a game.  
  * @author Dawn Nye
@@ -8,11 +11,51 @@ public class Bootstrap
 {
 	/**
 	 * Loads a game and any related settings and mods.
-	 * @param The command line arguments.
+	 * @param The command line arguments. These are the width and height of the maze followed by, optionally, a number of frames to simulate headlessly or else {@code record <file>} or {@code replay <file>} to record input to or replay input from a log.
+	 * Any of these may end with {@code parallel} to update parallel safe components in parallel, which changes the order in which the game's components update.
 	 */
 	public static void main(String[] args) throws Exception
 	{
-		new Thread(new Maze(Integer.parseInt(args[0]),Integer.parseInt(args[1]))).start();
+		boolean parallel = args.length > 2 && args[args.length - 1].equals("parallel");
+		
+		if(parallel)
+			args = Arrays.copyOf(args,args.length - 1);
+		
+		if(args.length > 3 && args[2].equals("record"))
+		{
+			Maze game = new Maze(Integer.parseInt(args[0]),Integer.parseInt(args[1]),Paths.get(args[3]));
+			game.SetParallelUpdates(parallel);
+			
+			new Thread(game).start();
+			return;
+		}
+		
+		if(args.length > 3 && args[2].equals("replay"))
+		{
+			// Replays run headlessly right here just like a timed run
+			Maze game = new Maze(Integer.parseInt(args[0]),Integer.parseInt(args[1]),0L,Paths.get(args[3]));
+			game.SetParallelUpdates(parallel);
+			game.run();
+			
+			System.out.println(game.Frame() + " ticks replayed in " + game.RunTime() / 1000000 + " ms (" + game.TicksPerSecond() + " ticks per second)");
+			return;
+		}
+		
+		if(args.length > 2)
+		{
+			// Headless games run right here and report how fast they went when they're done
+			Maze game = new Maze(Integer.parseInt(args[0]),Integer.parseInt(args[1]),Long.parseLong(args[2]));
+			game.SetParallelUpdates(parallel);
+			game.run();
+			
+			System.out.println(game.Frame() + " ticks in " + game.RunTime() / 1000000 + " ms (" + game.TicksPerSecond() + " ticks per second)");
+			return;
+		}
+		
+		Maze game = new Maze(Integer.parseInt(args[0]),Integer.parseInt(args[1]));
+		game.SetParallelUpdates(parallel);
+		
+		new Thread(game).start();
 		return;
 	}
 }
@@ -2,12 +2,16 @@ package maze;
 
 import java.awt.event.KeyEvent;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
 
 import gamecore.GameEngine;
+import gamecore.datastructures.SpatialHash;
 import gamecore.datastructures.vectors.Vector2d;
 import gamecore.input.InputManager;
 import gamecore.input.InputMap;
 import maze.collision.CollisionEngine;
+import maze.collision.ICollidable;
 
 /**
  * Creates a maze exploration game.
@@ -23,6 +27,59 @@ public class Maze extends GameEngine
 		Height = height;
 	}
 	
+	/**
+	 * Creates a headless maze game which simulates {@code ticks} frames as fast as it can.
+	 * @param width The width of the maze in big tiles.
+	 * @param height The height of the maze in big tiles.
+	 * @param ticks The number of frames to simulate. If this value is nonpositive, the game runs until it quits on its own.
+	 */
+	public Maze(int width, int height, long ticks)
+	{
+		super(30,ticks);
+		
+		Width = width;
+		Height = height;
+		
+		return;
+	}
+	
+	/**
+	 * Creates a maze game which records its input to {@code record} so that it can be replayed later.
+	 * The game updates with a fixed time step so that a headless replay reproduces it exactly.
+	 * @param width The width of the maze in big tiles.
+	 * @param height The height of the maze in big tiles.
+	 * @param record The input log to write.
+	 */
+	public Maze(int width, int height, Path record)
+	{
+		super("CSC 207 Maze",null,16 * 3 * width + 16,16 * 3 * height + 39,30,true);
+		
+		Width = width;
+		Height = height;
+		RecordFile = record;
+		
+		return;
+	}
+	
+	/**
+	 * Creates a headless maze game which replays the input log {@code replay} as fast as it can.
+	 * The maze must be the same size as the one that was recorded, but its mazes are generated from the seed stored in the log.
+	 * @param width The width of the maze in big tiles.
+	 * @param height The height of the maze in big tiles.
+	 * @param ticks The maximum number of frames to simulate. If this value is nonpositive, the game runs until the log is exhausted or it quits on its own.
+	 * @param replay The input log to replay.
+	 */
+	public Maze(int width, int height, long ticks, Path replay)
+	{
+		super(30,ticks);
+		
+		Width = width;
+		Height = height;
+		ReplayFile = replay;
+		
+		return;
+	}
+	
 	@Override protected void Initialize()
 	{
 		// Initialize input data
@@ -65,10 +122,25 @@ public class Maze extends GameEngine
 		Input.AddInput("A",() -> Bindings.GetBinding("A").DigitalEvaluation.Evaluate(),true);
 		
 		// Initialize the collision engine
-		CollisionResolver = new CollisionEngine();
+		// Every static is a tile sitting on the tile grid, so a spatial hash with tile sized cells finds them faster than a tree can
+		CollisionResolver = new CollisionEngine(new SpatialHash<ICollidable>(c -> c.GetBoundary(),16));
+		CollisionResolver.SetParallelNarrowPhase(true); // Resolution stays in order, so replays are unaffected
 		AddService(CollisionResolver);
 
-		Map = new MazeMap(Width, Height);
+		// Recorded and replayed games must generate the same mazes, so they share a seed through the input log
+		long seed = new Random().nextLong();
+		
+		try
+		{
+			if(ReplayFile != null)
+				seed = Input.StartReplay(ReplayFile);
+			else if(RecordFile != null)
+				Input.StartRecording(RecordFile,seed);
+		}
+		catch(IOException e)
+		{throw new RuntimeException(e);}
+		
+		Map = new MazeMap(Width, Height, seed);
 
 		// Generate a new maze
 		try {
@@ -130,7 +202,7 @@ public class Maze extends GameEngine
 	
 	@Override protected void LateUpdate(long delta)
 	{
-		if(Input.GracelessInputSatisfied("Exit"))
+		if(Input.GracelessInputSatisfied("Exit") || Input.ReplayFinished())
 			Quit();
 		
 		// We resolve collisions last so that hopefully Java's swing library will paint after we do that and we won't see ugly in between states
@@ -176,6 +248,16 @@ public class Maze extends GameEngine
 	 */
 	protected int Height;
 	
+	/**
+	 * The input log to record to or null if we are not recording.
+	 */
+	protected Path RecordFile;
+	
+	/**
+	 * The input log to replay or null if we are not replaying.
+	 */
+	protected Path ReplayFile;
+	
 	/**
 	 * The maximum number of teleporters allowed.
 	 * This value is arbitrary and could be ignored.
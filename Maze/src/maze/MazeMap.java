@@ -1,5 +1,7 @@
 package maze;
 
+import gamecore.LINQ.LINQ;
+import gamecore.datastructures.Dictionary;
 import gamecore.datastructures.queues.PriorityQueue;
 import gamecore.datastructures.tuples.Triple;
 import gamecore.datastructures.vectors.Vector2d;
@@ -44,6 +46,20 @@ public class MazeMap{
         Initialize();
     }
 
+    /**
+     * The constructor, it takes the height and width of the map and a seed for its random generation,
+     * Two maps with the same size and seed generate the same sequence of mazes
+     * @param width The width of the map
+     * @param height The height of the map
+     * @param seed The seed of the random number generator used to generate mazes
+     * @throws IndexOutOfBoundsException Thrown if width or height is less than or equal to 0
+     */
+    public MazeMap(int width, int height, long seed)
+    {
+        this(width, height);
+        rand = new Random(seed);
+    }
+
 
     /**
      * This disposes the original map(if exist), and then create a new maze map
@@ -145,6 +161,10 @@ public class MazeMap{
      * @throws IOException
      */
     public void Visualize() throws IOException {
+        //Index the teleporters by position so each big tile is looked up in constant time rather than by scanning the lists
+        Dictionary<Vector2i, Vector2i> teleports = Teleporter == null ? new Dictionary<>() : LINQ.ToDictionary(LINQ.Pair(Teleporter, Displacement), p -> p.Item1, p -> p.Item2);
+        Dictionary<Vector2i, Vector2i> destinations = Destination == null ? new Dictionary<>() : LINQ.ToDictionary(Destination, d -> d);
+
         for(int i = 0; i < Height; i++)
         {
             for (int j = 0; j < Width; j++)
@@ -197,17 +217,15 @@ public class MazeMap{
                     View[i][j] = new MazeBigTile(MazeBigTile.TileTypes.START, exits, pos);
                 }
 
-                else if(Destination != null && Destination.contains(pos))//if this big tile is the teleport destination point
+                else if(destinations.ContainsKey(pos))//if this big tile is the teleport destination point
                 {
                     View[i][j] = new MazeBigTile(MazeBigTile.TileTypes.TELEPORT_DESTINATION, exits, pos);
                 }
 
-                else if(Teleporter != null && Teleporter.contains(pos))//if this big tile is the teleport start point
+                else if(teleports.ContainsKey(pos))//if this big tile is the teleport start point
                 {
-                    int index = Teleporter.indexOf(pos);
                     System.out.println(pos);
-                    //the index of this start position is the same as the index of its displacement though not in different list
-                    View[i][j] = new MazeBigTile(MazeBigTile.TileTypes.TELEPORTER, exits, Displacement.get(index), pos);
+                    View[i][j] = new MazeBigTile(MazeBigTile.TileTypes.TELEPORTER, exits, teleports.Get(pos), pos);
                 }
                 else//just a normal big tile
                 {
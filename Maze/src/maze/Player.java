@@ -30,6 +30,7 @@ public class Player extends ImageComponent implements ICollidable, IObserver<Tim
 
 		Frozen = false;
 		InGame = false;
+		delta_p = Vector2d.ZERO;
 
 		Animation animation1 = new Animation(new File("assets/animations/Portal.animation"));
 		Portal = new AnimatedComponent(animation1);
@@ -57,6 +58,9 @@ public class Player extends ImageComponent implements ICollidable, IObserver<Tim
 		//set to (0,0)
 		Translate(this.GetPosition(true).Multiply(-1.0));
 		Translate(new Vector2d(pos.X + 3, pos.Y + 3.5));
+
+		// Being placed somewhere isn't moving there, so there's nothing to sweep
+		delta_p = Vector2d.ZERO;
 	}
 
 	/**
@@ -111,21 +115,27 @@ public class Player extends ImageComponent implements ICollidable, IObserver<Tim
 	
 	public void Update(long delta)
 	{
+		// The collision engine sweeps us along how far we moved this update
+		delta_p = Vector2d.ZERO;
+
 		if(IsFrozen())
 			return;
 			InputManager Input = GameEngine.Game().<InputManager>GetService(InputManager.class);
 
 			if (Input.GracelessInputSatisfied("Left"))
-				Translate(Vector2i.LEFT.Multiply(Speed));
+				delta_p = delta_p.Add(Vector2i.LEFT.Multiply(Speed));
 
 			if (Input.GracelessInputSatisfied("Right"))
-				Translate(Vector2i.RIGHT.Multiply(Speed));
+				delta_p = delta_p.Add(Vector2i.RIGHT.Multiply(Speed));
 
 			if (Input.GracelessInputSatisfied("Up"))
-				Translate(Vector2i.UP.Multiply(Speed));
+				delta_p = delta_p.Add(Vector2i.UP.Multiply(Speed));
 
 			if (Input.GracelessInputSatisfied("Down"))
-				Translate(Vector2i.DOWN.Multiply(Speed));
+				delta_p = delta_p.Add(Vector2i.DOWN.Multiply(Speed));
+
+			if(!delta_p.IsZero())
+				Translate(delta_p);
 	}
 	
 	@Override public void OnAdd()
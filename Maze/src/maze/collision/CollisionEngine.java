@@ -1,11 +1,17 @@
 package maze.collision;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import gamecore.IUpdatable;
 import gamecore.LINQ.LINQ;
+import gamecore.datastructures.ArrayList;
 import gamecore.datastructures.CellRectangle;
+import gamecore.datastructures.Dictionary;
 import gamecore.datastructures.ICollection;
+import gamecore.datastructures.ISpatialIndex;
 import gamecore.datastructures.LinkedList;
 import gamecore.datastructures.trees.AABBTree;
 import gamecore.datastructures.vectors.Vector2d;
@@ -14,6 +20,13 @@ import maze.Player;
 
 /**
  * Handles collisions.
+ * Kinetic objects are resolved against the static objects they run into.
+ * A kinetic object with a velocity is swept along the path it took this frame, stopping at the first solid thing in its way and sliding along it, so that it cannot pass through walls no matter how fast it moves.
+ * Static objects are found with a pluggable spatial index, which is an AABB tree unless another is provided.
+ * A {@code SpatialHash} whose cells match the size of the tiles is a good choice for a tile map.
+ * Kinetic objects do not push each other around, but overlapping pairs of them are tracked from frame to frame so that triggers can be told when an overlap begins, continues, and ends.
+ * A kinetic object which hasn't moved since it was last checked is left to rest rather than checked again, so the cost of an update follows how many things are moving rather than how many things there are.
+ * The static objects near each kinetic can be found in parallel, but kinetics are always moved and triggers always notified in order, so the results never depend on how the work was split up.
  * @author Dawn Nye
  */
 public class CollisionEngine implements IUpdatable, ICollection<ICollidable>
@@ -23,8 +36,36 @@ public class CollisionEngine implements IUpdatable, ICollection<ICollidable>
 	 */
 	public CollisionEngine()
 	{
+		this(new AABBTree<ICollidable>(c -> c.GetBoundary()));
+		return;
+	}
+	
+	/**
+	 * Creates an empty collision engine.
+	 * @param statics The spatial index to keep static objects in. It should be empty.
+	 * @throws NullPointerException Thrown if {@code statics} is null.
+	 */
+	public CollisionEngine(ISpatialIndex<ICollidable> statics)
+	{
+		if(statics == null)
+			throw new NullPointerException();
+		
 		Kinetics = new LinkedList<ICollidable>();
-		Statics = new AABBTree<ICollidable>(c -> c.GetBoundary());
+		Statics = statics;
+		
+		KineticTree = new AABBTree<ICollidable>(c -> c.GetBoundary(),KINETIC_MARGIN);
+		KineticStates = new Dictionary<ICollidable,KineticState>();
+		NextKineticID = 0;
+		
+		Contacts = new ArrayList<KineticContact>();
+		ContactIndex = new Dictionary<Long,KineticContact>();
+		ContactEvents = new ArrayList<KineticContact>();
+		Movers = new ArrayList<KineticState>();
+		Frame = 0;
+		
+		StaticsVersion = 0;
+		ParallelNarrowPhase = false;
+		ResetCounters();
 		
 		DelayedAdds = new LinkedList<ICollidable>();
 		
@@ -40,14 +81,7 @@ public class CollisionEngine implements IUpdatable, ICollection<ICollidable>
 	 */
 	public CollisionEngine(Iterable<? extends ICollidable> seed)
 	{
-		Kinetics = new LinkedList<ICollidable>();
-		Statics = new AABBTree<ICollidable>(c -> c.GetBoundary(),seed);
-		
-		DelayedAdds = new LinkedList<ICollidable>();
-		
-		Initialized = false;
-		Disposed = false;
-		
+		this(new AABBTree<ICollidable>(c -> c.GetBoundary(),seed));
 		return;
 	}
 	
@@ -59,22 +93,497 @@ public class CollisionEngine implements IUpdatable, ICollection<ICollidable>
 
 	public void Update(long delta)
 	{
-		// We only care about kinetic-static collisions
+		Frame++;
+		
+		// Kinetic-static collisions come first since they move the kinetics
+		// What each kinetic needs to know about the statics is gathered before anything is resolved, and that part can be done in parallel
+		int n = 0;
+		
+		for(ICollidable c : Kinetics)
+		{
+			if(n == Manifolds.length)
+				Manifolds = Arrays.copyOf(Manifolds,n << 1);
+			
+			if(Manifolds[n] == null)
+				Manifolds[n] = new KineticManifold();
+			
+			Manifolds[n++].Set(c,KineticStates.Get(c));
+		}
+		
+		if(ParallelNarrowPhase && n > PARALLEL_NARROW_GRAIN && Statics.ConcurrentQueries())
+			ForkJoinPool.commonPool().invoke(new GatherTask(0,n));
+		
+		// Resolution happens in order on this thread, so the results are the same no matter how the gathering was done
+		for(int i = 0;i < n;i++)
+		{
+			KineticManifold m = Manifolds[i];
+			
+			// Anything a trigger removed from the collision engine is left alone
+			if(!m.State.Removed)
+			{
+				// A trigger (or a kinetic listed more than once) may have changed what we gathered, in which case we gather it again
+				if(!m.Gathered || !IsCurrent(m))
+					Gather(m);
+				
+				Commit(m);
+			}
+			
+			m.Release();
+		}
+		
+		UpdateKineticContacts();
+		return;
+	}
+	
+	/**
+	 * Gathers everything needed to resolve a kinetic object's collisions with the static objects.
+	 * This changes nothing but {@code m}, so it is safe to gather many kinetics at once so long as the static objects are left alone.
+	 * @param m The manifold of the kinetic object.
+	 */
+	protected void Gather(KineticManifold m)
+	{
+		KineticState state = m.State;
+		CellRectangle boundary = m.Kinetic.GetBoundary();
+		Vector2d v = m.Kinetic.Velocity();
+		
+		m.Boundary = boundary;
+		m.Velocity = v;
+		m.StaticsVersion = StaticsVersion;
+		m.CandidateCount = 0;
+		m.Correction = null;
+		m.Gathered = true;
+		
+		if(boundary == null)
+			return;
+		
+		m.Moving = v != null && !v.IsZero();
+		
+		// Something left touching nothing that hasn't budged since can't have run into anything unless the statics have changed
+		m.Asleep = !m.Moving && state.StaticsVersion == StaticsVersion && !state.Touching && boundary.equals(state.Boundary);
+		
+		if(m.Asleep)
+			return;
+		
+		// Something that hasn't moved can only be pushed out of whatever it's in
+		if(!m.Moving)
+		{
+			Statics.Query(boundary,m.Collector);
+			return;
+		}
+		
+		// Bounding boxes cover the cells from Left to Right inclusive, so as continuous boxes they end one past Right and Bottom
+		int l = (int)Math.floor(Math.min(boundary.Left(),boundary.Left() - v.X));
+		int t = (int)Math.floor(Math.min(boundary.Top(),boundary.Top() - v.Y));
+		int r = (int)Math.ceil(Math.max(boundary.Right() + 1,boundary.Right() + 1 - v.X));
+		int b = (int)Math.ceil(Math.max(boundary.Bottom() + 1,boundary.Bottom() + 1 - v.Y));
+		
+		Statics.Query(new CellRectangle(l,t,r - l,b - t),m.Collector);
+		m.Correction = Sweep(m);
+		
+		return;
+	}
+	
+	/**
+	 * Determines if what was gathered for a kinetic object is still true.
+	 * @param m The manifold of the kinetic object.
+	 * @return Returns true if {@code m} can be committed as is and false if it must be gathered again.
+	 */
+	protected boolean IsCurrent(KineticManifold m)
+	{
+		if(m.StaticsVersion != StaticsVersion || m.State.CommittedFrame == Frame)
+			return false;
+		
+		CellRectangle boundary = m.Kinetic.GetBoundary();
+		
+		if(boundary == null ? m.Boundary != null : !boundary.equals(m.Boundary))
+			return false;
+		
+		Vector2d v = m.Kinetic.Velocity();
+		return v == null ? m.Velocity == null : v.equals(m.Velocity);
+	}
+	
+	/**
+	 * Resolves a kinetic object's collisions with the static objects using what was gathered for it.
+	 * This is where the kinetic is moved and triggers are notified, so it must happen on the update thread.
+	 * @param m The manifold of the kinetic object.
+	 */
+	protected void Commit(KineticManifold m)
+	{
+		ICollidable c = m.Kinetic;
+		KineticState state = m.State;
+		
+		state.CommittedFrame = Frame;
+		
+		if(m.Boundary == null)
+		{
+			state.Boundary = null;
+			return;
+		}
+		
+		if(m.Asleep)
+		{
+			StaticQueriesSkipped++;
+			return;
+		}
+		
+		// VisitStatic is told which kinetic it's working on rather than given it so that it can serve as a visitor too
+		CurrentKinetic = c;
+		CurrentTouching = false;
+		StaticQueries++;
+		
+		if(m.Moving)
+		{
+			CellRectangle end = m.Boundary;
+			
+			if(m.Correction != null)
+			{
+				c.Translate(m.Correction);
+				end = c.GetBoundary();
+			}
+			
+			// Now we can handle triggers and anything we started off inside of
+			for(int i = 0;i < m.CandidateCount;i++)
+				if(end != null && end.Intersects(m.CandidateBoundaries[i]))
+					VisitStatic(m.Candidates[i]);
+		}
+		else
+			for(int i = 0;i < m.CandidateCount;i++)
+				VisitStatic(m.Candidates[i]);
+		
+		CurrentKinetic = null;
+		
+		// Anything still touching a static keeps getting checked, since triggers want to hear about it every frame
+		state.Boundary = c.GetBoundary();
+		state.Touching = CurrentTouching;
+		state.StaticsVersion = m.StaticsVersion;
+		
+		return;
+	}
+	
+	/**
+	 * Finds every pair of overlapping kinetic objects and notifies them of whether their overlap has just begun, is continuing, or has ended.
+	 * All of the pairs are found before anyone is notified so that triggers are free to add or remove collidable objects.
+	 */
+	protected void UpdateKineticContacts()
+	{
+		// A lone kinetic has nothing to overlap, and the tree can catch up on its movement whenever company arrives
+		if(Kinetics.Count() < 2 && Contacts.Count() == 0)
+			return;
+		
+		// Bring the kinetic tree up to date with wherever everything has moved to
+		// Most kinetics haven't left their fat boxes, so this rarely changes the tree
 		for(ICollidable c : Kinetics)
-			for(ICollidable stat : Statics.Query(c))
+		{
+			KineticState state = KineticStates.Get(c);
+			CellRectangle boundary = c.GetBoundary();
+			
+			if(boundary == null ? state.ContactBoundary == null : boundary.equals(state.ContactBoundary))
+				continue;
+			
+			state.ContactBoundary = boundary;
+			state.MovedFrame = Frame;
+			
+			if(!KineticTree.Update(c) && !KineticTree.Contains(c))
+				KineticTree.Add(c); // Anything that lacked a bounding box when it was added gets another chance to join in
+			
+			if(boundary != null)
+				Movers.Add(state);
+		}
+		
+		// Only the kinetics that have moved can have found or lost company
+		KineticQueriesSkipped += Kinetics.Count() - Movers.Count();
+		
+		for(KineticState state : Movers)
+		{
+			CurrentKinetic = state.Kinetic;
+			CurrentKineticState = state;
+			KineticQueries++;
+			
+			KineticTree.Query(state.ContactBoundary,KineticVisitor);
+		}
+		
+		CurrentKinetic = null;
+		CurrentKineticState = null;
+		
+		Movers.Clear();
+		
+		// Take note of what needs to be said and drop the pairs that no longer overlap while keeping the rest in the order they began in
+		ContactEvents.Clear();
+		int n = 0;
+		
+		for(KineticContact contact : Contacts)
+		{
+			ContactEvents.Add(contact);
+			
+			// Two kinetics that are where they were the last time they overlapped still overlap
+			if(contact.LastFrame != Frame && !HasMoved(contact.A) && !HasMoved(contact.B))
+				contact.LastFrame = Frame;
+			
+			if(contact.LastFrame == Frame)
+				Contacts.set(n++,contact);
+			else
+				ContactIndex.RemoveByKey(contact.Key);
+		}
+		
+		while(Contacts.Count() > n)
+			Contacts.remove(Contacts.Count() - 1);
+		
+		// Now we can notify everyone
+		for(KineticContact contact : ContactEvents)
+			if(contact.LastFrame != Frame)
+			{
+				if(contact.A.IsTrigger())
+					contact.A.TriggerEnd(contact.B);
+				
+				if(contact.B.IsTrigger())
+					contact.B.TriggerEnd(contact.A);
+			}
+			else
 			{
-				// If we're a trigger, do that first in case magic happens
-				if(stat.IsTrigger())
-					stat.Trigger(c);
+				if(contact.FirstFrame == Frame)
+				{
+					if(contact.A.IsTrigger())
+						contact.A.TriggerBegin(contact.B);
+					
+					if(contact.B.IsTrigger())
+						contact.B.TriggerBegin(contact.A);
+				}
+				
+				if(contact.A.IsTrigger())
+					contact.A.Trigger(contact.B);
 				
-				// We don't do an else if here because maybe we trigger something by bumping into a solid
-				if(stat.IsSolid())
-					ResolveKineticStaticCollision(c,stat);
+				if(contact.B.IsTrigger())
+					contact.B.Trigger(contact.A);
 			}
 		
+		ContactEvents.Clear();
 		return;
 	}
 	
+	/**
+	 * Records that {@code CurrentKinetic} overlaps another kinetic object this frame.
+	 * @param other The other kinetic object.
+	 * @return Always returns true so that every kinetic object is visited.
+	 */
+	protected boolean VisitKinetic(ICollidable other)
+	{
+		if(other == CurrentKinetic)
+			return true;
+		
+		// A pair that have both moved turns up twice, once from each side, so we only take it from the side with the smaller ID
+		KineticState other_state = KineticStates.Get(other);
+		boolean first = CurrentKineticState.ID < other_state.ID;
+		
+		if(!first && other_state.MovedFrame == Frame)
+			return true;
+		
+		long key = first ? (long)CurrentKineticState.ID << 32 | other_state.ID : (long)other_state.ID << 32 | CurrentKineticState.ID;
+		KineticContact contact = ContactIndex.GetOrDefault(key,null);
+		
+		if(contact == null)
+		{
+			contact = first ? new KineticContact(CurrentKinetic,other,key,Frame) : new KineticContact(other,CurrentKinetic,key,Frame);
+			
+			Contacts.Add(contact);
+			ContactIndex.Put(key,contact);
+		}
+		
+		contact.LastFrame = Frame;
+		return true;
+	}
+	
+	/**
+	 * Determines if a kinetic object moved (or left the collision engine) since the last time overlapping kinetics were found.
+	 * @param c The kinetic object.
+	 * @return Returns true if {@code c} moved or is no longer in the collision engine and false otherwise.
+	 */
+	protected boolean HasMoved(ICollidable c)
+	{
+		KineticState state = KineticStates.GetOrDefault(c,null);
+		return state == null || state.MovedFrame == Frame;
+	}
+	
+	/**
+	 * Sweeps a kinetic object along the path it took this frame against the static objects near it.
+	 * The kinetic is taken back to where it started and moved forward until it first hits something solid.
+	 * It then stops moving along the axis it hit on and slides along the other for the rest of the frame, possibly hitting something else.
+	 * Afterward, triggers are handled just as they would be for a kinetic that hasn't moved, and anything solid the kinetic is still overlapping (because it started off inside of it) is resolved by pushing the kinetic out.
+	 * This changes nothing, so it is safe to sweep many kinetics at once.
+	 * @param m The manifold of the kinetic object. Its candidates must already be gathered.
+	 * @return Returns how far the kinetic must be moved to end up where the sweep stopped it or null if it isn't stopped by anything.
+	 */
+	protected Vector2d Sweep(KineticManifold m)
+	{
+		CellRectangle end = m.Boundary;
+		Vector2d v = m.Velocity;
+		
+		double w = end.Width();
+		double h = end.Height();
+		
+		double x = end.Left() - v.X;
+		double y = end.Top() - v.Y;
+		double dx = v.X;
+		double dy = v.Y;
+		
+		boolean blocked_x = false;
+		boolean blocked_y = false;
+		
+		// Each hit stops the motion along one axis, so this happens at most twice
+		while(dx != 0.0 || dy != 0.0)
+		{
+			double first = 1.0;
+			double snap = 0.0;
+			boolean hit = false;
+			boolean hit_x = false;
+			
+			for(int i = 0;i < m.CandidateCount;i++)
+			{
+				if(!m.Candidates[i].IsSolid())
+					continue;
+				
+				CellRectangle wall = m.CandidateBoundaries[i];
+				
+				double wl = wall.Left();
+				double wr = wall.Right() + 1;
+				double wt = wall.Top();
+				double wb = wall.Bottom() + 1;
+				
+				// Find when we start and stop overlapping the wall along each axis
+				double enter_x;
+				double exit_x;
+				
+				if(dx > 0.0)
+				{
+					enter_x = (wl - x - w) / dx;
+					exit_x = (wr - x) / dx;
+				}
+				else if(dx < 0.0)
+				{
+					enter_x = (wr - x) / dx;
+					exit_x = (wl - x - w) / dx;
+				}
+				else if(x < wr && x + w > wl)
+				{
+					enter_x = Double.NEGATIVE_INFINITY;
+					exit_x = Double.POSITIVE_INFINITY;
+				}
+				else
+					continue;
+				
+				double enter_y;
+				double exit_y;
+				
+				if(dy > 0.0)
+				{
+					enter_y = (wt - y - h) / dy;
+					exit_y = (wb - y) / dy;
+				}
+				else if(dy < 0.0)
+				{
+					enter_y = (wb - y) / dy;
+					exit_y = (wt - y - h) / dy;
+				}
+				else if(y < wb && y + h > wt)
+				{
+					enter_y = Double.NEGATIVE_INFINITY;
+					exit_y = Double.POSITIVE_INFINITY;
+				}
+				else
+					continue;
+				
+				// We only hit the wall if we overlap it along both axes at once
+				boolean along_x = enter_x >= enter_y;
+				double enter = along_x ? enter_x : enter_y;
+				
+				if(enter >= Math.min(exit_x,exit_y))
+					continue;
+				
+				// Bounding boxes are rounded to whole pixels, so our starting point can be up to a pixel inside a wall we were only touching
+				// Anything deeper than that we were already overlapping when we started, and we leave it for the push out afterward
+				if(enter < 0.0)
+				{
+					boolean shallow_x = dx != 0.0 && enter_x * Math.abs(dx) > -1.0;
+					boolean shallow_y = dy != 0.0 && enter_y * Math.abs(dy) > -1.0;
+					
+					if(!shallow_x && !shallow_y)
+						continue;
+					
+					along_x = shallow_x && (!shallow_y || enter_x >= enter_y);
+					enter = 0.0;
+				}
+				
+				if(enter >= first)
+					continue;
+				
+				first = enter;
+				hit = true;
+				hit_x = along_x;
+				
+				// We stop flush against the wall, and we put ourselves there exactly so that rounding can't leave us overlapping it
+				if(hit_x)
+					snap = dx > 0.0 ? wl - w : wr;
+				else
+					snap = dy > 0.0 ? wt - h : wb;
+			}
+			
+			if(!hit)
+			{
+				x += dx;
+				y += dy;
+				
+				break;
+			}
+			
+			// Stop along the axis we hit on and slide along the other for the rest of the frame
+			if(hit_x)
+			{
+				x = snap;
+				y += first * dy;
+				
+				dx = 0.0;
+				dy *= 1.0 - first;
+				
+				blocked_x = true;
+			}
+			else
+			{
+				x += first * dx;
+				y = snap;
+				
+				dx *= 1.0 - first;
+				dy = 0.0;
+				
+				blocked_y = true;
+			}
+		}
+		
+		// An axis we never hit on is already where it belongs, and leaving it alone keeps rounding from nudging it
+		if(!blocked_x && !blocked_y)
+			return null;
+		
+		return new Vector2d(blocked_x ? x - end.Left() : 0.0,blocked_y ? y - end.Top() : 0.0);
+	}
+	
+	/**
+	 * Handles a collision between {@code CurrentKinetic} and a static object.
+	 * @param stat The static object.
+	 * @return Always returns true so that every static object is visited.
+	 */
+	protected boolean VisitStatic(ICollidable stat)
+	{
+		CurrentTouching = true;
+		
+		// If we're a trigger, do that first in case magic happens
+		if(stat.IsTrigger())
+			stat.Trigger(CurrentKinetic);
+		
+		// We don't do an else if here because maybe we trigger something by bumping into a solid
+		if(stat.IsSolid())
+			ResolveKineticStaticCollision(CurrentKinetic,stat);
+		
+		return true;
+	}
+	
 	/**
 	 * Resolves a kinetic-static collision by pushing {@code kinetic} out to the nearest surface.
 	 * @param kinetic The kinetic object.
@@ -124,9 +633,23 @@ public class CollisionEngine implements IUpdatable, ICollection<ICollidable>
 	public boolean Add(ICollidable c)
 	{
 		if(c.IsStatic())
-			return Statics.Add(c);
-		else
-			return Kinetics.Add(c);
+		{
+			// Kinetics resting nearby might be touching this now
+			if(!Statics.Add(c))
+				return false;
+			
+			StaticsVersion++;
+			return true;
+		}
+		
+		// The kinetic tree holds each kinetic only once, even if it's added more than once
+		if(!KineticStates.ContainsKey(c))
+		{
+			KineticStates.Put(c,new KineticState(c,NextKineticID++));
+			KineticTree.Add(c);
+		}
+		
+		return Kinetics.Add(c);
 	}
 	
 	/**
@@ -148,16 +671,35 @@ public class CollisionEngine implements IUpdatable, ICollection<ICollidable>
 	
 	/**
 	 * Flushes the delayed add list by adding all of them to the collision engine properly.
+	 * When enough static objects arrive at once (such as when a new maze is generated), they are handed to the static index all together so that it can build itself around them (an AABB tree is rebuilt from scratch, for instance) rather than grow one object at a time.
 	 * @return Returns the number of items added successfully.
 	 */
 	public int Flush()
 	{
 		int ret = 0;
+		LinkedList<ICollidable> statics = new LinkedList<ICollidable>();
 		
 		for(ICollidable c : DelayedAdds)
-			if(Add(c))
+			if(c.IsStatic())
+				statics.Add(c);
+			else if(Add(c))
 				ret++;
 		
+		// For a tree, a rebuild costs about as much as adding everything in it again, so it's only worth it when the new statics are a good share of the tree
+		if(statics.Count() >= BULK_FLUSH_THRESHOLD && statics.Count() >= Statics.Count())
+		{
+			int added = Statics.BulkAdd(statics);
+			
+			if(added > 0)
+				StaticsVersion++;
+			
+			ret += added;
+		}
+		else
+			for(ICollidable c : statics)
+				if(Add(c))
+					ret++;
+		
 		DelayedAdds.Clear();
 		return ret;
 	}
@@ -171,9 +713,27 @@ public class CollisionEngine implements IUpdatable, ICollection<ICollidable>
 	public boolean Remove(ICollidable c)
 	{
 		if(c.IsStatic())
-			return Statics.Remove(c);
-		else
-			return Kinetics.Remove(c);
+		{
+			// Kinetics resting against this might be free to go now
+			if(!Statics.Remove(c))
+				return false;
+			
+			StaticsVersion++;
+			return true;
+		}
+		
+		if(!Kinetics.Remove(c))
+			return false;
+		
+		// Any overlaps c was part of will end on the next update
+		if(!Kinetics.Contains(c))
+		{
+			KineticStates.Get(c).Removed = true;
+			KineticStates.RemoveByKey(c);
+			KineticTree.Remove(c);
+		}
+		
+		return true;
 	}
 	
 	@Override public boolean Contains(ICollidable t)
@@ -183,13 +743,81 @@ public class CollisionEngine implements IUpdatable, ICollection<ICollidable>
 	{return Kinetics.Count() + Statics.Count();}
 	
 	/**
-	 * Empties the collision engine of all collidable objects
+	 * Empties the collision engine of all collidable objects.
+	 * Overlaps between kinetic objects are forgotten without notifying anyone that they've ended.
 	 */
 	public void Clear()
 	{
+		for(ICollidable c : Kinetics)
+			KineticStates.Get(c).Removed = true;
+		
 		Kinetics.Clear();
 		Statics.Clear();
 		
+		KineticTree.Clear();
+		KineticStates.Clear();
+		
+		Contacts.Clear();
+		ContactIndex.Clear();
+		
+		StaticsVersion++;
+		return;
+	}
+	
+	/**
+	 * Obtains the number of kinetic objects checked against the static objects since the counters were last reset.
+	 */
+	public long StaticQueries()
+	{return StaticQueries;}
+	
+	/**
+	 * Obtains the number of times a resting kinetic object was not checked against the static objects since the counters were last reset.
+	 */
+	public long StaticQueriesSkipped()
+	{return StaticQueriesSkipped;}
+	
+	/**
+	 * Obtains the number of kinetic objects checked against the other kinetic objects since the counters were last reset.
+	 */
+	public long KineticQueries()
+	{return KineticQueries;}
+	
+	/**
+	 * Obtains the number of times a resting kinetic object was not checked against the other kinetic objects since the counters were last reset.
+	 */
+	public long KineticQueriesSkipped()
+	{return KineticQueriesSkipped;}
+	
+	/**
+	 * Sets whether this collision engine gathers kinetic objects' collisions with static objects in parallel.
+	 * When enabled, the static objects near every kinetic are found (and fast kinetics are swept) over the common fork join pool before anything is resolved.
+	 * Kinetics are then moved and triggers notified in order on the update thread, so the results are exactly the same as when this is disabled.
+	 * This only happens when there are enough kinetics to be worth it and the static index can be queried by several threads at once.
+	 * @param enabled If true, the narrow phase is gathered in parallel. It is disabled by default.
+	 */
+	public void SetParallelNarrowPhase(boolean enabled)
+	{
+		ParallelNarrowPhase = enabled;
+		return;
+	}
+	
+	/**
+	 * Determines if this collision engine gathers kinetic objects' collisions with static objects in parallel.
+	 * @return Returns true if the narrow phase is gathered in parallel and false otherwise.
+	 */
+	public boolean ParallelNarrowPhase()
+	{return ParallelNarrowPhase;}
+	
+	/**
+	 * Resets the query counters to zero.
+	 */
+	public void ResetCounters()
+	{
+		StaticQueries = 0;
+		StaticQueriesSkipped = 0;
+		KineticQueries = 0;
+		KineticQueriesSkipped = 0;
+		
 		return;
 	}
 	
@@ -204,7 +832,107 @@ public class CollisionEngine implements IUpdatable, ICollection<ICollidable>
 	/**
 	 * The static objects belonging to this collision engine.
 	 */
-	protected AABBTree<ICollidable> Statics;
+	protected ISpatialIndex<ICollidable> Statics;
+	
+	/**
+	 * The kinetic objects belonging to this collision engine, organized by where they are.
+	 * Each leaf is fattened so that kinetics moving a little each frame rarely change the tree.
+	 */
+	protected AABBTree<ICollidable> KineticTree;
+	
+	/**
+	 * Visits the kinetic objects which a kinetic object might be overlapping.
+	 */
+	protected final ISpatialIndex.Visitor<ICollidable> KineticVisitor = this::VisitKinetic;
+	
+	/**
+	 * The kinetic object whose collisions are being handled.
+	 */
+	protected ICollidable CurrentKinetic;
+	
+	/**
+	 * What has been gathered about each kinetic object this update, in the order the kinetics are resolved.
+	 * These are kept between updates so that their storage can be reused.
+	 */
+	protected KineticManifold[] Manifolds = new KineticManifold[16];
+	
+	/**
+	 * If true, {@code CurrentKinetic} has touched a static object during its check.
+	 */
+	protected boolean CurrentTouching;
+	
+	/**
+	 * The state of {@code CurrentKinetic} when finding kinetic overlaps.
+	 */
+	protected KineticState CurrentKineticState;
+	
+	/**
+	 * What we know about each kinetic object.
+	 */
+	protected Dictionary<ICollidable,KineticState> KineticStates;
+	
+	/**
+	 * The ID to give the next new kinetic object.
+	 */
+	protected int NextKineticID;
+	
+	/**
+	 * The overlapping pairs of kinetic objects in the order their overlaps began.
+	 */
+	protected ArrayList<KineticContact> Contacts;
+	
+	/**
+	 * The overlapping pairs of kinetic objects indexed by their keys.
+	 */
+	protected Dictionary<Long,KineticContact> ContactIndex;
+	
+	/**
+	 * The pairs of kinetic objects to notify at the end of an update.
+	 * This is kept around between updates only to save us from allocating it every frame.
+	 */
+	protected ArrayList<KineticContact> ContactEvents;
+	
+	/**
+	 * The kinetic objects which have moved since overlapping kinetics were last found.
+	 * This is kept around between updates only to save us from allocating it every frame.
+	 */
+	protected ArrayList<KineticState> Movers;
+	
+	/**
+	 * The number of updates so far.
+	 */
+	protected long Frame;
+	
+	/**
+	 * The number of times static objects have been added or removed.
+	 * Whenever this changes, every kinetic must be checked against the static objects again.
+	 */
+	protected long StaticsVersion;
+	
+	/**
+	 * If true, kinetic objects' collisions with static objects are gathered in parallel before they are resolved.
+	 */
+	protected boolean ParallelNarrowPhase;
+	
+	/**
+	 * The number of kinetic objects checked against the static objects since the counters were last reset.
+	 */
+	protected long StaticQueries;
+	
+	/**
+	 * The number of times a resting kinetic object was not checked against the static objects since the counters were last reset.
+	 */
+	protected long StaticQueriesSkipped;
+	
+	/**
+	 * The number of kinetic objects checked against the other kinetic objects since the counters were last reset.
+	 */
+	protected long KineticQueries;
+	
+	/**
+	 * The number of times a resting kinetic object was not checked against the other kinetic objects since the counters were last reset.
+	 */
+	protected long KineticQueriesSkipped;
 	
 	/**
 	 * The collidable objects we are delaying to add until a Flush call.
@@ -220,4 +948,339 @@ public class CollisionEngine implements IUpdatable, ICollection<ICollidable>
 	 * If true, this collision engine is disposed.
 	 */
 	protected boolean Disposed;
+	
+	/**
+	 * The fewest static objects a flush must add at once before it rebuilds the static tree around them.
+	 */
+	protected static final int BULK_FLUSH_THRESHOLD = 32;
+	
+	/**
+	 * The distance by which kinetic objects' boxes are fattened in the kinetic tree.
+	 */
+	protected static final int KINETIC_MARGIN = 4;
+	
+	/**
+	 * The largest number of kinetic objects we will gather on a single thread before splitting the work further.
+	 */
+	protected static final int PARALLEL_NARROW_GRAIN = 64;
+	
+	/**
+	 * Gathers a range of {@code Manifolds} by recursively splitting it over a fork join pool.
+	 * @author Dawn Nye
+	 */
+	protected class GatherTask extends RecursiveAction
+	{
+		/**
+		 * Creates a new gather task.
+		 * @param start The first index to gather.
+		 * @param end The (exclusive) last index to gather.
+		 */
+		public GatherTask(int start, int end)
+		{
+			Start = start;
+			End = end;
+			
+			return;
+		}
+		
+		@Override protected void compute()
+		{
+			if(End - Start <= PARALLEL_NARROW_GRAIN)
+			{
+				for(int i = Start;i < End;i++)
+					Gather(Manifolds[i]);
+				
+				return;
+			}
+			
+			int mid = (Start + End) >>> 1;
+			invokeAll(new GatherTask(Start,mid),new GatherTask(mid,End));
+			
+			return;
+		}
+		
+		/**
+		 * The first index to gather.
+		 */
+		protected final int Start;
+		
+		/**
+		 * The (exclusive) last index to gather.
+		 */
+		protected final int End;
+	}
+	
+	/**
+	 * A pair of overlapping kinetic objects.
+	 * @author Dawn Nye
+	 */
+	protected static class KineticContact
+	{
+		/**
+		 * Creates a new contact.
+		 * @param a The kinetic object with the smaller ID.
+		 * @param b The kinetic object with the larger ID.
+		 * @param key The key of the pair.
+		 * @param frame The frame the overlap began on.
+		 */
+		public KineticContact(ICollidable a, ICollidable b, long key, long frame)
+		{
+			A = a;
+			B = b;
+			Key = key;
+			
+			FirstFrame = LastFrame = frame;
+			return;
+		}
+		
+		/**
+		 * The kinetic object with the smaller ID.
+		 */
+		public final ICollidable A;
+		
+		/**
+		 * The kinetic object with the larger ID.
+		 */
+		public final ICollidable B;
+		
+		/**
+		 * The IDs of A and B packed together.
+		 */
+		public final long Key;
+		
+		/**
+		 * The frame the overlap began on.
+		 */
+		public final long FirstFrame;
+		
+		/**
+		 * The last frame on which A and B were found to overlap.
+		 */
+		public long LastFrame;
+	}
+	
+	/**
+	 * What the collision engine remembers about a kinetic object from one update to the next.
+	 * @author Dawn Nye
+	 */
+	protected static class KineticState
+	{
+		/**
+		 * Creates the state of a newly added kinetic object.
+		 * @param kinetic The kinetic object.
+		 * @param id The kinetic object's ID.
+		 */
+		public KineticState(ICollidable kinetic, int id)
+		{
+			Kinetic = kinetic;
+			ID = id;
+			
+			Boundary = null;
+			Touching = false;
+			
+			StaticsVersion = -1;
+			CommittedFrame = -1;
+			Removed = false;
+			
+			ContactBoundary = null;
+			MovedFrame = -1;
+			
+			return;
+		}
+		
+		/**
+		 * The kinetic object.
+		 */
+		public final ICollidable Kinetic;
+		
+		/**
+		 * A unique ID for the kinetic object.
+		 * These give each pair of kinetics a key and an order that doesn't depend on hash codes.
+		 */
+		public final int ID;
+		
+		/**
+		 * Where the kinetic object was left after it was last checked against the static objects or null if it had no bounding box.
+		 */
+		public CellRectangle Boundary;
+		
+		/**
+		 * If true, the kinetic object was touching a static object when it was last checked against them.
+		 */
+		public boolean Touching;
+		
+		/**
+		 * The version of the static objects the kinetic object was last checked against.
+		 */
+		public long StaticsVersion;
+		
+		/**
+		 * The last frame on which the kinetic object's collisions with static objects were resolved.
+		 */
+		public long CommittedFrame;
+		
+		/**
+		 * If true, the kinetic object has left the collision engine.
+		 */
+		public boolean Removed;
+		
+		/**
+		 * Where the kinetic object was the last time overlapping kinetics were found or null if it had no bounding box.
+		 */
+		public CellRectangle ContactBoundary;
+		
+		/**
+		 * The last frame on which the kinetic object was found to have moved.
+		 */
+		public long MovedFrame;
+	}
+	
+	/**
+	 * Everything needed to resolve a kinetic object's collisions with the static objects on one update.
+	 * @author Dawn Nye
+	 */
+	protected static class KineticManifold
+	{
+		/**
+		 * Creates an empty manifold.
+		 */
+		public KineticManifold()
+		{
+			Candidates = new ICollidable[16];
+			CandidateBoundaries = new CellRectangle[16];
+			CandidateCount = 0;
+			
+			Collector = this::Collect;
+			Release();
+			
+			return;
+		}
+		
+		/**
+		 * Readies this manifold for a kinetic object.
+		 * @param kinetic The kinetic object.
+		 * @param state The state of {@code kinetic}.
+		 */
+		public void Set(ICollidable kinetic, KineticState state)
+		{
+			Kinetic = kinetic;
+			State = state;
+			Gathered = false;
+			
+			return;
+		}
+		
+		/**
+		 * Records a static object near the kinetic object.
+		 * @param stat The static object.
+		 * @return Always returns true so that every static object is visited.
+		 */
+		protected boolean Collect(ICollidable stat)
+		{
+			CellRectangle boundary = stat.GetBoundary();
+			
+			if(boundary == null)
+				return true;
+			
+			if(CandidateCount == Candidates.length)
+			{
+				Candidates = Arrays.copyOf(Candidates,CandidateCount << 1);
+				CandidateBoundaries = Arrays.copyOf(CandidateBoundaries,CandidateCount << 1);
+			}
+			
+			Candidates[CandidateCount] = stat;
+			CandidateBoundaries[CandidateCount++] = boundary;
+			
+			return true;
+		}
+		
+		/**
+		 * Lets go of everything this manifold refers to so that none of it is kept alive between updates.
+		 */
+		public void Release()
+		{
+			for(int i = 0;i < CandidateCount;i++)
+			{
+				Candidates[i] = null;
+				CandidateBoundaries[i] = null;
+			}
+			
+			Kinetic = null;
+			State = null;
+			
+			Boundary = null;
+			Velocity = null;
+			Correction = null;
+			
+			CandidateCount = 0;
+			Gathered = false;
+			
+			return;
+		}
+		
+		/**
+		 * The kinetic object.
+		 */
+		public ICollidable Kinetic;
+		
+		/**
+		 * The state of the kinetic object.
+		 */
+		public KineticState State;
+		
+		/**
+		 * If true, this manifold has been gathered since it was last set.
+		 */
+		public boolean Gathered;
+		
+		/**
+		 * The bounding box of the kinetic object when it was gathered.
+		 */
+		public CellRectangle Boundary;
+		
+		/**
+		 * The velocity of the kinetic object when it was gathered.
+		 */
+		public Vector2d Velocity;
+		
+		/**
+		 * The version of the static objects when the kinetic object was gathered.
+		 */
+		public long StaticsVersion;
+		
+		/**
+		 * If true, the kinetic object has a nonzero velocity and is swept.
+		 */
+		public boolean Moving;
+		
+		/**
+		 * If true, the kinetic object is resting and need not be checked against anything.
+		 */
+		public boolean Asleep;
+		
+		/**
+		 * How far the sweep moves the kinetic object or null if it doesn't.
+		 */
+		public Vector2d Correction;
+		
+		/**
+		 * The static objects near the kinetic object in the order the static index found them.
+		 */
+		public ICollidable[] Candidates;
+		
+		/**
+		 * The bounding boxes of {@code Candidates}.
+		 */
+		public CellRectangle[] CandidateBoundaries;
+		
+		/**
+		 * The number of static objects in {@code Candidates}.
+		 */
+		public int CandidateCount;
+		
+		/**
+		 * Visits the static objects near the kinetic object.
+		 */
+		public final ISpatialIndex.Visitor<ICollidable> Collector;
+	}
 }
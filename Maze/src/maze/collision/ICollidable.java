@@ -23,6 +23,21 @@ public interface ICollidable
 	public default void Trigger(ICollidable other)
 	{return;}
 	
+	/**
+	 * Called when this is a kinetic trigger and another kinetic object begins to overlap it.
+	 * {@code Trigger} is also called on every frame they overlap, including this one.
+	 * @param other The kinetic object that began overlapping this.
+	 */
+	public default void TriggerBegin(ICollidable other)
+	{return;}
+	
+	/**
+	 * Called when this is a kinetic trigger and another kinetic object stops overlapping it.
+	 * @param other The kinetic object that stopped overlapping this.
+	 */
+	public default void TriggerEnd(ICollidable other)
+	{return;}
+	
 	/**
 	 * Obtains the bounding box for this collidable.
 	 */
@@ -30,6 +45,8 @@ public interface ICollidable
 	
 	/**
 	 * Obtains the velocity of this collidable object.
+	 * This is how far it has moved since the collision engine last updated.
+	 * The collision engine sweeps kinetic objects along this path so that they stop at the first solid thing they hit rather than pass through it.
 	 */
 	public default Vector2d Velocity()
 	{return Vector2d.ZERO;}
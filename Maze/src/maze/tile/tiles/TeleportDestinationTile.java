@@ -24,6 +24,7 @@ public class TeleportDestinationTile extends MazeTile
 		
 		TeleporterDestination = new AnimatedComponent(new Animation(new File("assets/animations/Destination Teleport.animation")));
 		TeleporterDestination.SetParent(this);
+		TeleporterDestination.SetParallelSafe(true); // Nobody else watches our animation, so it can keep time on its own
 		
 		return;
 	}
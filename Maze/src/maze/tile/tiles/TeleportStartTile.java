@@ -33,6 +33,7 @@ public class TeleportStartTile extends MazeTile
         Displacement = (new Vector2d(displacemement.Multiply(3*16)));
         TeleporterStart = new AnimatedComponent(new Animation(new File("assets/animations/Active Teleport.animation")));
         TeleporterStart.SetParent(this);
+        TeleporterStart.SetParallelSafe(true); // Nobody else watches our animation, so it can keep time on its own
 
 
 